@@ -0,0 +1,116 @@
+package com.autodesk.fileservice.benchmark;
+
+import com.autodesk.fileservice.config.FileProcessingProperties;
+import com.autodesk.fileservice.config.FileProcessingProperties.Text.MalformedInput;
+import com.autodesk.fileservice.config.FileProcessingProperties.Text.WordSeparators;
+import com.autodesk.fileservice.counter.ByteScanningTextStatsCounter;
+import com.autodesk.fileservice.counter.DecodingTextStatsCounter;
+import com.autodesk.fileservice.counter.ProfilingTextStatsCounter;
+import com.autodesk.fileservice.counter.TextStats;
+import com.autodesk.fileservice.csv.CsvStatsCollector;
+import com.autodesk.fileservice.model.CsvStats;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-threaded cost of the counting loops over inputs of different shapes. The
+ * {@code bytes} secondary result is throughput in bytes per second; run with
+ * {@code -prof gc} (the default jmh.args) for allocation per operation. The
+ * {@code countUtf16} variant counts the same text encoded as UTF-16LE, so its byte rate
+ * is about twice its character rate for ASCII.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CountingBenchmark {
+
+    @Param({"SHORT_LINES", "LONG_LINES", "UNICODE", "CSV"})
+    public SyntheticText shape;
+
+    @Param({"4194304"})
+    public int size;
+
+    private byte[] content;
+    private final ByteScanningTextStatsCounter byteScanning = new ByteScanningTextStatsCounter();
+    private final ByteScanningTextStatsCounter unicodeSeparators = new ByteScanningTextStatsCounter(WordSeparators.UNICODE);
+    private ProfilingTextStatsCounter profiling;
+    private DecodingTextStatsCounter validating;
+    private byte[] utf16;
+
+    /** Bytes consumed, reported by JMH as a rate next to the operation rate. */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Throughput {
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        content = shape.generate(size);
+        FileProcessingProperties properties = new FileProcessingProperties();
+        properties.getProfile().setEnabled(true);
+        profiling = new ProfilingTextStatsCounter(byteScanning, properties);
+
+        FileProcessingProperties strict = new FileProcessingProperties();
+        strict.getText().setMalformedInput(MalformedInput.REJECT);
+        validating = new DecodingTextStatsCounter(new ProfilingTextStatsCounter(byteScanning, strict), strict);
+        utf16 = ("\uFEFF" + new String(content, StandardCharsets.UTF_8)).getBytes(StandardCharsets.UTF_16LE);
+    }
+
+    @Benchmark
+    public TextStats countBuffer(Throughput throughput) {
+        throughput.bytes += content.length;
+        return byteScanning.count(ByteBuffer.wrap(content));
+    }
+
+    @Benchmark
+    public TextStats countStream(Throughput throughput) throws IOException {
+        throughput.bytes += content.length;
+        return byteScanning.count(new ByteArrayInputStream(content));
+    }
+
+    @Benchmark
+    public TextStats countUnicodeSeparators(Throughput throughput) {
+        throughput.bytes += content.length;
+        return unicodeSeparators.count(ByteBuffer.wrap(content));
+    }
+
+    @Benchmark
+    public TextStats countValidated(Throughput throughput) {
+        throughput.bytes += content.length;
+        return validating.count(ByteBuffer.wrap(content));
+    }
+
+    @Benchmark
+    public TextStats countUtf16(Throughput throughput) {
+        throughput.bytes += utf16.length;
+        return validating.count(ByteBuffer.wrap(utf16));
+    }
+
+    @Benchmark
+    public TextStats countWithProfile(Throughput throughput) {
+        throughput.bytes += content.length;
+        return profiling.count(ByteBuffer.wrap(content));
+    }
+
+    @Benchmark
+    public CsvStats csvStats(Throughput throughput) {
+        throughput.bytes += content.length;
+        CsvStatsCollector collector = new CsvStatsCollector(true, 128, 12);
+        collector.update(content, 0, content.length);
+        return collector.finish();
+    }
+}
@@ -0,0 +1,161 @@
+package com.autodesk.fileservice.benchmark;
+
+import com.autodesk.fileservice.config.FileProcessingProperties;
+import com.autodesk.fileservice.counter.ByteScanningTextStatsCounter;
+import com.autodesk.fileservice.counter.DecodingTextStatsCounter;
+import com.autodesk.fileservice.counter.MappedTextStatsCounter;
+import com.autodesk.fileservice.counter.ParallelTextStatsCounter;
+import com.autodesk.fileservice.counter.ProfilingTextStatsCounter;
+import com.autodesk.fileservice.model.FileMetadata;
+import com.autodesk.fileservice.repository.DailyFileStatsRepository;
+import com.autodesk.fileservice.repository.FileMetadataRepository;
+import com.autodesk.fileservice.resultlog.ResultLog;
+import com.autodesk.fileservice.service.FileMetadataWriter;
+import com.autodesk.fileservice.service.FileProcessingService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * End-to-end cost of {@code processAndSave} without a database: validation, hashing,
+ * counting, CSV statistics and the synchronous write path, against an in-memory
+ * repository. With {@code dedup} every upload after the first is a repeat of the same
+ * content, which measures the duplicate path (hash and lookup, no count, no insert).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProcessAndSaveBenchmark {
+
+    @Param({"SHORT_LINES", "CSV"})
+    public SyntheticText shape;
+
+    /** At or above the default mapped threshold, so the file path maps the content. */
+    @Param({"1048576"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean dedup;
+
+    private byte[] content;
+    private Path file;
+    private String fileName;
+    private FileMetadataWriter writer;
+    private ParallelTextStatsCounter parallelCounter;
+    private FileProcessingService service;
+
+    @Setup
+    public void setup() throws IOException {
+        content = shape.generate(size);
+        fileName = shape == SyntheticText.CSV ? "bench.csv" : "bench.txt";
+        file = Files.createTempFile("bench-", ".tmp");
+        Files.write(file, content);
+
+        FileProcessingProperties properties = new FileProcessingProperties();
+        properties.getPersistence().setMode(FileProcessingProperties.Persistence.Mode.SYNC);
+        properties.getDedup().setEnabled(dedup);
+
+        FileMetadataRepository repository = inMemoryRepository();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ByteScanningTextStatsCounter byteScanning = new ByteScanningTextStatsCounter();
+        DecodingTextStatsCounter counter = new DecodingTextStatsCounter(
+                new ProfilingTextStatsCounter(byteScanning, properties), properties);
+        MappedTextStatsCounter mappedCounter = new MappedTextStatsCounter(counter);
+        ResultLog resultLog = new ResultLog(properties, meterRegistry);
+        writer = new FileMetadataWriter(repository, noOpDailyStats(), new NoOpTransactionManager(), properties,
+                meterRegistry, new NoOpCacheManager(), resultLog);
+        parallelCounter = new ParallelTextStatsCounter(counter, mappedCounter, properties);
+        service = new FileProcessingService(repository, writer, resultLog, counter, mappedCounter, parallelCounter,
+                properties, meterRegistry);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException, InterruptedException {
+        writer.shutdown();
+        parallelCounter.shutdown();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public FileMetadata streamed() {
+        return service.processAndSave(fileName, new ByteArrayInputStream(content), content.length);
+    }
+
+    @Benchmark
+    public FileMetadata spooledFile() {
+        return service.processAndSave(fileName, file);
+    }
+
+    /**
+     * Implements only what the processing path calls. Rows are kept by content hash for
+     * the duplicate lookup; without dedup nothing is kept, so memory stays flat.
+     */
+    private static FileMetadataRepository inMemoryRepository() {
+        AtomicLong ids = new AtomicLong();
+        Map<String, FileMetadata> byHash = new ConcurrentHashMap<>();
+        return (FileMetadataRepository) Proxy.newProxyInstance(FileMetadataRepository.class.getClassLoader(),
+                new Class<?>[]{FileMetadataRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "save" -> {
+                        FileMetadata row = (FileMetadata) args[0];
+                        row.setId(ids.incrementAndGet());
+                        if (row.getContentHash() != null) {
+                            byHash.putIfAbsent(row.getContentHash(), row);
+                        }
+                        yield row;
+                    }
+                    case "findFirstByContentHashOrderByIdAsc" -> Optional.ofNullable(byHash.get((String) args[0]));
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "InMemoryFileMetadataRepository";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    /** The rollup upsert is a single statement per batch; without a database it does nothing. */
+    private static DailyFileStatsRepository noOpDailyStats() {
+        return (DailyFileStatsRepository) Proxy.newProxyInstance(DailyFileStatsRepository.class.getClassLoader(),
+                new Class<?>[]{DailyFileStatsRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "add" -> null;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "NoOpDailyFileStatsRepository";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static final class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
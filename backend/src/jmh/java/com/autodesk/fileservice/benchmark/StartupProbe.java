@@ -0,0 +1,71 @@
+package com.autodesk.fileservice.benchmark;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Starts the backend repeatedly and reports the time from launching the process until
+ * it answers its first request, which is what a newly added instance costs during a
+ * burst. Compare the plain jar with the CDS archive, AOT processing and the native
+ * executable (see the {@code aot}, {@code cds} and {@code native} Maven profiles).
+ * <p>
+ * Arguments: {@code url runs command...}, e.g.
+ * {@code http://localhost:8080/actuator/health/liveness 5 java -jar target/file-processor-service-0.1.0.jar}
+ */
+public class StartupProbe {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("usage: StartupProbe url runs command...");
+            System.exit(2);
+        }
+        URI uri = URI.create(args[0]);
+        int runs = Integer.parseInt(args[1]);
+        List<String> command = Arrays.asList(args).subList(2, args.length);
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(5)).build();
+
+        long[] millis = new long[runs];
+        for (int run = 0; run < runs; run++) {
+            long start = System.nanoTime();
+            Process process = new ProcessBuilder(command)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .redirectError(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            try {
+                while (!answered(client, request)) {
+                    if (!process.isAlive()) {
+                        throw new IllegalStateException("process exited with " + process.exitValue());
+                    }
+                    if (System.nanoTime() - start > Duration.ofMinutes(2).toNanos()) {
+                        throw new IllegalStateException("no answer from " + uri + " within 2 minutes");
+                    }
+                    Thread.sleep(5);
+                }
+                millis[run] = Duration.ofNanos(System.nanoTime() - start).toMillis();
+                System.out.printf("run %d: first request after %d ms%n", run + 1, millis[run]);
+            } finally {
+                process.destroy();
+                process.waitFor();
+            }
+        }
+        Arrays.sort(millis);
+        System.out.printf("time to first request: min %d ms, median %d ms, max %d ms%n",
+                millis[0], millis[runs / 2], millis[runs - 1]);
+    }
+
+    private static boolean answered(HttpClient client, HttpRequest request) throws InterruptedException {
+        try {
+            int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            return status >= 200 && status < 300;
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.autodesk.fileservice.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Reproducible benchmark inputs of a given size and shape.
+ */
+public enum SyntheticText {
+
+    /** Many short lines of ASCII words, some blank. */
+    SHORT_LINES {
+        @Override
+        void append(StringBuilder sb, Random random) {
+            int words = random.nextInt(12);
+            for (int i = 0; i < words; i++) {
+                if (i > 0) sb.append(' ');
+                sb.append(ASCII_WORDS[random.nextInt(ASCII_WORDS.length)]);
+            }
+            sb.append('\n');
+        }
+    },
+
+    /** A few lines of about 256 KB each. */
+    LONG_LINES {
+        @Override
+        void append(StringBuilder sb, Random random) {
+            int start = sb.length();
+            while (sb.length() - start < 256 * 1024) {
+                sb.append(ASCII_WORDS[random.nextInt(ASCII_WORDS.length)]).append(random.nextInt(8) == 0 ? "\t" : " ");
+            }
+            sb.append('\n');
+        }
+    },
+
+    /** Multi-byte words separated by a mix of ASCII and Unicode whitespace. */
+    UNICODE {
+        @Override
+        void append(StringBuilder sb, Random random) {
+            int words = 1 + random.nextInt(12);
+            for (int i = 0; i < words; i++) {
+                if (i > 0) sb.append(UNICODE_SEPARATORS[random.nextInt(UNICODE_SEPARATORS.length)]);
+                sb.append(UNICODE_WORDS[random.nextInt(UNICODE_WORDS.length)]);
+            }
+            sb.append(random.nextBoolean() ? "\n" : "\r\n");
+        }
+    },
+
+    /** CSV records with numeric, text, quoted and empty fields. */
+    CSV {
+        private int id;
+
+        @Override
+        void start(StringBuilder sb) {
+            id = 0;
+            sb.append("id,name,price,comment,created\r\n");
+        }
+
+        @Override
+        void append(StringBuilder sb, Random random) {
+            sb.append(++id).append(',')
+                    .append(ASCII_WORDS[random.nextInt(ASCII_WORDS.length)]).append(',')
+                    .append(random.nextInt(100_000) / 100.0).append(',');
+            if (random.nextInt(4) == 0) {
+                sb.append("\"quoted, with \"\"quotes\"\"\"");
+            } else if (random.nextBoolean()) {
+                sb.append(ASCII_WORDS[random.nextInt(ASCII_WORDS.length)]);
+            }
+            sb.append(",2024-01-").append(10 + random.nextInt(20)).append("\r\n");
+        }
+    };
+
+    private static final String[] ASCII_WORDS = {
+            "lorem", "ipsum", "dolor", "sit", "amet", "42", "2024-01-01", "value,other", "consectetur", "a"
+    };
+    private static final String[] UNICODE_WORDS = {"naïve", "café", "日本語", "Ünïcödé", "😀", "παράδειγμα", "plain"};
+    private static final String[] UNICODE_SEPARATORS = {" ", "\t", "\u00a0", "\u2003", "\u3000"};
+
+    void start(StringBuilder sb) {
+    }
+
+    abstract void append(StringBuilder sb, Random random);
+
+    /**
+     * Returns about {@code size} bytes of UTF-8 text; always the same for the same shape and size.
+     */
+    public byte[] generate(int size) {
+        Random random = new Random(7);
+        StringBuilder sb = new StringBuilder(size + 1024);
+        start(sb);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size + 1024);
+        while (true) {
+            append(sb, random);
+            if (sb.length() >= 8192) {
+                out.writeBytes(sb.toString().getBytes(StandardCharsets.UTF_8));
+                sb.setLength(0);
+                if (out.size() >= size) {
+                    return out.toByteArray();
+                }
+            }
+        }
+    }
+}
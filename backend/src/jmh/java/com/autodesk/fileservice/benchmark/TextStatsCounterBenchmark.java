@@ -0,0 +1,95 @@
+package com.autodesk.fileservice.benchmark;
+
+import com.autodesk.fileservice.config.FileProcessingProperties;
+import com.autodesk.fileservice.counter.ByteScanningTextStatsCounter;
+import com.autodesk.fileservice.counter.ProfilingTextStatsCounter;
+import com.autodesk.fileservice.counter.TextProfiler;
+import com.autodesk.fileservice.counter.TextStats;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the byte-scanning counter with the readLine()/split loop it replaced, and
+ * measures what collecting the extended text profile adds on top of it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TextStatsCounterBenchmark {
+
+    @Param({"1048576"})
+    public int size;
+
+    private byte[] content;
+    private final ByteScanningTextStatsCounter byteScanning = new ByteScanningTextStatsCounter();
+    private ProfilingTextStatsCounter profiling;
+    private int trackedWords;
+    private int distinctPrecision;
+
+    @Setup
+    public void setup() {
+        FileProcessingProperties properties = new FileProcessingProperties();
+        properties.getProfile().setEnabled(true);
+        profiling = new ProfilingTextStatsCounter(byteScanning, properties);
+        trackedWords = properties.getProfile().getTrackedWords();
+        distinctPrecision = properties.getProfile().getDistinctPrecision();
+
+        String[] vocabulary = {"lorem", "ipsum", "dolor", "sit", "amet", "42", "2024-01-01", "value,other"};
+        Random random = new Random(7);
+        StringBuilder sb = new StringBuilder(size + 64);
+        while (sb.length() < size) {
+            int words = random.nextInt(12);
+            for (int i = 0; i < words; i++) {
+                if (i > 0) sb.append(' ');
+                sb.append(vocabulary[random.nextInt(vocabulary.length)]);
+            }
+            sb.append('\n');
+        }
+        content = sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public TextStats readLineSplit() throws IOException {
+        long lineCount = 0L;
+        long wordCount = 0L;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(content), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineCount++;
+                if (!line.isBlank()) {
+                    String[] words = line.trim().split("\\s+");
+                    wordCount += words.length;
+                }
+            }
+        }
+        return new TextStats(lineCount, wordCount);
+    }
+
+    @Benchmark
+    public TextStats byteScanning() throws IOException {
+        return byteScanning.count(new ByteArrayInputStream(content));
+    }
+
+    @Benchmark
+    public TextStats profiling() throws IOException {
+        return profiling.count(new ByteArrayInputStream(content));
+    }
+
+    /** The profiler on its own, to tell its cost from the counter's in {@link #profiling()}. */
+    @Benchmark
+    public TextProfiler profilerOnly() {
+        TextProfiler profiler = new TextProfiler(trackedWords, distinctPrecision);
+        profiler.update(content, 0, content.length);
+        return profiler.finish();
+    }
+}
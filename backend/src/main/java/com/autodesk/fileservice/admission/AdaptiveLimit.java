@@ -0,0 +1,126 @@
+package com.autodesk.fileservice.admission;
+
+import com.autodesk.fileservice.config.FileProcessingProperties;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admission budget of one class of requests: a concurrency limit adapted by additive
+ * increase and multiplicative decrease (AIMD), plus an optional cap on declared request
+ * bytes in flight.
+ * <p>
+ * Every completed request is a sample. One slower than the latency threshold, or one the
+ * application itself had to turn away, multiplies the limit by the backoff ratio; a fast
+ * one raises it by one, but only while at least half of the limit is in use, so that an
+ * idle period does not inflate it. The limit stays between its minimum and maximum.
+ * <p>
+ * Admission is lock-free; only adapting the limit synchronizes.
+ */
+public class AdaptiveLimit {
+
+    public enum Decision {
+        ADMITTED, OVER_LIMIT, OVER_BYTES
+    }
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+    private final long maxInFlightBytes;
+
+    private volatile int limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong inFlightBytes = new AtomicLong();
+
+    public AdaptiveLimit(FileProcessingProperties.Admission.Budget budget) {
+        if (budget.getMinLimit() < 1 || budget.getMaxLimit() < budget.getMinLimit()) {
+            throw new IllegalArgumentException("Admission limits must satisfy 1 <= min-limit <= max-limit");
+        }
+        this.minLimit = budget.getMinLimit();
+        this.maxLimit = budget.getMaxLimit();
+        this.latencyThresholdNanos = budget.getLatencyThreshold().toNanos();
+        this.backoffRatio = budget.getBackoffRatio();
+        this.maxInFlightBytes = budget.getMaxInFlightBytes().toBytes();
+        this.limit = Math.clamp(budget.getInitialLimit(), minLimit, maxLimit);
+    }
+
+    /**
+     * Takes a slot for a request declaring {@code bytes} of body (0 if unknown). A request
+     * larger than the whole byte budget is still admitted when no other bytes are in
+     * flight, so it is held to the upload size limits rather than rejected forever.
+     * Every admitted request must be {@linkplain #release released}.
+     */
+    public Decision tryAcquire(long bytes) {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= limit) {
+                return Decision.OVER_LIMIT;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+
+        if (maxInFlightBytes > 0 && bytes > 0) {
+            long held;
+            do {
+                held = inFlightBytes.get();
+                if (held > 0 && held + bytes > maxInFlightBytes) {
+                    inFlight.decrementAndGet();
+                    return Decision.OVER_BYTES;
+                }
+            } while (!inFlightBytes.compareAndSet(held, held + bytes));
+        }
+        return Decision.ADMITTED;
+    }
+
+    /**
+     * Frees the slot of a completed request and adapts the limit to how it went.
+     *
+     * @param overloaded the application rejected the request for lack of capacity
+     */
+    public void release(long bytes, long latencyNanos, boolean overloaded) {
+        int before = free(bytes);
+        if (overloaded || latencyNanos > latencyThresholdNanos) {
+            decrease();
+        } else if (before * 2 >= limit) {
+            increase();
+        }
+    }
+
+    /**
+     * Frees the slot of a request whose latency says nothing about load, such as a
+     * long-running streamed response.
+     */
+    public void releaseWithoutSample(long bytes) {
+        free(bytes);
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getInFlightBytes() {
+        return inFlightBytes.get();
+    }
+
+    private int free(long bytes) {
+        if (maxInFlightBytes > 0 && bytes > 0) {
+            inFlightBytes.addAndGet(-bytes);
+        }
+        return inFlight.getAndDecrement();
+    }
+
+    private synchronized void increase() {
+        if (limit < maxLimit) {
+            limit++;
+        }
+    }
+
+    private synchronized void decrease() {
+        limit = Math.max(minLimit, (int) (limit * backoffRatio));
+    }
+}
@@ -0,0 +1,156 @@
+package com.autodesk.fileservice.admission;
+
+import com.autodesk.fileservice.config.FileProcessingProperties;
+import com.autodesk.fileservice.exception.ProcessingRejectedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Sheds load before it reaches the controllers. Reads (GET and HEAD) and writes have
+ * separate {@link AdaptiveLimit budgets}, so a burst of uploads cannot starve listings and
+ * lookups. A request over its budget is answered at once with 503 and Retry-After,
+ * before its body is read.
+ * <p>
+ * The latency that adapts a limit leaves out the time spent waiting for the request
+ * body, so a slow client or a large upload does not lower the limit for everyone; see
+ * {@link BodyTimingRequest}.
+ * <p>
+ * Meters, tagged {@code budget=read|write}: {@code file.admission.limit},
+ * {@code file.admission.inflight}, {@code file.admission.inflight.bytes} and
+ * {@code file.admission.rejected}, the latter also tagged {@code reason=limit|bytes}.
+ */
+public class AdmissionFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(AdmissionFilter.class);
+
+    private static final String REJECTION_BODY = "{\"error\":\"" + ProcessingRejectedException.MESSAGE + "\"}";
+
+    private final Budget read;
+    private final Budget write;
+    private final String retryAfterSeconds;
+
+    public AdmissionFilter(FileProcessingProperties.Admission admission, MeterRegistry meterRegistry) {
+        this.read = new Budget("read", new AdaptiveLimit(admission.getRead()), meterRegistry);
+        this.write = new Budget("write", new AdaptiveLimit(admission.getWrite()), meterRegistry);
+        this.retryAfterSeconds = String.valueOf(Math.max(1, admission.getRetryAfter().toSeconds()));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String method = request.getMethod();
+        Budget budget = "GET".equals(method) || "HEAD".equals(method) ? read : write;
+        long bytes = Math.max(0, request.getContentLengthLong());
+
+        AdaptiveLimit.Decision decision = budget.limit.tryAcquire(bytes);
+        if (decision != AdaptiveLimit.Decision.ADMITTED) {
+            budget.rejections.get(decision).increment();
+            log.debug("Rejected {} {}: {} budget {}", method, request.getRequestURI(), budget.name, decision);
+            reject(response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        BodyTimingRequest timed = new BodyTimingRequest(request);
+        boolean async = false;
+        try {
+            chain.doFilter(timed, response);
+            if (request.isAsyncStarted()) {
+                // Streamed exports run for as long as the table takes; hold the slot, skip the sample.
+                async = true;
+                request.getAsyncContext().addListener(new ReleaseOnComplete(budget.limit, bytes));
+            }
+        } finally {
+            if (!async) {
+                boolean overloaded = response.getStatus() == HttpStatus.SERVICE_UNAVAILABLE.value();
+                long processingNanos = Math.max(0, System.nanoTime() - start - timed.bodyNanos());
+                budget.limit.release(bytes, processingNanos, overloaded);
+            }
+        }
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write(REJECTION_BODY);
+    }
+
+    private static final class Budget {
+        private final String name;
+        private final AdaptiveLimit limit;
+        private final Map<AdaptiveLimit.Decision, Counter> rejections = new EnumMap<>(AdaptiveLimit.Decision.class);
+
+        private Budget(String name, AdaptiveLimit limit, MeterRegistry registry) {
+            this.name = name;
+            this.limit = limit;
+            Gauge.builder("file.admission.limit", limit, AdaptiveLimit::getLimit)
+                    .description("Concurrent requests currently admitted by the adaptive limit")
+                    .tag("budget", name)
+                    .register(registry);
+            Gauge.builder("file.admission.inflight", limit, AdaptiveLimit::getInFlight)
+                    .description("Requests in flight")
+                    .tag("budget", name)
+                    .register(registry);
+            Gauge.builder("file.admission.inflight.bytes", limit, AdaptiveLimit::getInFlightBytes)
+                    .description("Declared request body bytes in flight")
+                    .tag("budget", name)
+                    .baseUnit("bytes")
+                    .register(registry);
+            rejections.put(AdaptiveLimit.Decision.OVER_LIMIT, rejections(registry, name, "limit"));
+            rejections.put(AdaptiveLimit.Decision.OVER_BYTES, rejections(registry, name, "bytes"));
+        }
+
+        private static Counter rejections(MeterRegistry registry, String budget, String reason) {
+            return Counter.builder("file.admission.rejected")
+                    .description("Requests shed by admission control")
+                    .tag("budget", budget)
+                    .tag("reason", reason)
+                    .register(registry);
+        }
+    }
+
+    private static final class ReleaseOnComplete implements AsyncListener {
+        private final AdaptiveLimit limit;
+        private final long bytes;
+
+        private ReleaseOnComplete(AdaptiveLimit limit, long bytes) {
+            this.limit = limit;
+            this.bytes = bytes;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            limit.releaseWithoutSample(bytes);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
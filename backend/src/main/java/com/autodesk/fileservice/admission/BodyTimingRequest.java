@@ -0,0 +1,147 @@
+package com.autodesk.fileservice.admission;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.Part;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Collection;
+
+/**
+ * Measures how long the application waits for the request body: reads from the input
+ * stream or reader, and the multipart parsing that reads the whole body on first access.
+ * That time depends on the client and the body size, not on how loaded the server is.
+ * Not thread-safe; a request body is read by one thread at a time.
+ */
+final class BodyTimingRequest extends HttpServletRequestWrapper {
+
+    private long bodyNanos;
+    private ServletInputStream input;
+    private BufferedReader reader;
+
+    BodyTimingRequest(HttpServletRequest request) {
+        super(request);
+    }
+
+    /** Time spent waiting for the body so far. */
+    long bodyNanos() {
+        return bodyNanos;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() throws IOException {
+        if (input == null) {
+            input = new TimedInputStream(super.getInputStream());
+        }
+        return input;
+    }
+
+    @Override
+    public BufferedReader getReader() throws IOException {
+        if (reader == null) {
+            reader = new BufferedReader(new TimedReader(super.getReader()));
+        }
+        return reader;
+    }
+
+    @Override
+    public Collection<Part> getParts() throws IOException, ServletException {
+        long start = System.nanoTime();
+        try {
+            return super.getParts();
+        } finally {
+            bodyNanos += System.nanoTime() - start;
+        }
+    }
+
+    @Override
+    public Part getPart(String name) throws IOException, ServletException {
+        long start = System.nanoTime();
+        try {
+            return super.getPart(name);
+        } finally {
+            bodyNanos += System.nanoTime() - start;
+        }
+    }
+
+    private final class TimedInputStream extends ServletInputStream {
+        private final ServletInputStream delegate;
+
+        private TimedInputStream(ServletInputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int read() throws IOException {
+            long start = System.nanoTime();
+            try {
+                return delegate.read();
+            } finally {
+                bodyNanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            long start = System.nanoTime();
+            try {
+                return delegate.read(b, off, len);
+            } finally {
+                bodyNanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public int available() throws IOException {
+            return delegate.available();
+        }
+
+        @Override
+        public boolean isFinished() {
+            return delegate.isFinished();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setReadListener(ReadListener listener) {
+            delegate.setReadListener(listener);
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+
+    private final class TimedReader extends Reader {
+        private final Reader delegate;
+
+        private TimedReader(Reader delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int read(char[] buffer, int off, int len) throws IOException {
+            long start = System.nanoTime();
+            try {
+                return delegate.read(buffer, off, len);
+            } finally {
+                bodyNanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+}
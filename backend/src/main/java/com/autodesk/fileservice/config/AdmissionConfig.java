@@ -0,0 +1,29 @@
+package com.autodesk.fileservice.config;
+
+import com.autodesk.fileservice.admission.AdmissionFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Puts {@link AdmissionFilter} in front of the file API. It runs after the observation
+ * filter, so shed requests still show up in {@code http.server.requests}, and before the
+ * dispatcher parses multipart bodies.
+ */
+@Configuration
+public class AdmissionConfig {
+
+    @Bean
+    public FilterRegistrationBean<AdmissionFilter> admissionFilter(FileProcessingProperties properties,
+                                                                   MeterRegistry meterRegistry) {
+        FileProcessingProperties.Admission admission = properties.getAdmission();
+        FilterRegistrationBean<AdmissionFilter> registration =
+                new FilterRegistrationBean<>(new AdmissionFilter(admission, meterRegistry));
+        registration.addUrlPatterns("/api/files/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        registration.setEnabled(admission.isEnabled());
+        return registration;
+    }
+}
@@ -0,0 +1,49 @@
+package com.autodesk.fileservice.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * Bounded Caffeine caches. Caches are registered up front so Actuator binds their
+ * hit, miss and eviction metrics ({@code cache.gets}, {@code cache.evictions}) at startup.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String CONTENT_HASHES = "contentHashes";
+    public static final String FILES = "files";
+    public static final String FILE_PAGES = "filePages";
+
+    @Bean
+    public CacheManager cacheManager(FileProcessingProperties properties) {
+        CaffeineCacheManager manager = new CaffeineCacheManager();
+        manager.setCacheNames(List.of());
+
+        FileProcessingProperties.Dedup dedup = properties.getDedup();
+        manager.registerCustomCache(CONTENT_HASHES, Caffeine.newBuilder()
+                .maximumSize(dedup.getCacheSize())
+                .expireAfterWrite(dedup.getCacheTtl())
+                .recordStats()
+                .build());
+
+        FileProcessingProperties.Cache cache = properties.getCache();
+        manager.registerCustomCache(FILES, Caffeine.newBuilder()
+                .maximumSize(cache.getRecordSize())
+                .expireAfterWrite(cache.getRecordTtl())
+                .recordStats()
+                .build());
+        manager.registerCustomCache(FILE_PAGES, Caffeine.newBuilder()
+                .maximumSize(cache.getPageSize())
+                .expireAfterWrite(cache.getPageTtl())
+                .recordStats()
+                .build());
+        return manager;
+    }
+}
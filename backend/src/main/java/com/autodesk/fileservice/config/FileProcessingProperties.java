@@ -0,0 +1,457 @@
+package com.autodesk.fileservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "file-processing")
+public class FileProcessingProperties {
+
+    /** Largest accepted upload; for compressed uploads see {@link Compression}. */
+    private DataSize maxFileSize = DataSize.ofMegabytes(5);
+
+    private final Parallel parallel = new Parallel();
+
+    private final Mapped mapped = new Mapped();
+
+    private final Async async = new Async();
+
+    private final Persistence persistence = new Persistence();
+
+    private final Dedup dedup = new Dedup();
+
+    private final Cache cache = new Cache();
+
+    private final Batch batch = new Batch();
+
+    private final Compression compression = new Compression();
+
+    private final Csv csv = new Csv();
+
+    private final Profile profile = new Profile();
+
+    private final Text text = new Text();
+
+    private final Resumable resumable = new Resumable();
+
+    private final Admission admission = new Admission();
+
+    public DataSize getMaxFileSize() { return maxFileSize; }
+    public void setMaxFileSize(DataSize maxFileSize) { this.maxFileSize = maxFileSize; }
+    public Parallel getParallel() { return parallel; }
+    public Mapped getMapped() { return mapped; }
+    public Async getAsync() { return async; }
+    public Persistence getPersistence() { return persistence; }
+    public Dedup getDedup() { return dedup; }
+    public Cache getCache() { return cache; }
+    public Batch getBatch() { return batch; }
+    public Compression getCompression() { return compression; }
+    public Csv getCsv() { return csv; }
+    public Profile getProfile() { return profile; }
+    public Text getText() { return text; }
+    public Resumable getResumable() { return resumable; }
+    public Admission getAdmission() { return admission; }
+
+    public static class Parallel {
+
+        private boolean enabled = true;
+
+        /**
+         * Uploads of at least this size are split into chunks and counted concurrently.
+         * Keep it below max-file-size, or no single upload reaches it.
+         */
+        private DataSize threshold = DataSize.ofMegabytes(4);
+
+        /** Target size of each chunk; chunks are extended to the next line boundary. */
+        private DataSize chunkSize = DataSize.ofMegabytes(1);
+
+        /** Worker threads of the counting pool; 0 uses the number of available processors. */
+        private int parallelism = 0;
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public DataSize getThreshold() { return threshold; }
+        public void setThreshold(DataSize threshold) { this.threshold = threshold; }
+        public DataSize getChunkSize() { return chunkSize; }
+        public void setChunkSize(DataSize chunkSize) { this.chunkSize = chunkSize; }
+        public int getParallelism() { return parallelism; }
+        public void setParallelism(int parallelism) { this.parallelism = parallelism; }
+    }
+
+    public static class Mapped {
+
+        private boolean enabled = true;
+
+        /**
+         * Uploads of at least this size are memory-mapped instead of streamed. Keep it in
+         * line with spring.servlet.multipart.file-size-threshold so that only uploads the
+         * container already spooled to disk take this path.
+         */
+        private DataSize threshold = DataSize.ofMegabytes(1);
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public DataSize getThreshold() { return threshold; }
+        public void setThreshold(DataSize threshold) { this.threshold = threshold; }
+    }
+
+    public static class Async {
+
+        /** Worker threads processing queued uploads. */
+        private int workers = 4;
+
+        /** Uploads waiting for a worker; further submissions are rejected with 503. */
+        private int queueCapacity = 100;
+
+        /** How long finished jobs stay available through the status endpoint. */
+        private Duration jobRetention = Duration.ofHours(1);
+
+        /** Value of the Retry-After header sent when the queue is full. */
+        private Duration retryAfter = Duration.ofSeconds(5);
+
+        public int getWorkers() { return workers; }
+        public void setWorkers(int workers) { this.workers = workers; }
+        public int getQueueCapacity() { return queueCapacity; }
+        public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+        public Duration getJobRetention() { return jobRetention; }
+        public void setJobRetention(Duration jobRetention) { this.jobRetention = jobRetention; }
+        public Duration getRetryAfter() { return retryAfter; }
+        public void setRetryAfter(Duration retryAfter) { this.retryAfter = retryAfter; }
+    }
+
+    public static class Persistence {
+
+        public enum Mode {
+            /** Every upload is inserted in its own transaction before the response is sent. */
+            SYNC,
+            /** Uploads are inserted in shared batches; each caller waits until its batch is committed. */
+            BATCHED,
+            /** Uploads are inserted in shared batches in the background; the response does not wait and carries no id. */
+            ASYNC,
+            /**
+             * Uploads are appended to the local result log and inserted from there in shared
+             * batches; the response waits up to {@code log.max-wait} for the insert and
+             * otherwise carries no id.
+             */
+            LOCAL_LOG
+        }
+
+        private Mode mode = Mode.BATCHED;
+
+        /** Rows per insert batch; should match spring.jpa.properties.hibernate.jdbc.batch_size. */
+        private int batchSize = 50;
+
+        /** How long a partial batch waits for more rows before it is flushed. */
+        private Duration maxDelay = Duration.ofMillis(10);
+
+        /** Rows that may wait for a flush before uploads are rejected with 503. */
+        private int queueCapacity = 10_000;
+
+        private final Log log = new Log();
+
+        public Mode getMode() { return mode; }
+        public void setMode(Mode mode) { this.mode = mode; }
+        public int getBatchSize() { return batchSize; }
+        public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+        public Duration getMaxDelay() { return maxDelay; }
+        public void setMaxDelay(Duration maxDelay) { this.maxDelay = maxDelay; }
+        public int getQueueCapacity() { return queueCapacity; }
+        public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+        public Log getLog() { return log; }
+
+        /** The local result log used in {@link Mode#LOCAL_LOG} mode. */
+        public static class Log {
+
+            /** Directory of the segment files; must be on a local disk and owned by one instance. */
+            private Path directory = Path.of("data", "result-log");
+
+            /** Size of each memory-mapped segment file; bounds the size of a single row. */
+            private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+            /** How long an upload waits for its row to reach the database before it is answered without an id. */
+            private Duration maxWait = Duration.ofMillis(500);
+
+            /** Rows already in the database that stay in the log to answer lookups by id and content hash. */
+            private int retainedRows = 10_000;
+
+            /** Pause before the next replay attempt after the database failed. */
+            private Duration retryDelay = Duration.ofSeconds(1);
+
+            public Path getDirectory() { return directory; }
+            public void setDirectory(Path directory) { this.directory = directory; }
+            public DataSize getSegmentSize() { return segmentSize; }
+            public void setSegmentSize(DataSize segmentSize) { this.segmentSize = segmentSize; }
+            public Duration getMaxWait() { return maxWait; }
+            public void setMaxWait(Duration maxWait) { this.maxWait = maxWait; }
+            public int getRetainedRows() { return retainedRows; }
+            public void setRetainedRows(int retainedRows) { this.retainedRows = retainedRows; }
+            public Duration getRetryDelay() { return retryDelay; }
+            public void setRetryDelay(Duration retryDelay) { this.retryDelay = retryDelay; }
+        }
+    }
+
+    public static class Dedup {
+
+        /** Skip counting (and inserting, for the same file name) when identical content was uploaded before. */
+        private boolean enabled = true;
+
+        /** Content hashes kept in the in-memory cache in front of the database lookup. */
+        private long cacheSize = 10_000;
+
+        private Duration cacheTtl = Duration.ofMinutes(30);
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public long getCacheSize() { return cacheSize; }
+        public void setCacheSize(long cacheSize) { this.cacheSize = cacheSize; }
+        public Duration getCacheTtl() { return cacheTtl; }
+        public void setCacheTtl(Duration cacheTtl) { this.cacheTtl = cacheTtl; }
+    }
+
+    public static class Cache {
+
+        /** Metadata records cached by id; rows never change once written. */
+        private long recordSize = 10_000;
+
+        private Duration recordTtl = Duration.ofMinutes(10);
+
+        /** List pages cached by page number and size. */
+        private long pageSize = 1_000;
+
+        /**
+         * Local writes evict all pages immediately; the TTL bounds how long pages stay stale
+         * after a write on another instance.
+         */
+        private Duration pageTtl = Duration.ofSeconds(5);
+
+        public long getRecordSize() { return recordSize; }
+        public void setRecordSize(long recordSize) { this.recordSize = recordSize; }
+        public Duration getRecordTtl() { return recordTtl; }
+        public void setRecordTtl(Duration recordTtl) { this.recordTtl = recordTtl; }
+        public long getPageSize() { return pageSize; }
+        public void setPageSize(long pageSize) { this.pageSize = pageSize; }
+        public Duration getPageTtl() { return pageTtl; }
+        public void setPageTtl(Duration pageTtl) { this.pageTtl = pageTtl; }
+    }
+
+    public static class Batch {
+
+        /** Threads counting the files of batch uploads; 0 uses the number of available processors. */
+        private int workers = 0;
+
+        /** Files counted or waiting per worker before the submitting request thread counts files itself. */
+        private int queueCapacity = 1_000;
+
+        /** Most files, including archive entries, accepted in one batch request. */
+        private int maxEntries = 10_000;
+
+        public int getWorkers() { return workers; }
+        public void setWorkers(int workers) { this.workers = workers; }
+        public int getQueueCapacity() { return queueCapacity; }
+        public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+        public int getMaxEntries() { return maxEntries; }
+        public void setMaxEntries(int maxEntries) { this.maxEntries = maxEntries; }
+    }
+
+    public static class Compression {
+
+        /** Accept gzip-compressed .txt.gz and .csv.gz uploads. */
+        private boolean enabled = true;
+
+        /** Largest accepted compressed upload, checked against the bytes received. */
+        private DataSize maxCompressedSize = DataSize.ofMegabytes(5);
+
+        /**
+         * Most content a compressed upload may inflate to. Decompression stops as soon as
+         * this is exceeded, which bounds the work a highly compressed upload can cause.
+         */
+        private DataSize maxDecompressedSize = DataSize.ofMegabytes(100);
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public DataSize getMaxCompressedSize() { return maxCompressedSize; }
+        public void setMaxCompressedSize(DataSize maxCompressedSize) { this.maxCompressedSize = maxCompressedSize; }
+        public DataSize getMaxDecompressedSize() { return maxDecompressedSize; }
+        public void setMaxDecompressedSize(DataSize maxDecompressedSize) { this.maxDecompressedSize = maxDecompressedSize; }
+    }
+
+    public static class Csv {
+
+        /** Collect per-column statistics for .csv uploads. */
+        private boolean enabled = true;
+
+        /** Treat the first record as column names. */
+        private boolean header = true;
+
+        /** Columns beyond this are counted but not described; bounds memory per upload. */
+        private int maxColumns = 128;
+
+        /** HyperLogLog precision of the distinct counts: 2^p bytes per column, about 1.04/sqrt(2^p) error. */
+        private int distinctPrecision = 12;
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public boolean isHeader() { return header; }
+        public void setHeader(boolean header) { this.header = header; }
+        public int getMaxColumns() { return maxColumns; }
+        public void setMaxColumns(int maxColumns) { this.maxColumns = maxColumns; }
+        public int getDistinctPrecision() { return distinctPrecision; }
+        public void setDistinctPrecision(int distinctPrecision) { this.distinctPrecision = distinctPrecision; }
+    }
+
+    public static class Profile {
+
+        /**
+         * Collect byte and character counts, longest line, distinct words and top words. Off
+         * by default: updating the word sketches roughly doubles the cost of counting.
+         */
+        private boolean enabled = false;
+
+        /** Most frequent words stored per file. */
+        private int topWords = 10;
+
+        /**
+         * Words tracked while counting, at most 64 bytes of label each. Tracking more words
+         * than are stored keeps the stored counts close to exact for skewed text.
+         */
+        private int trackedWords = 100;
+
+        /** HyperLogLog precision of the distinct word count: 2^p bytes, about 1.04/sqrt(2^p) error. */
+        private int distinctPrecision = 14;
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public int getTopWords() { return topWords; }
+        public void setTopWords(int topWords) { this.topWords = topWords; }
+        public int getTrackedWords() { return trackedWords; }
+        public void setTrackedWords(int trackedWords) { this.trackedWords = trackedWords; }
+        public int getDistinctPrecision() { return distinctPrecision; }
+        public void setDistinctPrecision(int distinctPrecision) { this.distinctPrecision = distinctPrecision; }
+    }
+
+    public static class Text {
+
+        public enum MalformedInput {
+            /** Count malformed bytes as U+FFFD, as a decoder would by default. */
+            REPLACE,
+            /** Reject the upload with 400 Bad Request. */
+            REJECT
+        }
+
+        public enum WordSeparators {
+            /** Split words on ASCII whitespace only, like {@code line.trim().split("\\s+")}. */
+            ASCII,
+            /** Split words on every Unicode White_Space character, such as NBSP and U+3000. */
+            UNICODE
+        }
+
+        /**
+         * Encoding of uploads without a byte order mark. UTF-8 is counted in place; other
+         * encodings are transcoded while counting and are not split for parallel counting
+         * unless they use one byte per character. A UTF-8 or UTF-16 byte order mark always wins.
+         */
+        private Charset charset = StandardCharsets.UTF_8;
+
+        private MalformedInput malformedInput = MalformedInput.REPLACE;
+
+        private WordSeparators wordSeparators = WordSeparators.ASCII;
+
+        public Charset getCharset() { return charset; }
+        public void setCharset(Charset charset) { this.charset = charset; }
+        public MalformedInput getMalformedInput() { return malformedInput; }
+        public void setMalformedInput(MalformedInput malformedInput) { this.malformedInput = malformedInput; }
+        public WordSeparators getWordSeparators() { return wordSeparators; }
+        public void setWordSeparators(WordSeparators wordSeparators) { this.wordSeparators = wordSeparators; }
+    }
+
+    public static class Resumable {
+
+        /**
+         * Largest file accepted through a resumable upload. Chunks are counted as they
+         * arrive and never buffered, so this does not affect memory per request.
+         */
+        private DataSize maxFileSize = DataSize.ofGigabytes(2);
+
+        /** Sessions that receive no chunk for this long are dropped. */
+        private Duration sessionTimeout = Duration.ofHours(1);
+
+        /** Open sessions; each holds the counting state of one file. */
+        private int maxSessions = 1_000;
+
+        public DataSize getMaxFileSize() { return maxFileSize; }
+        public void setMaxFileSize(DataSize maxFileSize) { this.maxFileSize = maxFileSize; }
+        public Duration getSessionTimeout() { return sessionTimeout; }
+        public void setSessionTimeout(Duration sessionTimeout) { this.sessionTimeout = sessionTimeout; }
+        public int getMaxSessions() { return maxSessions; }
+        public void setMaxSessions(int maxSessions) { this.maxSessions = maxSessions; }
+    }
+
+    public static class Admission {
+
+        /** Shed requests to /api/files/** once a budget is used up, instead of queueing them. */
+        private boolean enabled = true;
+
+        /** Value of the Retry-After header sent with rejections. */
+        private Duration retryAfter = Duration.ofSeconds(1);
+
+        /** GET and HEAD requests. */
+        private final Budget read = new Budget(100, 10, 1000, Duration.ofMillis(500));
+
+        /** Uploads and every other method. */
+        private final Budget write = new Budget(20, 2, 200, Duration.ofSeconds(2));
+
+        public Admission() {
+            write.setMaxInFlightBytes(DataSize.ofMegabytes(256));
+        }
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public Duration getRetryAfter() { return retryAfter; }
+        public void setRetryAfter(Duration retryAfter) { this.retryAfter = retryAfter; }
+        public Budget getRead() { return read; }
+        public Budget getWrite() { return write; }
+
+        public static class Budget {
+
+            /** Concurrent requests admitted at startup, before any latency has been observed. */
+            private int initialLimit;
+
+            private int minLimit;
+
+            private int maxLimit;
+
+            /** Requests slower than this shrink the limit; faster ones let it grow. */
+            private Duration latencyThreshold;
+
+            /** Factor applied to the limit on each slow or overloaded request. */
+            private double backoffRatio = 0.9;
+
+            /** Declared request bodies in flight at once; 0 disables the byte budget. */
+            private DataSize maxInFlightBytes = DataSize.ofBytes(0);
+
+            public Budget(int initialLimit, int minLimit, int maxLimit, Duration latencyThreshold) {
+                this.initialLimit = initialLimit;
+                this.minLimit = minLimit;
+                this.maxLimit = maxLimit;
+                this.latencyThreshold = latencyThreshold;
+            }
+
+            public int getInitialLimit() { return initialLimit; }
+            public void setInitialLimit(int initialLimit) { this.initialLimit = initialLimit; }
+            public int getMinLimit() { return minLimit; }
+            public void setMinLimit(int minLimit) { this.minLimit = minLimit; }
+            public int getMaxLimit() { return maxLimit; }
+            public void setMaxLimit(int maxLimit) { this.maxLimit = maxLimit; }
+            public Duration getLatencyThreshold() { return latencyThreshold; }
+            public void setLatencyThreshold(Duration latencyThreshold) { this.latencyThreshold = latencyThreshold; }
+            public double getBackoffRatio() { return backoffRatio; }
+            public void setBackoffRatio(double backoffRatio) { this.backoffRatio = backoffRatio; }
+            public DataSize getMaxInFlightBytes() { return maxInFlightBytes; }
+            public void setMaxInFlightBytes(DataSize maxInFlightBytes) { this.maxInFlightBytes = maxInFlightBytes; }
+        }
+    }
+}
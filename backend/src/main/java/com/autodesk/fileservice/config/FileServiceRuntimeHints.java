@@ -0,0 +1,33 @@
+package com.autodesk.fileservice.config;
+
+import com.autodesk.fileservice.model.CsvColumnStats;
+import com.autodesk.fileservice.model.CsvStats;
+import com.autodesk.fileservice.model.FileMetadata;
+import com.autodesk.fileservice.model.TextProfile;
+import com.autodesk.fileservice.model.WordCount;
+import io.swagger.v3.oas.models.OpenAPI;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+/**
+ * Reflection the AOT engine cannot infer from bean definitions, for native images.
+ * Entities and controller return types are covered by Spring's own processing; the
+ * jsonb column values are (de)serialized by Hibernate through Jackson, the dialect is
+ * loaded by name from {@code application.yml}, and the OpenAPI model is built in
+ * {@link OpenApiConfig} and serialized by springdoc.
+ */
+public class FileServiceRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        BindingReflectionHintsRegistrar bindings = new BindingReflectionHintsRegistrar();
+        bindings.registerReflectionHints(hints.reflection(), FileMetadata.class,
+                CsvStats.class, CsvColumnStats.class, TextProfile.class, WordCount.class, OpenAPI.class);
+
+        hints.reflection().registerType(PostgreSQLDialect.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        hints.resources().registerPattern("schema.sql");
+    }
+}
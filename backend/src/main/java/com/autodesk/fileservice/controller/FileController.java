@@ -1,7 +1,19 @@
 package com.autodesk.fileservice.controller;
 
+import com.autodesk.fileservice.exception.UploadConflictException;
+import com.autodesk.fileservice.model.BatchUploadResult;
+import com.autodesk.fileservice.model.FileCursorPage;
 import com.autodesk.fileservice.model.FileMetadata;
+import com.autodesk.fileservice.model.FileSearchCriteria;
+import com.autodesk.fileservice.model.FileStatsSummary;
+import com.autodesk.fileservice.model.ProcessingJob;
+import com.autodesk.fileservice.model.UploadSession;
+import com.autodesk.fileservice.service.AsyncProcessingService;
+import com.autodesk.fileservice.service.BatchUploadService;
 import com.autodesk.fileservice.service.FileProcessingService;
+import com.autodesk.fileservice.service.FileStatsService;
+import com.autodesk.fileservice.service.MetadataExportService;
+import com.autodesk.fileservice.service.UploadSessionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -10,11 +22,19 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
+import java.net.URI;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -24,9 +44,21 @@ import java.util.Optional;
 public class FileController {
     private static final Logger log = LoggerFactory.getLogger(FileController.class);
     private final FileProcessingService service;
+    private final AsyncProcessingService asyncService;
+    private final MetadataExportService exportService;
+    private final BatchUploadService batchService;
+    private final UploadSessionService sessionService;
+    private final FileStatsService statsService;
 
-    public FileController(FileProcessingService service) {
+    public FileController(FileProcessingService service, AsyncProcessingService asyncService,
+                          MetadataExportService exportService, BatchUploadService batchService,
+                          UploadSessionService sessionService, FileStatsService statsService) {
         this.service = service;
+        this.asyncService = asyncService;
+        this.exportService = exportService;
+        this.batchService = batchService;
+        this.sessionService = sessionService;
+        this.statsService = statsService;
     }
 
     @Operation(
@@ -52,6 +84,220 @@ public class FileController {
         return ResponseEntity.ok(meta);
     }
 
+    @Operation(
+        summary = "Upload a file for background processing",
+        description = "Validates and queues a .txt or .csv file, returning a job id immediately; poll the job endpoint for the result",
+        requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
+            description = "File to upload (.txt or .csv)",
+            required = true,
+            content = @Content(mediaType = "multipart/form-data")
+        ),
+        responses = {
+            @ApiResponse(responseCode = "202", description = "File accepted for processing"),
+            @ApiResponse(responseCode = "413", description = "File exceeds the size limit"),
+            @ApiResponse(responseCode = "415", description = "Invalid file type"),
+            @ApiResponse(responseCode = "503", description = "Processing queue is full, retry after the Retry-After delay")
+        }
+    )
+    @PostMapping(value = "/upload/async", consumes = {"multipart/form-data"})
+    public ResponseEntity<?> uploadAsync(@RequestParam("file") MultipartFile file) {
+        if (file == null || file.isEmpty()) {
+            return ResponseEntity.badRequest().body(java.util.Map.of("error", "No file uploaded"));
+        }
+
+        ProcessingJob job = asyncService.submit(file);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/files/jobs/" + job.getId()))
+                .body(job);
+    }
+
+    @Operation(
+        summary = "Upload many files at once",
+        description = "Accepts several .txt or .csv files and/or .zip archives of them. Files are counted concurrently and stored together; the response reports the result or error of every file.",
+        requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
+            description = "Files to upload (.txt, .csv or .zip)",
+            required = true,
+            content = @Content(mediaType = "multipart/form-data")
+        ),
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Batch processed; check each file's error",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = BatchUploadResult.class)
+                )
+            ),
+            @ApiResponse(responseCode = "400", description = "No files uploaded"),
+            @ApiResponse(responseCode = "413", description = "Too many files in the batch")
+        }
+    )
+    @PostMapping(value = "/upload/batch", consumes = {"multipart/form-data"})
+    public ResponseEntity<?> uploadBatch(@RequestParam(name = "files", required = false) List<MultipartFile> files) {
+        if (files == null || files.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "No file uploaded"));
+        }
+
+        return ResponseEntity.ok(batchService.process(files));
+    }
+
+    @Operation(
+        summary = "Get the status of a background processing job",
+        description = "Returns the job status and, once completed, the resulting file metadata.",
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Job found",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ProcessingJob.class)
+                )
+            ),
+            @ApiResponse(
+                responseCode = "404",
+                description = "Unknown or expired job",
+                content = @Content(mediaType = "application/json")
+            )
+        }
+    )
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<?> getJob(
+            @Parameter(description = "Job id returned by the async upload", example = "3f2c1f0e-8a4b-4c47-9a43-2b1f5f0f6d10")
+            @PathVariable("id") String id) {
+
+        Optional<ProcessingJob> jobOpt = asyncService.findJob(id);
+
+        if (jobOpt.isPresent()) {
+            return ResponseEntity.ok(jobOpt.get());
+        } else {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", "Job not found"));
+        }
+    }
+
+    @Operation(
+        summary = "Upload a file as a raw request body",
+        description = "Streams a .txt or .csv request body (or a gzip-compressed .txt.gz or .csv.gz one, decoded on the fly) straight into the line and word counter without buffering the whole file, then stores the result",
+        requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
+            description = "Raw file content",
+            required = true,
+            content = @Content(mediaType = "application/octet-stream")
+        ),
+        responses = {
+            @ApiResponse(responseCode = "200", description = "File processed successfully"),
+            @ApiResponse(responseCode = "400", description = "Compressed body is not valid gzip"),
+            @ApiResponse(responseCode = "413", description = "File exceeds the compressed or decompressed size limit"),
+            @ApiResponse(responseCode = "415", description = "Invalid file type")
+        }
+    )
+    @PostMapping(value = "/stream", consumes = {"application/octet-stream", "text/plain", "text/csv", "application/gzip"})
+    public ResponseEntity<?> stream(
+            @Parameter(description = "Name of the uploaded file, used for type validation; a .gz suffix marks gzip content", example = "data.csv")
+            @RequestParam("fileName") String fileName,
+            @RequestHeader(value = HttpHeaders.CONTENT_LENGTH, required = false) Long contentLength,
+            InputStream body) {
+        long declaredSize = contentLength != null ? contentLength : -1L;
+        FileMetadata meta = service.processAndSave(fileName, body, declaredSize);
+        return ResponseEntity.ok(meta);
+    }
+
+    @Operation(
+        summary = "Start a resumable upload",
+        description = "Opens an upload session for a .txt or .csv file of the given length. Send the content in chunks to the returned session, then complete it.",
+        responses = {
+            @ApiResponse(
+                responseCode = "201",
+                description = "Session created",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = UploadSession.class)
+                )
+            ),
+            @ApiResponse(responseCode = "413", description = "File exceeds the resumable upload size limit"),
+            @ApiResponse(responseCode = "415", description = "Invalid file type"),
+            @ApiResponse(responseCode = "503", description = "Too many open sessions, retry after the Retry-After delay")
+        }
+    )
+    @PostMapping("/uploads")
+    public ResponseEntity<UploadSession> createUploadSession(
+            @Parameter(description = "Name of the file, used for type validation", example = "data.csv")
+            @RequestParam("fileName") String fileName,
+            @Parameter(description = "Total size of the file in bytes", example = "1073741824")
+            @RequestParam("length") long length) {
+        UploadSession session = sessionService.create(fileName, length);
+        return ResponseEntity.created(URI.create("/api/files/uploads/" + session.id())).body(session);
+    }
+
+    @Operation(
+        summary = "Get the state of a resumable upload",
+        description = "Returns the number of bytes received so far, which is where the next chunk must start.",
+        responses = {
+            @ApiResponse(responseCode = "200", description = "Session found"),
+            @ApiResponse(responseCode = "404", description = "Unknown, completed or expired session")
+        }
+    )
+    @GetMapping("/uploads/{id}")
+    public ResponseEntity<UploadSession> getUploadSession(@PathVariable("id") String id) {
+        UploadSession session = sessionService.find(id);
+        return ResponseEntity.ok()
+                .header(UploadConflictException.OFFSET_HEADER, String.valueOf(session.offset()))
+                .body(session);
+    }
+
+    @Operation(
+        summary = "Send a chunk of a resumable upload",
+        description = "Appends the request body to the upload. The chunk must start at the session's current offset; bytes received before a dropped connection are kept, so resume from the offset reported by the session.",
+        requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
+            description = "Raw chunk content",
+            required = true,
+            content = @Content(mediaType = "application/octet-stream")
+        ),
+        responses = {
+            @ApiResponse(responseCode = "200", description = "Chunk received; the response holds the new offset"),
+            @ApiResponse(responseCode = "404", description = "Unknown, completed or expired session"),
+            @ApiResponse(responseCode = "409", description = "Chunk does not start at the current offset, or another chunk is in progress; the Upload-Offset header holds the current offset"),
+            @ApiResponse(responseCode = "413", description = "Chunk extends past the declared length")
+        }
+    )
+    @PutMapping(value = "/uploads/{id}", consumes = {"application/octet-stream", "text/plain", "text/csv"})
+    public ResponseEntity<UploadSession> uploadChunk(
+            @PathVariable("id") String id,
+            @Parameter(description = "Byte offset at which this chunk starts", example = "0")
+            @RequestHeader(UploadConflictException.OFFSET_HEADER) long offset,
+            InputStream body) {
+        UploadSession session = sessionService.append(id, offset, body);
+        return ResponseEntity.ok()
+                .header(UploadConflictException.OFFSET_HEADER, String.valueOf(session.offset()))
+                .body(session);
+    }
+
+    @Operation(
+        summary = "Complete a resumable upload",
+        description = "Stores the line and word counts of a session that has received all of its bytes. The content was counted while it arrived, so this does not read the file again.",
+        responses = {
+            @ApiResponse(responseCode = "200", description = "File processed successfully"),
+            @ApiResponse(responseCode = "404", description = "Unknown, completed or expired session"),
+            @ApiResponse(responseCode = "409", description = "Upload is incomplete; the Upload-Offset header holds the current offset")
+        }
+    )
+    @PostMapping("/uploads/{id}/complete")
+    public ResponseEntity<FileMetadata> completeUpload(@PathVariable("id") String id) {
+        return ResponseEntity.ok(sessionService.complete(id));
+    }
+
+    @Operation(
+        summary = "Cancel a resumable upload",
+        responses = {
+            @ApiResponse(responseCode = "204", description = "Session cancelled"),
+            @ApiResponse(responseCode = "404", description = "Unknown, completed or expired session")
+        }
+    )
+    @DeleteMapping("/uploads/{id}")
+    public ResponseEntity<Void> cancelUpload(@PathVariable("id") String id) {
+        sessionService.cancel(id);
+        return ResponseEntity.noContent().build();
+    }
+
     @Operation(
         summary = "List all uploaded files",
         description = "Retrieves metadata for all uploaded files, including filename, line count, word count, and upload timestamp.",
@@ -79,6 +325,128 @@ public class FileController {
         return ResponseEntity.ok(files);
     }
 
+    @Operation(
+        summary = "List uploaded files by cursor",
+        description = "Returns files newest first without a total count. Pass the returned nextCursor to fetch the following page; it is null on the last page.",
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Successfully retrieved a page of uploaded files",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = FileCursorPage.class)
+                )
+            ),
+            @ApiResponse(
+                responseCode = "400",
+                description = "Invalid cursor or page size",
+                content = @Content(mediaType = "application/json")
+            )
+        }
+    )
+    @GetMapping("/list/cursor")
+    public ResponseEntity<FileCursorPage> getFilesByCursor(
+            @Parameter(description = "nextCursor from the previous page; omit for the first page")
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "5") int size) {
+        return ResponseEntity.ok(service.listAfter(cursor, size));
+    }
+
+    @Operation(
+        summary = "Search uploaded files",
+        description = "Returns files whose name starts with the given prefix and/or that were uploaded within a time range, newest first. Pages work as in the cursor listing; a cursor is only valid with the filters that produced it.",
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Successfully retrieved a page of matching files",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = FileCursorPage.class)
+                )
+            ),
+            @ApiResponse(
+                responseCode = "400",
+                description = "Invalid time range, cursor or page size",
+                content = @Content(mediaType = "application/json")
+            )
+        }
+    )
+    @GetMapping("/search")
+    public ResponseEntity<FileCursorPage> search(
+            @Parameter(description = "Case-sensitive file name prefix", example = "report")
+            @RequestParam(name = "prefix", required = false) String prefix,
+            @Parameter(description = "Earliest upload time, inclusive", example = "2024-01-01T00:00:00")
+            @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Latest upload time, exclusive", example = "2024-02-01T00:00:00")
+            @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(description = "nextCursor from the previous page; omit for the first page")
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "5") int size) {
+        return ResponseEntity.ok(service.search(new FileSearchCriteria(prefix, from, to), cursor, size));
+    }
+
+    @Operation(
+        summary = "Get upload totals per day",
+        description = "Returns the number of files, lines and words uploaded on each day of a range (server time zone), and their sums. Defaults to the last 30 days; ranges are limited to 366 days.",
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Successfully retrieved the totals",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = FileStatsSummary.class)
+                )
+            ),
+            @ApiResponse(
+                responseCode = "400",
+                description = "Invalid date range",
+                content = @Content(mediaType = "application/json")
+            )
+        }
+    )
+    @GetMapping("/stats")
+    public ResponseEntity<FileStatsSummary> stats(
+            @Parameter(description = "First day, inclusive", example = "2024-01-01")
+            @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last day, inclusive; defaults to today", example = "2024-01-31")
+            @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(statsService.summarize(from, to));
+    }
+
+    @Operation(
+        summary = "Export all file metadata",
+        description = "Streams every stored record, ordered by id, as newline-delimited JSON or CSV. Rows are written while they are read, so exports of any size use constant memory.",
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Export stream",
+                content = {
+                    @Content(mediaType = "application/x-ndjson"),
+                    @Content(mediaType = "text/csv")
+                }
+            ),
+            @ApiResponse(
+                responseCode = "400",
+                description = "Unsupported export format",
+                content = @Content(mediaType = "application/json")
+            )
+        }
+    )
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @Parameter(description = "Export format: ndjson or csv", example = "ndjson")
+            @RequestParam(name = "format", defaultValue = "ndjson") String format) {
+        MetadataExportService.Format exportFormat = MetadataExportService.Format.parse(format);
+        StreamingResponseBody body = out -> exportService.export(exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("file-metadata." + exportFormat.getExtension())
+                        .build()
+                        .toString())
+                .body(body);
+    }
+
     @Operation(
         summary = "Get file metadata by ID",
         description = "Retrieves metadata details for a specific uploaded file using its unique ID.",
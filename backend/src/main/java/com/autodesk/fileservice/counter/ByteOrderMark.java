@@ -0,0 +1,68 @@
+package com.autodesk.fileservice.counter;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The byte order marks that identify the encoding of an upload. UTF-32 marks are not
+ * recognized; {@code FF FE 00 00} reads as UTF-16LE.
+ */
+public enum ByteOrderMark {
+
+    UTF_8(StandardCharsets.UTF_8, 0xEF, 0xBB, 0xBF),
+    UTF_16BE(StandardCharsets.UTF_16BE, 0xFE, 0xFF),
+    UTF_16LE(StandardCharsets.UTF_16LE, 0xFF, 0xFE);
+
+    /** Bytes needed to tell any two marks apart. */
+    public static final int MAX_LENGTH = 3;
+
+    private final Charset charset;
+    private final byte[] bytes;
+
+    ByteOrderMark(Charset charset, int... bytes) {
+        this.charset = charset;
+        this.bytes = new byte[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            this.bytes[i] = (byte) bytes[i];
+        }
+    }
+
+    public Charset charset() {
+        return charset;
+    }
+
+    public int length() {
+        return bytes.length;
+    }
+
+    /**
+     * Returns the mark {@code head} starts with, or {@code null}. A head shorter than
+     * {@link #MAX_LENGTH} is only matched if it holds the whole content.
+     */
+    public static ByteOrderMark detect(byte[] head, int length) {
+        for (ByteOrderMark mark : values()) {
+            if (mark.matches(head, length)) {
+                return mark;
+            }
+        }
+        return null;
+    }
+
+    /** The charset of content starting with {@code head}, or {@code fallback} without a mark. */
+    public static Charset charsetOf(byte[] head, int length, Charset fallback) {
+        ByteOrderMark mark = detect(head, length);
+        return mark != null ? mark.charset : fallback;
+    }
+
+    private boolean matches(byte[] head, int length) {
+        if (length < bytes.length) {
+            return false;
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            if (head[i] != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,621 @@
+package com.autodesk.fileservice.counter;
+
+import com.autodesk.fileservice.config.FileProcessingProperties;
+import com.autodesk.fileservice.config.FileProcessingProperties.Text.WordSeparators;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Counts lines and words directly on UTF-8 bytes in a single pass, without decoding
+ * into {@code String}s.
+ * <p>
+ * In both modes {@code \n}, {@code \r} and {@code \r\n} terminate a line, and a trailing
+ * line without a terminator is counted too. With {@link WordSeparators#ASCII ASCII} word
+ * separators the results are identical to reading the content with
+ * {@code BufferedReader.readLine()} and counting {@code line.trim().split("\\s+")} for every
+ * non-blank line:
+ * <ul>
+ *   <li>A line made only of {@link Character#isWhitespace(int)} characters has no words.</li>
+ *   <li>Words are separated by ASCII whitespace only; leading and trailing characters up to
+ *       {@code U+0020} are trimmed first, and a non-blank line that trims to nothing still
+ *       counts as one word.</li>
+ * </ul>
+ * With {@link WordSeparators#UNICODE UNICODE} separators a word is a run of characters
+ * matched by {@code (?U)\\S+}, i.e. anything but the Unicode White_Space characters, which
+ * include NBSP ({@code U+00A0}), {@code U+0085}, {@code U+1680}, {@code U+2000}-{@code U+200A},
+ * {@code U+2028}, {@code U+2029}, {@code U+202F}, {@code U+205F} and {@code U+3000}.
+ * <p>
+ * Malformed UTF-8 counts like the {@code U+FFFD} a decoder would replace it with.
+ * Runs of printable ASCII are consumed eight bytes at a time: one {@code long} read,
+ * a few arithmetic operations that find the spaces in it (SWAR) and a bit count of
+ * the word starts, with no per-byte branches. Everything else takes the per-byte path;
+ * after a block that could not be consumed the next attempt is deferred, further each
+ * time it fails again, so text with few ASCII runs costs little more than before.
+ */
+@Component
+public class ByteScanningTextStatsCounter implements TextStatsCounter {
+
+    private static final byte LF = 0;
+    private static final byte CR = 1;
+    /** ASCII whitespace matched by {@code \s}: tab, vertical tab, form feed and space. */
+    private static final byte SEPARATOR = 2;
+    /** Control characters that {@code Character.isWhitespace} accepts (0x1C-0x1F). */
+    private static final byte BLANK_CONTROL = 3;
+    /** Other control characters: trimmed at line edges but not whitespace. */
+    private static final byte CONTROL = 4;
+    private static final byte VISIBLE = 5;
+    /** Bytes of multi-byte UTF-8 sequences. */
+    private static final byte HIGH = 6;
+
+    private static final byte[] CLASSES = new byte[256];
+
+    /**
+     * Bytes that continue a word with Unicode separators: everything but ASCII whitespace and
+     * the lead bytes of the multi-byte White_Space characters (C2, E1, E2 and E3).
+     */
+    private static final boolean[] UNICODE_WORD = new boolean[256];
+
+    private static final VarHandle ARRAY_LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle BUFFER_LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final long FIRST_BYTE = 0x80L;
+    private static final long LAST_BYTE = 0x80L << 56;
+    private static final int MIN_RETRY_DISTANCE = 16;
+    private static final int MAX_RETRY_DISTANCE = 4096;
+
+    static {
+        for (int b = 0; b < 256; b++) {
+            byte type;
+            if (b == '\n') type = LF;
+            else if (b == '\r') type = CR;
+            else if (b == '\t' || b == 0x0B || b == '\f' || b == ' ') type = SEPARATOR;
+            else if (b >= 0x1C && b <= 0x1F) type = BLANK_CONTROL;
+            else if (b < 0x20) type = CONTROL;
+            else if (b < 0x80) type = VISIBLE;
+            else type = HIGH;
+            CLASSES[b] = type;
+            UNICODE_WORD[b] = type >= VISIBLE || type == CONTROL || type == BLANK_CONTROL;
+        }
+        for (int lead : new int[]{0xC2, 0xE1, 0xE2, 0xE3}) {
+            UNICODE_WORD[lead] = false;
+        }
+    }
+
+    private final WordSeparators wordSeparators;
+
+    /** Counts with {@link WordSeparators#ASCII ASCII} word separators. */
+    public ByteScanningTextStatsCounter() {
+        this(WordSeparators.ASCII);
+    }
+
+    @Autowired
+    public ByteScanningTextStatsCounter(FileProcessingProperties properties) {
+        this(properties.getText().getWordSeparators());
+    }
+
+    public ByteScanningTextStatsCounter(WordSeparators wordSeparators) {
+        this.wordSeparators = wordSeparators;
+    }
+
+    @Override
+    public TextStatsAccumulator newAccumulator() {
+        return wordSeparators == WordSeparators.UNICODE ? new UnicodeAccumulator() : new Accumulator();
+    }
+
+    /**
+     * The top bit of every byte of {@code block} in {@code 0x20}-{@code 0x7F}, i.e. spaces
+     * and visible ASCII. Subtracting {@code 0x20} from bytes whose top bit is forced on
+     * cannot borrow across bytes, and leaves the top bit set exactly where the byte was at
+     * least {@code 0x20}.
+     */
+    private static long printable(long block) {
+        return ((block | HIGH_BITS) - 0x2020202020202020L) & ~block & HIGH_BITS;
+    }
+
+    /** The top bit of every byte of {@code block} that equals {@code b}. */
+    private static long bytesEqual(long block, int b) {
+        long diff = block ^ (ONES * b);
+        return ~(((diff & ~HIGH_BITS) + ~HIGH_BITS) | diff) & HIGH_BITS;
+    }
+
+    /** The top bit of every space among the {@code printable} bytes of {@code block}. */
+    private static long spaces(long block, long printable) {
+        return ~((block | HIGH_BITS) - 0x2121212121212121L) & printable;
+    }
+
+    /**
+     * True if no byte of {@code block} is below {@code 0x21}: within a word such bytes,
+     * multi-byte characters included, cannot change the counts with ASCII separators.
+     */
+    private static boolean isAboveSpace(long block) {
+        return ((block - 0x2121212121212121L) & ~block & HIGH_BITS) == 0;
+    }
+
+    /** True if all bytes of {@code block} are visible ASCII, {@code 0x21}-{@code 0x7F}. */
+    private static boolean isVisibleAscii(long block) {
+        return (((block | HIGH_BITS) - 0x2121212121212121L) & ~block & HIGH_BITS) == HIGH_BITS;
+    }
+
+    static final class Accumulator implements TextStatsAccumulator {
+        private long lines;
+        private long words;
+
+        private boolean afterCr;
+        private boolean lineStarted;
+        /** The line holds a character that is not {@link Character#isWhitespace(int)}. */
+        private boolean nonBlank;
+        /** The line holds a character above {@code U+0020}, so it survives {@code trim()}. */
+        private boolean visible;
+        private boolean pendingSeparator;
+        /** Words started after the first visible character but not yet followed by one. */
+        private long pendingWords;
+        /** Words after the first one on the current line. */
+        private long committedWords;
+
+        /** Continuation bytes still expected for a possible Unicode whitespace character. */
+        private int pendingContinuations;
+        private int pendingCodePoint;
+
+        @Override
+        public void update(byte[] bytes, int offset, int length) {
+            int end = offset + length;
+            int i = offset;
+            int retryAt = i;
+            int backoff = MIN_RETRY_DISTANCE;
+            while (i < end) {
+                if (i >= retryAt && i <= end - Long.BYTES) {
+                    long block = (long) ARRAY_LONGS.get(bytes, i);
+                    if (insideWord() && isAboveSpace(block) || atBlockBoundary() && consume(block)) {
+                        i += Long.BYTES;
+                        backoff = MIN_RETRY_DISTANCE;
+                        continue;
+                    }
+                    retryAt = i + backoff;
+                    backoff = Math.min(backoff << 1, MAX_RETRY_DISTANCE);
+                }
+                if (insideWord()) {
+                    while (i < end && CLASSES[bytes[i] & 0xFF] >= VISIBLE) {
+                        i++;
+                    }
+                    if (i == end) {
+                        break;
+                    }
+                }
+                step(bytes[i++] & 0xFF);
+            }
+        }
+
+        @Override
+        public void update(ByteBuffer buffer) {
+            int end = buffer.limit();
+            int i = buffer.position();
+            if (buffer.hasArray()) {
+                update(buffer.array(), buffer.arrayOffset() + i, end - i);
+                buffer.position(end);
+                return;
+            }
+            int retryAt = i;
+            int backoff = MIN_RETRY_DISTANCE;
+            while (i < end) {
+                if (i >= retryAt && i <= end - Long.BYTES) {
+                    long block = (long) BUFFER_LONGS.get(buffer, i);
+                    if (insideWord() && isAboveSpace(block) || atBlockBoundary() && consume(block)) {
+                        i += Long.BYTES;
+                        backoff = MIN_RETRY_DISTANCE;
+                        continue;
+                    }
+                    retryAt = i + backoff;
+                    backoff = Math.min(backoff << 1, MAX_RETRY_DISTANCE);
+                }
+                if (insideWord()) {
+                    while (i < end && CLASSES[buffer.get(i) & 0xFF] >= VISIBLE) {
+                        i++;
+                    }
+                    if (i == end) {
+                        break;
+                    }
+                }
+                step(buffer.get(i++) & 0xFF);
+            }
+            buffer.position(end);
+        }
+
+        /**
+         * True while a block can be applied at once: nothing is left from a multi-byte
+         * character, no control character is waiting for the next visible one, and the
+         * line so far is either empty or has a visible character, so that its words are
+         * exactly its runs of visible characters.
+         */
+        private boolean atBlockBoundary() {
+            return pendingContinuations == 0 && pendingWords == 0 && nonBlank == visible;
+        }
+
+        /**
+         * Applies eight bytes at once if they are all printable ASCII, tabs or line
+         * terminators, and returns whether it did. Every visible byte after a separator,
+         * a line terminator or the start of the line starts a word; the words of lines
+         * that end in the block are added to the total, the others are carried in
+         * {@link #committedWords} like the per-byte path does.
+         */
+        private boolean consume(long block) {
+            if ((block & HIGH_BITS) != 0) {
+                return false;
+            }
+            long printable = printable(block);
+            long lineFeeds = 0;
+            long returns = 0;
+            long tabs = 0;
+            if (printable != HIGH_BITS) {
+                lineFeeds = bytesEqual(block, '\n');
+                returns = bytesEqual(block, '\r');
+                tabs = bytesEqual(block, '\t');
+                if ((printable | lineFeeds | returns | tabs) != HIGH_BITS) {
+                    return false;
+                }
+            }
+            long separators = spaces(block, printable) | tabs;
+            long visibles = printable & ~separators;
+            long breaks = separators | lineFeeds | returns;
+            boolean inWord = visible && !pendingSeparator;
+            long starts = visibles & ((breaks << 8) | (inWord ? 0 : FIRST_BYTE));
+            long content = separators | visibles;
+
+            long lineEnds = returns | (lineFeeds & ~((returns << 8) | (afterCr ? FIRST_BYTE : 0)));
+            if (lineEnds != 0) {
+                long lastLine = ~((Long.highestOneBit(lineEnds) << 1) - 1);
+                lines += Long.bitCount(lineEnds);
+                words += (visible ? committedWords + 1 : 0) + Long.bitCount(starts & ~lastLine);
+                starts &= lastLine;
+                visibles &= lastLine;
+                content &= lastLine;
+                visible = false;
+                pendingSeparator = false;
+                committedWords = 0;
+                lineStarted = false;
+            }
+            if (visibles != 0) {
+                committedWords += Long.bitCount(starts) - (visible ? 0 : 1);
+                visible = true;
+                pendingSeparator = (separators & LAST_BYTE) != 0;
+            } else if (content != 0) {
+                pendingSeparator |= visible;
+            }
+            nonBlank = visible;
+            lineStarted |= content != 0;
+            afterCr = (returns & LAST_BYTE) != 0;
+            return true;
+        }
+
+        @Override
+        public TextStats finish() {
+            if (lineStarted) {
+                endLine();
+            }
+            return new TextStats(lines, words);
+        }
+
+        /**
+         * True while further visible bytes cannot change any state, which lets the scan
+         * loops skip over them without touching the fields.
+         */
+        private boolean insideWord() {
+            return visible && nonBlank && !pendingSeparator && pendingWords == 0
+                    && !afterCr && pendingContinuations == 0;
+        }
+
+        private void step(int b) {
+            if (afterCr) {
+                afterCr = false;
+                if (b == '\n') {
+                    return;
+                }
+            }
+            if (pendingContinuations > 0) {
+                if ((b & 0xC0) == 0x80) {
+                    pendingCodePoint = (pendingCodePoint << 6) | (b & 0x3F);
+                    if (--pendingContinuations == 0 && !Character.isWhitespace(pendingCodePoint)) {
+                        nonBlank = true;
+                    }
+                    onVisible();
+                    return;
+                }
+                // Malformed sequence: the decoder would have produced U+FFFD.
+                pendingContinuations = 0;
+                nonBlank = true;
+            }
+            switch (CLASSES[b]) {
+                case LF -> endLine();
+                case CR -> {
+                    endLine();
+                    afterCr = true;
+                }
+                case SEPARATOR -> {
+                    lineStarted = true;
+                    if (visible) {
+                        pendingSeparator = true;
+                    }
+                }
+                case BLANK_CONTROL -> {
+                    lineStarted = true;
+                    onControl();
+                }
+                case CONTROL -> {
+                    lineStarted = true;
+                    nonBlank = true;
+                    onControl();
+                }
+                case VISIBLE -> {
+                    lineStarted = true;
+                    nonBlank = true;
+                    onVisible();
+                }
+                default -> {
+                    lineStarted = true;
+                    if (!nonBlank) {
+                        // Unicode whitespace outside ASCII is always a 3-byte sequence led by E1, E2 or E3.
+                        if (b >= 0xE1 && b <= 0xE3) {
+                            pendingContinuations = 2;
+                            pendingCodePoint = b & 0x0F;
+                        } else {
+                            nonBlank = true;
+                        }
+                    }
+                    onVisible();
+                }
+            }
+        }
+
+        private void onVisible() {
+            if (pendingSeparator) {
+                pendingWords++;
+                pendingSeparator = false;
+            }
+            committedWords += pendingWords;
+            pendingWords = 0;
+            visible = true;
+        }
+
+        private void onControl() {
+            // Control characters between words form words of their own, but only if a
+            // visible character follows them; otherwise trim() removes them.
+            if (pendingSeparator) {
+                pendingWords++;
+                pendingSeparator = false;
+            }
+        }
+
+        private void endLine() {
+            if (pendingContinuations > 0) {
+                pendingContinuations = 0;
+                nonBlank = true;
+            }
+            lines++;
+            if (nonBlank) {
+                words += visible ? committedWords + 1 : 1;
+            }
+            lineStarted = false;
+            nonBlank = false;
+            visible = false;
+            pendingSeparator = false;
+            pendingWords = 0;
+            committedWords = 0;
+        }
+    }
+
+    /**
+     * Counts runs of non-White_Space characters. Only the lead bytes C2, E1, E2 and E3 can
+     * start a multi-byte White_Space character; their sequence is decoded to decide, and
+     * every other non-ASCII byte is part of a word.
+     */
+    static final class UnicodeAccumulator implements TextStatsAccumulator {
+        private long lines;
+        private long words;
+
+        private boolean afterCr;
+        private boolean lineStarted;
+        private boolean inWord;
+
+        /** Continuation bytes still expected for a possible White_Space character. */
+        private int pendingContinuations;
+        private int pendingCodePoint;
+
+        @Override
+        public void update(byte[] bytes, int offset, int length) {
+            int end = offset + length;
+            int i = offset;
+            int retryAt = i;
+            int backoff = MIN_RETRY_DISTANCE;
+            while (i < end) {
+                if (i >= retryAt && i <= end - Long.BYTES) {
+                    long block = (long) ARRAY_LONGS.get(bytes, i);
+                    if (insideWord() && isVisibleAscii(block) || atBlockBoundary() && consume(block)) {
+                        i += Long.BYTES;
+                        backoff = MIN_RETRY_DISTANCE;
+                        continue;
+                    }
+                    retryAt = i + backoff;
+                    backoff = Math.min(backoff << 1, MAX_RETRY_DISTANCE);
+                }
+                if (insideWord()) {
+                    while (i < end && UNICODE_WORD[bytes[i] & 0xFF]) {
+                        i++;
+                    }
+                    if (i == end) {
+                        break;
+                    }
+                }
+                step(bytes[i++] & 0xFF);
+            }
+        }
+
+        @Override
+        public void update(ByteBuffer buffer) {
+            int end = buffer.limit();
+            int i = buffer.position();
+            if (buffer.hasArray()) {
+                update(buffer.array(), buffer.arrayOffset() + i, end - i);
+                buffer.position(end);
+                return;
+            }
+            int retryAt = i;
+            int backoff = MIN_RETRY_DISTANCE;
+            while (i < end) {
+                if (i >= retryAt && i <= end - Long.BYTES) {
+                    long block = (long) BUFFER_LONGS.get(buffer, i);
+                    if (insideWord() && isVisibleAscii(block) || atBlockBoundary() && consume(block)) {
+                        i += Long.BYTES;
+                        backoff = MIN_RETRY_DISTANCE;
+                        continue;
+                    }
+                    retryAt = i + backoff;
+                    backoff = Math.min(backoff << 1, MAX_RETRY_DISTANCE);
+                }
+                if (insideWord()) {
+                    while (i < end && UNICODE_WORD[buffer.get(i) & 0xFF]) {
+                        i++;
+                    }
+                    if (i == end) {
+                        break;
+                    }
+                }
+                step(buffer.get(i++) & 0xFF);
+            }
+            buffer.position(end);
+        }
+
+        @Override
+        public TextStats finish() {
+            if (lineStarted) {
+                endLine();
+            }
+            return new TextStats(lines, words);
+        }
+
+        private boolean insideWord() {
+            return inWord && !afterCr && pendingContinuations == 0;
+        }
+
+        private boolean atBlockBoundary() {
+            return pendingContinuations == 0;
+        }
+
+        /**
+         * Applies eight bytes at once if they are all printable ASCII, tabs or line
+         * terminators, and returns whether it did. Every visible byte after a separator,
+         * a line terminator or the start of the line starts a word.
+         */
+        private boolean consume(long block) {
+            if ((block & HIGH_BITS) != 0) {
+                return false;
+            }
+            long printable = printable(block);
+            long lineFeeds = 0;
+            long returns = 0;
+            long tabs = 0;
+            if (printable != HIGH_BITS) {
+                lineFeeds = bytesEqual(block, '\n');
+                returns = bytesEqual(block, '\r');
+                tabs = bytesEqual(block, '\t');
+                if ((printable | lineFeeds | returns | tabs) != HIGH_BITS) {
+                    return false;
+                }
+            }
+            long separators = spaces(block, printable) | tabs;
+            long visibles = printable & ~separators;
+            long breaks = separators | lineFeeds | returns;
+            words += Long.bitCount(visibles & ((breaks << 8) | (inWord ? 0 : FIRST_BYTE)));
+            inWord = (visibles & LAST_BYTE) != 0;
+
+            long content = separators | visibles;
+            long lineEnds = returns | (lineFeeds & ~((returns << 8) | (afterCr ? FIRST_BYTE : 0)));
+            if (lineEnds != 0) {
+                lines += Long.bitCount(lineEnds);
+                content &= ~((Long.highestOneBit(lineEnds) << 1) - 1);
+                lineStarted = false;
+            }
+            lineStarted |= content != 0;
+            afterCr = (returns & LAST_BYTE) != 0;
+            return true;
+        }
+
+        private void step(int b) {
+            if (afterCr) {
+                afterCr = false;
+                if (b == '\n') {
+                    return;
+                }
+            }
+            if (pendingContinuations > 0) {
+                if ((b & 0xC0) == 0x80) {
+                    pendingCodePoint = (pendingCodePoint << 6) | (b & 0x3F);
+                    if (--pendingContinuations == 0) {
+                        if (isWhiteSpace(pendingCodePoint)) {
+                            inWord = false;
+                        } else {
+                            onWordCharacter();
+                        }
+                    }
+                    return;
+                }
+                // Malformed sequence: the decoder would have produced U+FFFD.
+                pendingContinuations = 0;
+                onWordCharacter();
+            }
+            switch (CLASSES[b]) {
+                case LF -> endLine();
+                case CR -> {
+                    endLine();
+                    afterCr = true;
+                }
+                case SEPARATOR -> {
+                    lineStarted = true;
+                    inWord = false;
+                }
+                default -> {
+                    lineStarted = true;
+                    if (b == 0xC2) {
+                        pendingContinuations = 1;
+                        pendingCodePoint = b & 0x1F;
+                    } else if (b >= 0xE1 && b <= 0xE3) {
+                        pendingContinuations = 2;
+                        pendingCodePoint = b & 0x0F;
+                    } else {
+                        onWordCharacter();
+                    }
+                }
+            }
+        }
+
+        private void onWordCharacter() {
+            if (!inWord) {
+                words++;
+                inWord = true;
+            }
+        }
+
+        private void endLine() {
+            if (pendingContinuations > 0) {
+                pendingContinuations = 0;
+                onWordCharacter();
+            }
+            lines++;
+            lineStarted = false;
+            inWord = false;
+        }
+
+        /** The Unicode White_Space characters outside ASCII. */
+        private static boolean isWhiteSpace(int codePoint) {
+            return switch (codePoint) {
+                case 0x85, 0xA0, 0x1680, 0x2028, 0x2029, 0x202F, 0x205F, 0x3000 -> true;
+                default -> codePoint >= 0x2000 && codePoint <= 0x200A;
+            };
+        }
+    }
+}
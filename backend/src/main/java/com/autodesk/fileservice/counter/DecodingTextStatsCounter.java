@@ -0,0 +1,147 @@
+package com.autodesk.fileservice.counter;
+
+import com.autodesk.fileservice.config.FileProcessingProperties;
+import com.autodesk.fileservice.config.FileProcessingProperties.Text.MalformedInput;
+import com.autodesk.fileservice.exception.InvalidContentException;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Counts uploads in the encoding given by their byte order mark, or in
+ * {@code file-processing.text.charset} without one, with {@link ProfilingTextStatsCounter}.
+ * <p>
+ * UTF-8 is counted in place, without its mark; other encodings are transcoded to UTF-8
+ * on the way. Malformed input counts as {@code U+FFFD}, or rejects the upload with
+ * {@link InvalidContentException} when {@code file-processing.text.malformed-input} is
+ * {@code reject}; UTF-8 is then checked by {@link Utf8Validator}, whose cost is close to
+ * nothing on ASCII.
+ */
+@Primary
+@Component
+public class DecodingTextStatsCounter implements TextStatsCounter {
+
+    private final ProfilingTextStatsCounter counter;
+    private final Charset defaultCharset;
+    private final boolean reject;
+
+    public DecodingTextStatsCounter(ProfilingTextStatsCounter counter, FileProcessingProperties properties) {
+        this.counter = counter;
+        this.defaultCharset = properties.getText().getCharset();
+        this.reject = properties.getText().getMalformedInput() == MalformedInput.REJECT;
+    }
+
+    @Override
+    public TextStatsAccumulator newAccumulator() {
+        return new Sniffing();
+    }
+
+    @Override
+    public TextStatsAccumulator newAccumulator(Charset charset) {
+        if (isUtf8(charset)) {
+            TextStatsAccumulator counts = counter.newAccumulator();
+            return reject ? new Validating(counts, new Utf8Validator(), charset) : counts;
+        }
+        CodingErrorAction action = reject ? CodingErrorAction.REPORT : CodingErrorAction.REPLACE;
+        return new TranscodingAccumulator(charset.newDecoder().onMalformedInput(action).onUnmappableCharacter(action),
+                counter.newAccumulator(), () -> {
+                    throw malformed(charset);
+                });
+    }
+
+    private static boolean isUtf8(Charset charset) {
+        return charset.equals(StandardCharsets.UTF_8);
+    }
+
+    private static InvalidContentException malformed(Charset charset) {
+        return new InvalidContentException("File content is not valid " + charset.name() + " text.");
+    }
+
+    /**
+     * Holds back the first bytes until the byte order mark, if any, is known, then hands
+     * everything after the mark to an accumulator for its encoding.
+     */
+    private final class Sniffing implements TextStatsAccumulator {
+        private final byte[] head = new byte[ByteOrderMark.MAX_LENGTH];
+        private int headLength;
+        private TextStatsAccumulator delegate;
+
+        @Override
+        public void update(byte[] bytes, int offset, int length) {
+            if (delegate == null) {
+                int taken = Math.min(head.length - headLength, length);
+                System.arraycopy(bytes, offset, head, headLength, taken);
+                headLength += taken;
+                if (headLength < head.length) {
+                    return;
+                }
+                start();
+                offset += taken;
+                length -= taken;
+            }
+            delegate.update(bytes, offset, length);
+        }
+
+        @Override
+        public void update(ByteBuffer buffer) {
+            if (delegate == null) {
+                while (headLength < head.length && buffer.hasRemaining()) {
+                    head[headLength++] = buffer.get();
+                }
+                if (headLength < head.length) {
+                    return;
+                }
+                start();
+            }
+            delegate.update(buffer);
+        }
+
+        @Override
+        public TextStats finish() {
+            if (delegate == null) {
+                start();
+            }
+            return delegate.finish();
+        }
+
+        private void start() {
+            ByteOrderMark mark = ByteOrderMark.detect(head, headLength);
+            int skipped = mark != null ? mark.length() : 0;
+            delegate = newAccumulator(mark != null ? mark.charset() : defaultCharset);
+            delegate.update(head, skipped, headLength - skipped);
+        }
+    }
+
+    private record Validating(TextStatsAccumulator counts, Utf8Validator validator, Charset charset)
+            implements TextStatsAccumulator {
+
+        @Override
+        public void update(byte[] bytes, int offset, int length) {
+            if (!validator.update(bytes, offset, length)) {
+                throw malformed(charset);
+            }
+            counts.update(bytes, offset, length);
+        }
+
+        @Override
+        public void update(ByteBuffer buffer) {
+            int position = buffer.position();
+            if (!validator.update(buffer)) {
+                throw malformed(charset);
+            }
+            counts.update(buffer.position(position));
+        }
+
+        @Override
+        public TextStats finish() {
+            if (!validator.finish()) {
+                throw malformed(charset);
+            }
+            return counts.finish();
+        }
+    }
+}
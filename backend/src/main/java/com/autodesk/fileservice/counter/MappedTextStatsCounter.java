@@ -0,0 +1,56 @@
+package com.autodesk.fileservice.counter;
+
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.function.Consumer;
+
+/**
+ * Counts a file through read-only memory mappings, so the bytes are scanned straight
+ * from the page cache without being copied into heap buffers.
+ * <p>
+ * Large regions are mapped in windows of at most {@value #MAX_WINDOW} bytes; the
+ * accumulator keeps its state across windows, so window edges need no special handling.
+ */
+@Component
+public class MappedTextStatsCounter {
+
+    static final long MAX_WINDOW = 1L << 30;
+
+    private final TextStatsCounter counter;
+
+    public MappedTextStatsCounter(TextStatsCounter counter) {
+        this.counter = counter;
+    }
+
+    public TextStats count(FileChannel channel) throws IOException {
+        return countRange(channel, 0L, channel.size(), counter.newAccumulator());
+    }
+
+    /**
+     * Counts the file and feeds its bytes, in order, to {@code sink}, if not null, in the same pass.
+     */
+    public TextStats count(FileChannel channel, Consumer<ByteBuffer> sink) throws IOException {
+        TextStatsAccumulator accumulator = counter.newAccumulator();
+        return countRange(channel, 0L, channel.size(), sink != null ? new TeeAccumulator(accumulator, sink) : accumulator);
+    }
+
+    /**
+     * Feeds the bytes from {@code start} to {@code end} to {@code accumulator}, which must
+     * expect content starting there, and returns its totals.
+     */
+    public TextStats countRange(FileChannel channel, long start, long end, TextStatsAccumulator accumulator)
+            throws IOException {
+        long position = start;
+        while (position < end) {
+            long length = Math.min(MAX_WINDOW, end - position);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            accumulator.update(window);
+            position += length;
+        }
+        return accumulator.finish();
+    }
+}
@@ -0,0 +1,183 @@
+package com.autodesk.fileservice.counter;
+
+import com.autodesk.fileservice.config.FileProcessingProperties;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Counts a file by splitting it into byte ranges that are counted concurrently on a
+ * dedicated {@link ForkJoinPool} and summed.
+ * <p>
+ * Every range boundary is moved forward to the start of the next line, so no line (and
+ * therefore no word or multi-byte character) straddles two ranges and the partial
+ * results add up to exactly what a sequential pass produces. Ranges are read with
+ * positional reads, or memory-mapped when {@code file-processing.mapped.enabled} is set.
+ * <p>
+ * Only files in UTF-8 or in an ASCII-compatible single-byte encoding are split; in
+ * others, such as UTF-16, a {@code \n} byte may be half of a character, so they are
+ * counted in one range.
+ * <p>
+ * A consumer that needs every byte in order, such as a CSV parser, can be given the
+ * file as one more task that runs alongside the ranges, or is fed from the single range.
+ */
+@Component
+public class ParallelTextStatsCounter {
+
+    private static final int BOUNDARY_SCAN_SIZE = 8 * 1024;
+
+    private final TextStatsCounter counter;
+    private final MappedTextStatsCounter mappedCounter;
+    private final boolean mapped;
+    private final ForkJoinPool pool;
+    private final long chunkSize;
+    private final Charset defaultCharset;
+
+    public ParallelTextStatsCounter(TextStatsCounter counter, MappedTextStatsCounter mappedCounter,
+                                    FileProcessingProperties properties) {
+        FileProcessingProperties.Parallel parallel = properties.getParallel();
+        int parallelism = parallel.getParallelism() > 0 ? parallel.getParallelism() : Runtime.getRuntime().availableProcessors();
+        this.counter = counter;
+        this.mappedCounter = mappedCounter;
+        this.mapped = properties.getMapped().isEnabled();
+        this.pool = new ForkJoinPool(parallelism);
+        this.chunkSize = Math.max(1L, parallel.getChunkSize().toBytes());
+        this.defaultCharset = properties.getText().getCharset();
+    }
+
+    public TextStats count(FileChannel channel) throws IOException {
+        return count(channel, null);
+    }
+
+    /**
+     * Counts the file and feeds all of its bytes, in order, to {@code sink}, if not null.
+     */
+    public TextStats count(FileChannel channel, Consumer<ByteBuffer> sink) throws IOException {
+        long size = channel.size();
+        Charset charset = charsetOf(channel);
+        if (!isSplittable(charset)) {
+            return countRange(channel, 0L, size, tee(counter.newAccumulator(), sink));
+        }
+        List<Callable<TextStats>> tasks = new ArrayList<>();
+        long start = 0L;
+        while (start < size) {
+            long end = start + chunkSize >= size ? size : nextLineStart(channel, start + chunkSize, size);
+            long from = start;
+            tasks.add(() -> countRange(channel, from, end,
+                    from == 0L ? counter.newAccumulator() : counter.newAccumulator(charset)));
+            start = end;
+        }
+        if (tasks.size() == 1) {
+            return countRange(channel, 0L, size, tee(counter.newAccumulator(), sink));
+        }
+        if (sink != null) {
+            tasks.add(() -> countRange(channel, 0L, size, TeeAccumulator.feeding(sink)));
+        }
+
+        TextStats total = TextStats.EMPTY;
+        for (Future<TextStats> future : pool.invokeAll(tasks)) {
+            total = total.plus(join(future));
+        }
+        return total;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private TextStats countRange(FileChannel channel, long start, long end, TextStatsAccumulator accumulator)
+            throws IOException {
+        if (mapped) {
+            return mappedCounter.countRange(channel, start, end, accumulator);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(TextStatsCounter.DEFAULT_BUFFER_SIZE, end - start));
+        long position = start;
+        while (position < end) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), end - position));
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            buffer.flip();
+            accumulator.update(buffer);
+            position += read;
+        }
+        return accumulator.finish();
+    }
+
+    private static TextStatsAccumulator tee(TextStatsAccumulator accumulator, Consumer<ByteBuffer> sink) {
+        return sink != null ? new TeeAccumulator(accumulator, sink) : accumulator;
+    }
+
+    private Charset charsetOf(FileChannel channel) throws IOException {
+        byte[] head = new byte[ByteOrderMark.MAX_LENGTH];
+        int read = channel.read(ByteBuffer.wrap(head), 0L);
+        return ByteOrderMark.charsetOf(head, Math.max(read, 0), defaultCharset);
+    }
+
+    /** True if every {@code \n} and {@code \r} byte of content in {@code charset} is a line terminator. */
+    private static boolean isSplittable(Charset charset) {
+        if (charset.equals(StandardCharsets.UTF_8)) {
+            return true;
+        }
+        return charset.canEncode() && charset.newEncoder().maxBytesPerChar() == 1.0f
+                && Arrays.equals("\r\n".getBytes(charset), new byte[]{'\r', '\n'});
+    }
+
+    /**
+     * Returns the offset just past the first line terminator at or after {@code from},
+     * treating {@code \r\n} as one terminator, or {@code end} if there is none.
+     */
+    private static long nextLineStart(FileChannel channel, long from, long end) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BOUNDARY_SCAN_SIZE);
+        long position = from;
+        boolean afterCr = false;
+        while (position < end) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), end - position));
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                byte b = buffer.get(i);
+                if (afterCr) {
+                    return b == '\n' ? position + i + 1 : position + i;
+                }
+                if (b == '\n') {
+                    return position + i + 1;
+                }
+                afterCr = b == '\r';
+            }
+            position += read;
+        }
+        return end;
+    }
+
+    private static TextStats join(Future<TextStats> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while counting", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException io) throw io;
+            if (cause instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(cause);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.autodesk.fileservice.counter;
+
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+/**
+ * Feeds every byte counted by an accumulator to a second consumer as well, such as a
+ * CSV parser, one slice at a time, so the consumer reads each slice while the counter
+ * has just brought it into cache. The consumer gets a buffer holding the slice's bytes
+ * and need not consume it.
+ */
+final class TeeAccumulator implements TextStatsAccumulator {
+
+    private static final int SLICE_SIZE = 64 * 1024;
+
+    private final TextStatsAccumulator target;
+    private final Consumer<ByteBuffer> sink;
+
+    TeeAccumulator(TextStatsAccumulator target, Consumer<ByteBuffer> sink) {
+        this.target = target;
+        this.sink = sink;
+    }
+
+    /** Only feeds {@code sink}; the totals are always {@link TextStats#EMPTY}. */
+    static TextStatsAccumulator feeding(Consumer<ByteBuffer> sink) {
+        return new TextStatsAccumulator() {
+            @Override
+            public void update(byte[] bytes, int offset, int length) {
+                sink.accept(ByteBuffer.wrap(bytes, offset, length));
+            }
+
+            @Override
+            public void update(ByteBuffer buffer) {
+                sink.accept(buffer.duplicate());
+                buffer.position(buffer.limit());
+            }
+
+            @Override
+            public TextStats finish() {
+                return TextStats.EMPTY;
+            }
+        };
+    }
+
+    @Override
+    public void update(byte[] bytes, int offset, int length) {
+        update(ByteBuffer.wrap(bytes, offset, length));
+    }
+
+    @Override
+    public void update(ByteBuffer buffer) {
+        while (buffer.hasRemaining()) {
+            int position = buffer.position();
+            int length = Math.min(SLICE_SIZE, buffer.remaining());
+            target.update(buffer.slice(position, length));
+            sink.accept(buffer.slice(position, length));
+            buffer.position(position + length);
+        }
+    }
+
+    @Override
+    public TextStats finish() {
+        return target.finish();
+    }
+}
@@ -0,0 +1,171 @@
+package com.autodesk.fileservice.counter;
+
+import com.autodesk.fileservice.model.TextProfile;
+import com.autodesk.fileservice.model.WordCount;
+import com.autodesk.fileservice.sketch.ByteHash;
+import com.autodesk.fileservice.sketch.HyperLogLog;
+import com.autodesk.fileservice.sketch.SpaceSaving;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects a {@link TextProfile} in one pass over UTF-8 bytes, fed the same slices as
+ * the line and word counter. Words are runs of bytes other than ASCII whitespace; each
+ * one is hashed as it is scanned and fed to a {@link HyperLogLog} for the distinct count
+ * and to a {@link SpaceSaving} summary for the most frequent words, so memory does not
+ * grow with the size or vocabulary of the file.
+ * <p>
+ * Bytes may be fed in arbitrarily sized pieces, and profilers of consecutive, line-aligned
+ * parts of a file can be merged. Instances are not thread-safe.
+ */
+public final class TextProfiler {
+
+    private static final byte WORD = 0;
+    private static final byte SEPARATOR = 1;
+    private static final byte LINE_END = 2;
+
+    private static final byte[] CLASSES = new byte[256];
+
+    static {
+        CLASSES['\t'] = SEPARATOR;
+        CLASSES[0x0B] = SEPARATOR;
+        CLASSES['\f'] = SEPARATOR;
+        CLASSES[' '] = SEPARATOR;
+        CLASSES['\n'] = LINE_END;
+        CLASSES['\r'] = LINE_END;
+    }
+
+    private static final int COPY_BUFFER_SIZE = 8 * 1024;
+
+    private final HyperLogLog distinct;
+    private final SpaceSaving frequent;
+
+    private long bytes;
+    private long chars;
+    private long longestLine;
+    private long lineLength;
+
+    private long wordHash = ByteHash.SEED;
+    private int wordLength;
+    /** Leading bytes of the current word, used as its label in the top-K summary. */
+    private final byte[] word = new byte[SpaceSaving.MAX_LABEL_LENGTH];
+
+    private byte[] copyBuffer;
+
+    /**
+     * @param trackedWords words tracked by the top-K summary; more than are reported
+     *                     makes the reported counts more accurate
+     * @param distinctPrecision HyperLogLog precision of the distinct word count
+     */
+    public TextProfiler(int trackedWords, int distinctPrecision) {
+        this.distinct = new HyperLogLog(distinctPrecision);
+        this.frequent = new SpaceSaving(trackedWords);
+    }
+
+    public void update(byte[] bytes, int offset, int length) {
+        int end = offset + length;
+        long chars = this.chars;
+        long lineLength = this.lineLength;
+        long hash = wordHash;
+        int wordLength = this.wordLength;
+        for (int i = offset; i < end; i++) {
+            int b = bytes[i] & 0xFF;
+            // Continuation bytes of multi-byte sequences are not characters of their own.
+            boolean leading = (b & 0xC0) != 0x80;
+            if (leading) {
+                chars++;
+            }
+            byte type = CLASSES[b];
+            if (type == WORD) {
+                hash = ByteHash.update(hash, b);
+                if (wordLength < word.length) {
+                    word[wordLength] = (byte) b;
+                }
+                wordLength++;
+                if (leading) {
+                    lineLength++;
+                }
+                continue;
+            }
+            if (wordLength > 0) {
+                endWord(hash, wordLength);
+                hash = ByteHash.SEED;
+                wordLength = 0;
+            }
+            if (type == LINE_END) {
+                // A \r\n pair ends one line followed by an empty one, which cannot be the longest.
+                longestLine = Math.max(longestLine, lineLength);
+                lineLength = 0;
+            } else {
+                lineLength++;
+            }
+        }
+        this.bytes += length;
+        this.chars = chars;
+        this.lineLength = lineLength;
+        this.wordHash = hash;
+        this.wordLength = wordLength;
+    }
+
+    /**
+     * Consumes the remaining bytes of {@code buffer}, leaving its position at its limit.
+     */
+    public void update(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            update(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            buffer.position(buffer.limit());
+            return;
+        }
+        if (copyBuffer == null) {
+            copyBuffer = new byte[COPY_BUFFER_SIZE];
+        }
+        while (buffer.hasRemaining()) {
+            int length = Math.min(copyBuffer.length, buffer.remaining());
+            buffer.get(copyBuffer, 0, length);
+            update(copyBuffer, 0, length);
+        }
+    }
+
+    /**
+     * Closes a trailing word and line that have no terminator.
+     */
+    public TextProfiler finish() {
+        if (wordLength > 0) {
+            endWord(wordHash, wordLength);
+            wordHash = ByteHash.SEED;
+            wordLength = 0;
+        }
+        longestLine = Math.max(longestLine, lineLength);
+        lineLength = 0;
+        return this;
+    }
+
+    /**
+     * Folds the finished profile of another part of the same file into this one.
+     */
+    public TextProfiler merge(TextProfiler other) {
+        bytes += other.bytes;
+        chars += other.chars;
+        longestLine = Math.max(longestLine, other.longestLine);
+        distinct.merge(other.distinct);
+        frequent.merge(other.frequent);
+        return this;
+    }
+
+    public TextProfile toProfile(int topWords) {
+        List<WordCount> top = new ArrayList<>(topWords);
+        for (SpaceSaving.Item item : frequent.top(topWords)) {
+            top.add(new WordCount(new String(item.label(), StandardCharsets.UTF_8), item.count(), item.error()));
+        }
+        return new TextProfile(bytes, chars, longestLine, distinct.estimate(), top);
+    }
+
+    private void endWord(long hash, int length) {
+        long key = ByteHash.finish(hash);
+        distinct.add(key);
+        frequent.add(key, word, length);
+    }
+}
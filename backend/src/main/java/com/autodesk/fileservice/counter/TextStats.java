@@ -0,0 +1,24 @@
+package com.autodesk.fileservice.counter;
+
+/**
+ * Line and word totals produced by a {@link TextStatsCounter}, and the extended profile
+ * when the counter collects one ({@code null} otherwise).
+ */
+public record TextStats(long lineCount, long wordCount, TextProfiler profiler) {
+
+    public static final TextStats EMPTY = new TextStats(0L, 0L);
+
+    public TextStats(long lineCount, long wordCount) {
+        this(lineCount, wordCount, null);
+    }
+
+    /**
+     * Adds the totals of a following part of the same file. Profilers are merged into
+     * this one, so each result should be summed at most once.
+     */
+    public TextStats plus(TextStats other) {
+        TextProfiler merged = profiler == null ? other.profiler
+                : other.profiler == null ? profiler : profiler.merge(other.profiler);
+        return new TextStats(lineCount + other.lineCount, wordCount + other.wordCount, merged);
+    }
+}
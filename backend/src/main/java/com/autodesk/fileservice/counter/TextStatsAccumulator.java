@@ -0,0 +1,23 @@
+package com.autodesk.fileservice.counter;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Incremental counting state for a single pass over a file. Bytes may be fed in
+ * arbitrarily sized pieces; the result does not depend on where the pieces are cut.
+ * Instances are not thread-safe.
+ */
+public interface TextStatsAccumulator {
+
+    void update(byte[] bytes, int offset, int length);
+
+    /**
+     * Consumes the remaining bytes of {@code buffer}, leaving its position at its limit.
+     */
+    void update(ByteBuffer buffer);
+
+    /**
+     * Closes any trailing line that has no terminator and returns the totals.
+     */
+    TextStats finish();
+}
@@ -0,0 +1,44 @@
+package com.autodesk.fileservice.counter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Counts lines and words of uploaded text content.
+ */
+public interface TextStatsCounter {
+
+    int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Returns an accumulator for the content of a whole file, from its first byte.
+     */
+    TextStatsAccumulator newAccumulator();
+
+    /**
+     * Returns an accumulator for content known to be in {@code charset} that does not
+     * start with a byte order mark, such as a range in the middle of a file. Counters
+     * that only read UTF-8 ignore the charset.
+     */
+    default TextStatsAccumulator newAccumulator(Charset charset) {
+        return newAccumulator();
+    }
+
+    default TextStats count(InputStream in) throws IOException {
+        TextStatsAccumulator accumulator = newAccumulator();
+        byte[] buffer = new byte[DEFAULT_BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            accumulator.update(buffer, 0, read);
+        }
+        return accumulator.finish();
+    }
+
+    default TextStats count(ByteBuffer buffer) {
+        TextStatsAccumulator accumulator = newAccumulator();
+        accumulator.update(buffer);
+        return accumulator.finish();
+    }
+}
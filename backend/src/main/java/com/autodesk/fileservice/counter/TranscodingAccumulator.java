@@ -0,0 +1,102 @@
+package com.autodesk.fileservice.counter;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Decodes content in another encoding and feeds it to a UTF-8 accumulator, through
+ * fixed buffers, so the counters and the profile see the same bytes as for UTF-8 uploads.
+ * A character split between two updates is carried over to the next one.
+ */
+final class TranscodingAccumulator implements TextStatsAccumulator {
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private final CharsetDecoder decoder;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final TextStatsAccumulator target;
+    private final Runnable onMalformed;
+
+    private final ByteBuffer input = ByteBuffer.allocate(BUFFER_SIZE);
+    private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+    private final ByteBuffer output = ByteBuffer.allocate(BUFFER_SIZE * 3);
+
+    /**
+     * @param onMalformed called, and expected to throw, when the decoder reports
+     *                    malformed input; only happens if {@code decoder} reports errors
+     */
+    TranscodingAccumulator(CharsetDecoder decoder, TextStatsAccumulator target, Runnable onMalformed) {
+        this.decoder = decoder;
+        this.target = target;
+        this.onMalformed = onMalformed;
+    }
+
+    @Override
+    public void update(byte[] bytes, int offset, int length) {
+        update(ByteBuffer.wrap(bytes, offset, length));
+    }
+
+    @Override
+    public void update(ByteBuffer buffer) {
+        while (buffer.hasRemaining()) {
+            int length = Math.min(input.remaining(), buffer.remaining());
+            input.put(input.position(), buffer, buffer.position(), length);
+            input.position(input.position() + length);
+            buffer.position(buffer.position() + length);
+            input.flip();
+            decode(false);
+            input.compact();
+        }
+    }
+
+    @Override
+    public TextStats finish() {
+        input.flip();
+        decode(true);
+        while (decoder.flush(chars).isOverflow()) {
+            encode(false);
+        }
+        encode(true);
+        while (encoder.flush(output).isOverflow()) {
+            drain();
+        }
+        drain();
+        return target.finish();
+    }
+
+    private void decode(boolean endOfInput) {
+        while (true) {
+            CoderResult result = decoder.decode(input, chars, endOfInput);
+            if (result.isError()) {
+                onMalformed.run();
+            }
+            encode(false);
+            if (result.isUnderflow()) {
+                return;
+            }
+        }
+    }
+
+    /** Encodes the decoded characters; a trailing high surrogate waits for its pair. */
+    private void encode(boolean endOfInput) {
+        chars.flip();
+        while (encoder.encode(chars, output, endOfInput).isOverflow()) {
+            drain();
+        }
+        drain();
+        chars.compact();
+    }
+
+    private void drain() {
+        output.flip();
+        target.update(output);
+        output.clear();
+    }
+}
@@ -0,0 +1,97 @@
+package com.autodesk.fileservice.counter;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Checks that bytes fed in arbitrary pieces are well-formed UTF-8: no stray continuation
+ * bytes, overlong forms, surrogates, code points above {@code U+10FFFF} or truncated
+ * sequences. Runs of ASCII are skipped eight bytes at a time. Instances are not thread-safe.
+ */
+final class Utf8Validator {
+
+    private static final VarHandle ARRAY_LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle BUFFER_LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    /** Continuation bytes still expected. */
+    private int needed;
+    /** Range of the next continuation byte; narrower than 80-BF right after some lead bytes. */
+    private int lower = 0x80;
+    private int upper = 0xBF;
+    private boolean valid = true;
+
+    /** Returns false once a malformed sequence has been seen. */
+    boolean update(byte[] bytes, int offset, int length) {
+        int end = offset + length;
+        int i = offset;
+        while (i < end && valid) {
+            if (needed == 0) {
+                while (i <= end - Long.BYTES && ((long) ARRAY_LONGS.get(bytes, i) & HIGH_BITS) == 0) {
+                    i += Long.BYTES;
+                }
+                if (i == end) {
+                    break;
+                }
+            }
+            accept(bytes[i++] & 0xFF);
+        }
+        return valid;
+    }
+
+    /** Consumes the remaining bytes of {@code buffer}; returns false once a malformed sequence has been seen. */
+    boolean update(ByteBuffer buffer) {
+        int end = buffer.limit();
+        int i = buffer.position();
+        while (i < end && valid) {
+            if (needed == 0) {
+                while (i <= end - Long.BYTES && ((long) BUFFER_LONGS.get(buffer, i) & HIGH_BITS) == 0) {
+                    i += Long.BYTES;
+                }
+                if (i == end) {
+                    break;
+                }
+            }
+            accept(buffer.get(i++) & 0xFF);
+        }
+        buffer.position(end);
+        return valid;
+    }
+
+    /** Returns true if all content was well-formed and no sequence is left unfinished. */
+    boolean finish() {
+        return valid && needed == 0;
+    }
+
+    private void accept(int b) {
+        if (needed > 0) {
+            if (b < lower || b > upper) {
+                valid = false;
+                return;
+            }
+            lower = 0x80;
+            upper = 0xBF;
+            needed--;
+            return;
+        }
+        if (b < 0x80) {
+            return;
+        }
+        if (b < 0xC2 || b > 0xF4) {
+            valid = false;
+        } else if (b < 0xE0) {
+            needed = 1;
+        } else if (b < 0xF0) {
+            needed = 2;
+            if (b == 0xE0) lower = 0xA0;       // overlong
+            else if (b == 0xED) upper = 0x9F;  // surrogates
+        } else {
+            needed = 3;
+            if (b == 0xF0) lower = 0x90;       // overlong
+            else if (b == 0xF4) upper = 0x8F;  // above U+10FFFF
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package com.autodesk.fileservice.csv;
+
+import com.autodesk.fileservice.model.CsvColumnStats;
+import com.autodesk.fileservice.model.CsvStats;
+import com.autodesk.fileservice.sketch.ByteHash;
+import com.autodesk.fileservice.sketch.HyperLogLog;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses RFC 4180 CSV incrementally and collects per-column statistics in one pass.
+ * <p>
+ * Fields are never materialised: each byte updates the field's hash and, for short
+ * fields, a fixed scratch buffer from which header names and numbers are read. Memory
+ * therefore depends only on the number of analysed columns, not on the size of the file.
+ * <ul>
+ *   <li>Quoted fields may contain delimiters, line breaks and doubled quotes.</li>
+ *   <li>{@code \n}, {@code \r\n} and {@code \r} end a record; empty lines are skipped.</li>
+ *   <li>Malformed input is read leniently: a quote inside an unquoted field and
+ *       characters after a closing quote are taken literally.</li>
+ * </ul>
+ * Bytes may be fed in arbitrarily sized pieces. Instances are not thread-safe.
+ */
+public final class CsvStatsCollector {
+
+    private static final int FIELD_START = 0;
+    private static final int UNQUOTED = 1;
+    private static final int QUOTED = 2;
+    /** A quote inside a quoted field: either the closing quote or the first of a doubled one. */
+    private static final int QUOTE_IN_QUOTED = 3;
+
+    /** Longest header name kept, in bytes; longer names are truncated. */
+    private static final int SCRATCH_SIZE = 256;
+    /** Longer fields are not considered numbers. */
+    private static final int MAX_NUMBER_LENGTH = 64;
+    private static final int COPY_BUFFER_SIZE = 8 * 1024;
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final int maxColumns;
+    private final int distinctPrecision;
+    private final List<Column> columns = new ArrayList<>();
+
+    private boolean headerPending;
+    private int state = FIELD_START;
+    private boolean afterCr;
+    private long rows;
+    private int widestRecord;
+
+    private int field;
+    private long fieldLength;
+    private long fieldHash = ByteHash.SEED;
+    private final byte[] scratch = new byte[SCRATCH_SIZE];
+    private byte[] copyBuffer;
+
+    public CsvStatsCollector(boolean header, int maxColumns, int distinctPrecision) {
+        this.headerPending = header;
+        this.maxColumns = maxColumns;
+        this.distinctPrecision = distinctPrecision;
+    }
+
+    public void update(byte[] bytes, int offset, int length) {
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            accept(bytes[i] & 0xFF);
+        }
+    }
+
+    /**
+     * Consumes the remaining bytes of {@code buffer}, leaving its position at its limit.
+     * Direct buffers, such as mapped files, are copied through a small heap buffer.
+     */
+    public void update(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            update(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            buffer.position(buffer.limit());
+            return;
+        }
+        if (copyBuffer == null) {
+            copyBuffer = new byte[COPY_BUFFER_SIZE];
+        }
+        while (buffer.hasRemaining()) {
+            int length = Math.min(copyBuffer.length, buffer.remaining());
+            buffer.get(copyBuffer, 0, length);
+            update(copyBuffer, 0, length);
+        }
+    }
+
+    private void accept(int b) {
+        if (afterCr) {
+            afterCr = false;
+            if (b == '\n') {
+                return;
+            }
+        }
+        switch (state) {
+            case FIELD_START -> {
+                if (b == '"') state = QUOTED;
+                else if (b == ',') endField();
+                else if (b == '\n' || b == '\r') endLine(b);
+                else {
+                    append(b);
+                    state = UNQUOTED;
+                }
+            }
+            case UNQUOTED -> {
+                if (b == ',') endField();
+                else if (b == '\n' || b == '\r') endLine(b);
+                else append(b);
+            }
+            case QUOTED -> {
+                if (b == '"') state = QUOTE_IN_QUOTED;
+                else append(b);
+            }
+            default -> {
+                if (b == '"') {
+                    append(b);
+                    state = QUOTED;
+                } else if (b == ',') endField();
+                else if (b == '\n' || b == '\r') endLine(b);
+                else {
+                    append(b);
+                    state = UNQUOTED;
+                }
+            }
+        }
+    }
+
+    /**
+     * Closes a trailing record that has no line terminator and returns the statistics.
+     */
+    public CsvStats finish() {
+        if (state != FIELD_START || field > 0) {
+            endField();
+            endRecord();
+        }
+        List<CsvColumnStats> result = new ArrayList<>(columns.size());
+        for (Column column : columns) {
+            result.add(column.toStats(rows));
+        }
+        return new CsvStats(rows, widestRecord, result);
+    }
+
+    private void append(int b) {
+        if (fieldLength < SCRATCH_SIZE) {
+            scratch[(int) fieldLength] = (byte) b;
+        }
+        fieldLength++;
+        fieldHash = ByteHash.update(fieldHash, b);
+    }
+
+    private void endLine(int b) {
+        // A line break at the very start of a record is an empty line, not a record.
+        if (state != FIELD_START || field > 0) {
+            endField();
+            endRecord();
+        }
+        afterCr = b == '\r';
+    }
+
+    private void endField() {
+        if (field < maxColumns) {
+            Column column = column(field);
+            if (headerPending) {
+                column.name = new String(scratch, 0, (int) Math.min(fieldLength, SCRATCH_SIZE), StandardCharsets.UTF_8);
+            } else {
+                column.accept();
+            }
+        }
+        field++;
+        fieldLength = 0;
+        fieldHash = ByteHash.SEED;
+        state = FIELD_START;
+    }
+
+    private void endRecord() {
+        if (headerPending) {
+            headerPending = false;
+        } else {
+            rows++;
+            for (int i = field; i < columns.size(); i++) {
+                columns.get(i).nulls++;
+            }
+        }
+        widestRecord = Math.max(widestRecord, field);
+        field = 0;
+    }
+
+    private Column column(int index) {
+        while (columns.size() <= index) {
+            columns.add(new Column(columns.size(), rows));
+        }
+        return columns.get(index);
+    }
+
+    /**
+     * Parses {@code [sign] digits [. digits] [e [sign] digits]}, surrounded by optional
+     * spaces, from the scratch buffer. Returns {@code NaN} when the field is not a number.
+     */
+    private double parseNumber() {
+        if (fieldLength > MAX_NUMBER_LENGTH) {
+            return Double.NaN;
+        }
+        int i = 0;
+        int end = (int) fieldLength;
+        while (i < end && scratch[i] == ' ') i++;
+        while (end > i && scratch[end - 1] == ' ') end--;
+
+        boolean negative = false;
+        if (i < end && (scratch[i] == '-' || scratch[i] == '+')) {
+            negative = scratch[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int exponent = 0;
+        int digits = 0;
+        int significant = 0;
+        boolean fraction = false;
+        for (; i < end; i++) {
+            int b = scratch[i];
+            if (b >= '0' && b <= '9') {
+                digits++;
+                if (significant < 18) {
+                    mantissa = mantissa * 10 + (b - '0');
+                    if (mantissa != 0) significant++;
+                    if (fraction) exponent--;
+                } else if (!fraction) {
+                    exponent++;
+                }
+            } else if (b == '.' && !fraction) {
+                fraction = true;
+            } else {
+                break;
+            }
+        }
+        if (digits == 0) {
+            return Double.NaN;
+        }
+        if (i < end && (scratch[i] == 'e' || scratch[i] == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (scratch[i] == '-' || scratch[i] == '+')) {
+                negativeExponent = scratch[i] == '-';
+                i++;
+            }
+            int explicit = 0;
+            int exponentDigits = 0;
+            for (; i < end && scratch[i] >= '0' && scratch[i] <= '9'; i++) {
+                explicit = Math.min(explicit * 10 + (scratch[i] - '0'), 10_000);
+                exponentDigits++;
+            }
+            if (exponentDigits == 0) {
+                return Double.NaN;
+            }
+            exponent += negativeExponent ? -explicit : explicit;
+        }
+        if (i != end) {
+            return Double.NaN;
+        }
+        double value;
+        // Exact powers of ten keep the result correctly rounded for typical values.
+        if (exponent >= 0 && exponent < POWERS_OF_TEN.length) {
+            value = mantissa * POWERS_OF_TEN[exponent];
+        } else if (exponent < 0 && -exponent < POWERS_OF_TEN.length) {
+            value = mantissa / POWERS_OF_TEN[-exponent];
+        } else {
+            value = mantissa * Math.pow(10, exponent);
+        }
+        return negative ? -value : value;
+    }
+
+    private final class Column {
+        private final int index;
+        private final HyperLogLog distinct = new HyperLogLog(distinctPrecision);
+        private String name;
+        private long nulls;
+        private long numeric;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+
+        /** A column first seen in a later record was missing from all records before it. */
+        Column(int index, long missingBefore) {
+            this.index = index;
+            this.nulls = missingBefore;
+        }
+
+        void accept() {
+            if (fieldLength == 0) {
+                nulls++;
+                return;
+            }
+            distinct.add(ByteHash.finish(fieldHash));
+            double value = parseNumber();
+            if (!Double.isNaN(value) && !Double.isInfinite(value)) {
+                numeric++;
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+        }
+
+        CsvColumnStats toStats(long rows) {
+            return new CsvColumnStats(index, name, nulls, Math.min(distinct.estimate(), rows - nulls),
+                    numeric, numeric > 0 ? min : null, numeric > 0 ? max : null);
+        }
+    }
+}
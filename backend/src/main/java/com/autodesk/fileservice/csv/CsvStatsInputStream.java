@@ -0,0 +1,57 @@
+package com.autodesk.fileservice.csv;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Feeds every byte read through it into a {@link CsvStatsCollector}, so CSV statistics
+ * are collected in the same pass as whatever consumes the stream.
+ */
+public class CsvStatsInputStream extends FilterInputStream {
+
+    private final CsvStatsCollector collector;
+
+    public CsvStatsInputStream(InputStream in, CsvStatsCollector collector) {
+        super(in);
+        this.collector = collector;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b != -1) {
+            collector.update(new byte[]{(byte) b}, 0, 1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read = super.read(b, off, len);
+        if (read > 0) {
+            collector.update(b, off, read);
+        }
+        return read;
+    }
+
+    /** Skipped bytes are read as well, since the collector must see every byte. */
+    @Override
+    public long skip(long n) throws IOException {
+        byte[] buffer = new byte[(int) Math.min(n, 8192)];
+        long skipped = 0;
+        while (skipped < n) {
+            int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+            if (read < 0) {
+                break;
+            }
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+}
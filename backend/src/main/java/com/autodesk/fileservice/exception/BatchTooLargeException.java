@@ -0,0 +1,13 @@
+package com.autodesk.fileservice.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.PAYLOAD_TOO_LARGE)
+public class BatchTooLargeException extends FileValidationException {
+
+    public static final String MESSAGE = "Batch exceeds the file count limit: ";
+    public BatchTooLargeException(int maxEntries) {
+        super(MESSAGE + maxEntries);
+    }
+}
@@ -0,0 +1,17 @@
+package com.autodesk.fileservice.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidContentException extends FileValidationException {
+
+    public static final String MESSAGE = "File content is not valid gzip data.";
+    public InvalidContentException() {
+        super(MESSAGE);
+    }
+
+    public InvalidContentException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,20 @@
+package com.autodesk.fileservice.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ProcessingRejectedException extends RuntimeException {
+
+    public static final String MESSAGE = "Server is busy, retry later.";
+    private final long retryAfterSeconds;
+
+    public ProcessingRejectedException(long retryAfterSeconds) {
+        super(MESSAGE);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -6,8 +6,12 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 @ResponseStatus(HttpStatus.UNSUPPORTED_MEDIA_TYPE)
 public class UnsupportedMediaTypeException extends FileValidationException {
 
-    public static final String MESSAGE = "Unsupported file type. Only .txt and .csv are allowed.";
+    public static final String MESSAGE = "Unsupported file type. Only .txt and .csv (optionally gzip-compressed as .txt.gz or .csv.gz) are allowed.";
     public UnsupportedMediaTypeException() {
         super(MESSAGE);
     }
+
+    public UnsupportedMediaTypeException(String message) {
+        super(message);
+    }
 }
@@ -0,0 +1,26 @@
+package com.autodesk.fileservice.model;
+
+import java.util.List;
+
+/**
+ * Outcome of a batch upload: one item per file or archive entry, in upload order. Each
+ * item carries either the stored metadata or the reason the file was rejected.
+ */
+public record BatchUploadResult(int total, int succeeded, int failed, List<Item> files) {
+
+    public record Item(String fileName, FileMetadata result, String error) {
+
+        public static Item success(String fileName, FileMetadata result) {
+            return new Item(fileName, result, null);
+        }
+
+        public static Item failure(String fileName, String error) {
+            return new Item(fileName, null, error);
+        }
+    }
+
+    public static BatchUploadResult of(List<Item> files) {
+        int succeeded = (int) files.stream().filter(item -> item.error() == null).count();
+        return new BatchUploadResult(files.size(), succeeded, files.size() - succeeded, files);
+    }
+}
@@ -0,0 +1,11 @@
+package com.autodesk.fileservice.model;
+
+/**
+ * Statistics of one CSV column. Empty fields, and fields missing from short records,
+ * count as nulls. {@code distinctCount} is an estimate over the non-null values;
+ * {@code min} and {@code max} cover the values that parse as numbers and are
+ * {@code null} when there are none.
+ */
+public record CsvColumnStats(int index, String name, long nullCount, long distinctCount,
+                             long numericCount, Double min, Double max) {
+}
@@ -0,0 +1,10 @@
+package com.autodesk.fileservice.model;
+
+import java.util.List;
+
+/**
+ * Per-file CSV statistics. {@code columnCount} is the widest record seen; only the first
+ * {@code file-processing.csv.max-columns} columns are described in {@code columns}.
+ */
+public record CsvStats(long rowCount, int columnCount, List<CsvColumnStats> columns) {
+}
@@ -0,0 +1,49 @@
+package com.autodesk.fileservice.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.LocalDate;
+
+/**
+ * Totals of the files uploaded on one day, in the server's time zone. Rows are upserted
+ * in the same transaction as the uploads they count, so reading a range of days never
+ * scans {@code file_metadata}.
+ */
+@Entity
+@Table(name = "file_daily_stats")
+public class DailyFileStats {
+
+    @Id
+    @Column(name = "day")
+    private LocalDate day;
+
+    @Column(name = "file_count", nullable = false)
+    private long fileCount;
+
+    @Column(name = "line_count", nullable = false)
+    private long lineCount;
+
+    @Column(name = "word_count", nullable = false)
+    private long wordCount;
+
+    public DailyFileStats() {}
+
+    public DailyFileStats(LocalDate day, long fileCount, long lineCount, long wordCount) {
+        this.day = day;
+        this.fileCount = fileCount;
+        this.lineCount = lineCount;
+        this.wordCount = wordCount;
+    }
+
+    public LocalDate getDay() { return day; }
+    public void setDay(LocalDate day) { this.day = day; }
+    public long getFileCount() { return fileCount; }
+    public void setFileCount(long fileCount) { this.fileCount = fileCount; }
+    public long getLineCount() { return lineCount; }
+    public void setLineCount(long lineCount) { this.lineCount = lineCount; }
+    public long getWordCount() { return wordCount; }
+    public void setWordCount(long wordCount) { this.wordCount = wordCount; }
+}
@@ -0,0 +1,10 @@
+package com.autodesk.fileservice.model;
+
+import java.util.List;
+
+/**
+ * One page of a keyset listing. {@code nextCursor} is an opaque token for the following
+ * page, or {@code null} when this is the last page.
+ */
+public record FileCursorPage(List<FileMetadata> items, String nextCursor) {
+}
@@ -1,14 +1,22 @@
 package com.autodesk.fileservice.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "file_metadata")
+@Table(name = "file_metadata", indexes = {
+        @Index(name = "idx_file_metadata_content_hash", columnList = "content_hash"),
+        @Index(name = "idx_file_metadata_uploaded_at_id", columnList = "uploaded_at DESC, id DESC")
+})
 public class FileMetadata {
 
+    // Pooled sequence ids let Hibernate assign ids without a round-trip per row, so inserts can be batched.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "file_metadata_id")
+    @SequenceGenerator(name = "file_metadata_id", sequenceName = "file_metadata_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "file_name", nullable = false)
@@ -23,6 +31,20 @@ public class FileMetadata {
     @Column(name = "uploaded_at")
     private LocalDateTime uploadedAt;
 
+    /** Hex-encoded SHA-256 of the uploaded bytes, used to recognise repeated uploads. */
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    /** Per-column statistics, only for CSV uploads. */
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "csv_stats", columnDefinition = "jsonb")
+    private CsvStats csvStats;
+
+    /** Character counts, longest line and word frequency estimates. */
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "text_profile", columnDefinition = "jsonb")
+    private TextProfile textProfile;
+
     public FileMetadata() {}
 
     public FileMetadata(String fileName, long lineCount, long wordCount, LocalDateTime uploadedAt) {
@@ -42,4 +64,10 @@ public class FileMetadata {
     public void setWordCount(long wordCount) { this.wordCount = wordCount; }
     public LocalDateTime getUploadedAt() { return uploadedAt; }
     public void setUploadedAt(LocalDateTime uploadedAt) { this.uploadedAt = uploadedAt; }
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+    public CsvStats getCsvStats() { return csvStats; }
+    public void setCsvStats(CsvStats csvStats) { this.csvStats = csvStats; }
+    public TextProfile getTextProfile() { return textProfile; }
+    public void setTextProfile(TextProfile textProfile) { this.textProfile = textProfile; }
 }
@@ -0,0 +1,10 @@
+package com.autodesk.fileservice.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only projection of a {@link FileMetadata} row for bulk export. Being a plain record,
+ * it is never attached to the persistence context.
+ */
+public record FileMetadataExport(Long id, String fileName, long lineCount, long wordCount, LocalDateTime uploadedAt) {
+}
@@ -0,0 +1,11 @@
+package com.autodesk.fileservice.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Filters of a file search; {@code null} fields do not filter. {@code fileNamePrefix} is
+ * matched literally and case-sensitively; the upload time range includes {@code from}
+ * and excludes {@code to}.
+ */
+public record FileSearchCriteria(String fileNamePrefix, LocalDateTime from, LocalDateTime to) {
+}
@@ -0,0 +1,12 @@
+package com.autodesk.fileservice.model;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Upload totals over the days {@code from} to {@code to}, both inclusive, and the totals of
+ * each day in that range. Days without uploads are omitted from {@code days}.
+ */
+public record FileStatsSummary(LocalDate from, LocalDate to, long fileCount, long lineCount, long wordCount,
+                               List<DailyFileStats> days) {
+}
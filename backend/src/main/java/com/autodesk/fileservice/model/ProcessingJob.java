@@ -0,0 +1,57 @@
+package com.autodesk.fileservice.model;
+
+import java.time.Instant;
+
+/**
+ * State of an upload accepted for asynchronous processing. Jobs live in memory on the
+ * instance that accepted them.
+ */
+public class ProcessingJob {
+
+    public enum Status { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    private final String id;
+    private final String fileName;
+    private final Instant submittedAt;
+    private volatile Status status = Status.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile FileMetadata result;
+    private volatile String error;
+
+    public ProcessingJob(String id, String fileName, Instant submittedAt) {
+        this.id = id;
+        this.fileName = fileName;
+        this.submittedAt = submittedAt;
+    }
+
+    public void markRunning(Instant now) {
+        this.startedAt = now;
+        this.status = Status.RUNNING;
+    }
+
+    public void complete(FileMetadata result, Instant now) {
+        this.result = result;
+        this.finishedAt = now;
+        this.status = Status.COMPLETED;
+    }
+
+    public void fail(String error, Instant now) {
+        this.error = error;
+        this.finishedAt = now;
+        this.status = Status.FAILED;
+    }
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+
+    public String getId() { return id; }
+    public String getFileName() { return fileName; }
+    public Instant getSubmittedAt() { return submittedAt; }
+    public Status getStatus() { return status; }
+    public Instant getStartedAt() { return startedAt; }
+    public Instant getFinishedAt() { return finishedAt; }
+    public FileMetadata getResult() { return result; }
+    public String getError() { return error; }
+}
@@ -0,0 +1,12 @@
+package com.autodesk.fileservice.model;
+
+import java.util.List;
+
+/**
+ * Extended per-file text statistics. {@code charCount} counts UTF-8 code points,
+ * including line terminators; {@code longestLine} excludes them. Words are runs of
+ * non-whitespace bytes; {@code distinctWords} and {@code topWords} are estimates.
+ */
+public record TextProfile(long byteCount, long charCount, long longestLine, long distinctWords,
+                          List<WordCount> topWords) {
+}
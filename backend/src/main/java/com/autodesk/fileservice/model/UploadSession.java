@@ -0,0 +1,11 @@
+package com.autodesk.fileservice.model;
+
+import java.time.Instant;
+
+/**
+ * State of a resumable upload. {@code offset} is the number of bytes received so far,
+ * which is where the next chunk must start; the session is dropped if it sees no chunk
+ * before {@code expiresAt}.
+ */
+public record UploadSession(String id, String fileName, long length, long offset, Instant expiresAt) {
+}
@@ -0,0 +1,8 @@
+package com.autodesk.fileservice.model;
+
+/**
+ * A frequent word and its approximate count. The true count lies between
+ * {@code count - error} and {@code count}.
+ */
+public record WordCount(String word, long count, long error) {
+}
@@ -0,0 +1,32 @@
+package com.autodesk.fileservice.repository;
+
+import com.autodesk.fileservice.model.DailyFileStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailyFileStatsRepository extends JpaRepository<DailyFileStats, LocalDate> {
+
+    List<DailyFileStats> findByDayBetweenOrderByDayAsc(LocalDate from, LocalDate to);
+
+    /**
+     * Adds to the totals of {@code day}, creating its row on the first upload of the day.
+     * Must run inside the transaction that inserts the counted rows.
+     */
+    @Modifying
+    @Query(value = """
+            insert into file_daily_stats (day, file_count, line_count, word_count)
+            values (:day, :files, :lines, :words)
+            on conflict (day) do update set
+              file_count = file_daily_stats.file_count + excluded.file_count,
+              line_count = file_daily_stats.line_count + excluded.line_count,
+              word_count = file_daily_stats.word_count + excluded.word_count""", nativeQuery = true)
+    void add(@Param("day") LocalDate day, @Param("files") long files, @Param("lines") long lines,
+             @Param("words") long words);
+}
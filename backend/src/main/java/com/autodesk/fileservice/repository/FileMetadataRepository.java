@@ -1,9 +1,59 @@
 package com.autodesk.fileservice.repository;
 
+import com.autodesk.fileservice.config.CacheConfig;
 import com.autodesk.fileservice.model.FileMetadata;
+import com.autodesk.fileservice.model.FileMetadataExport;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
-public interface FileMetadataRepository extends JpaRepository<FileMetadata, Long> {
+public interface FileMetadataRepository extends JpaRepository<FileMetadata, Long>, FileMetadataSearch {
+
+    @Cacheable(cacheNames = CacheConfig.CONTENT_HASHES, unless = "#result == null")
+    Optional<FileMetadata> findFirstByContentHashOrderByIdAsc(String contentHash);
+
+    List<FileMetadata> findByContentHashAndFileName(String contentHash, String fileName);
+
+    @Query("""
+            select f from FileMetadata f
+            where f.uploadedAt is not null
+            order by f.uploadedAt desc, f.id desc""")
+    List<FileMetadata> findNewest(Limit limit);
+
+    /**
+     * Rows that sort after {@code (uploadedAt, id)} in newest-first order. The redundant
+     * {@code <=} bound gives the planner a range on the leading index column.
+     */
+    @Query("""
+            select f from FileMetadata f
+            where f.uploadedAt <= :uploadedAt
+              and (f.uploadedAt < :uploadedAt or f.id < :id)
+            order by f.uploadedAt desc, f.id desc""")
+    List<FileMetadata> findOlderThan(@Param("uploadedAt") LocalDateTime uploadedAt, @Param("id") long id, Limit limit);
+
+    /**
+     * Streams all rows as detached projections. Must be consumed inside a transaction and
+     * closed afterwards; rows are fetched from a server-side cursor in chunks.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            select new com.autodesk.fileservice.model.FileMetadataExport(f.id, f.fileName, f.lineCount, f.wordCount, f.uploadedAt)
+            from FileMetadata f
+            order by f.id""")
+    Stream<FileMetadataExport> streamAllForExport();
 }
@@ -0,0 +1,18 @@
+package com.autodesk.fileservice.repository;
+
+import com.autodesk.fileservice.model.FileMetadata;
+import com.autodesk.fileservice.model.FileSearchCriteria;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface FileMetadataSearch {
+
+    /**
+     * Rows matching {@code criteria}, newest first. When {@code afterUploadedAt} is set, only
+     * rows that sort after {@code (afterUploadedAt, afterId)} are returned, as in
+     * {@link FileMetadataRepository#findOlderThan}.
+     */
+    List<FileMetadata> search(FileSearchCriteria criteria, LocalDateTime afterUploadedAt, long afterId, Limit limit);
+}
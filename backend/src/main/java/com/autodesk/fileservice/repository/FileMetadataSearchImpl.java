@@ -0,0 +1,72 @@
+package com.autodesk.fileservice.repository;
+
+import com.autodesk.fileservice.model.FileMetadata;
+import com.autodesk.fileservice.model.FileSearchCriteria;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds only the predicates a search uses, so each combination of filters gets a plain
+ * statement the planner can match to an index: the trigram index on {@code file_name}
+ * for prefixes, {@code (uploaded_at, id)} for time ranges and the keyset order.
+ */
+class FileMetadataSearchImpl implements FileMetadataSearch {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<FileMetadata> search(FileSearchCriteria criteria, LocalDateTime afterUploadedAt, long afterId,
+                                     Limit limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<FileMetadata> query = cb.createQuery(FileMetadata.class);
+        Root<FileMetadata> file = query.from(FileMetadata.class);
+        Path<LocalDateTime> uploadedAt = file.get("uploadedAt");
+        Path<Long> id = file.get("id");
+
+        List<Predicate> where = new ArrayList<>();
+        where.add(cb.isNotNull(uploadedAt));
+        if (criteria.fileNamePrefix() != null && !criteria.fileNamePrefix().isEmpty()) {
+            where.add(cb.like(file.get("fileName"), likePrefix(criteria.fileNamePrefix()), LIKE_ESCAPE));
+        }
+        if (criteria.from() != null) {
+            where.add(cb.greaterThanOrEqualTo(uploadedAt, criteria.from()));
+        }
+        if (criteria.to() != null) {
+            where.add(cb.lessThan(uploadedAt, criteria.to()));
+        }
+        if (afterUploadedAt != null) {
+            where.add(cb.lessThanOrEqualTo(uploadedAt, afterUploadedAt));
+            where.add(cb.or(cb.lessThan(uploadedAt, afterUploadedAt), cb.lessThan(id, afterId)));
+        }
+        query.where(where.toArray(Predicate[]::new))
+                .orderBy(cb.desc(uploadedAt), cb.desc(id));
+        return entityManager.createQuery(query)
+                .setMaxResults(limit.max())
+                .getResultList();
+    }
+
+    static String likePrefix(String prefix) {
+        StringBuilder pattern = new StringBuilder(prefix.length() + 2);
+        for (int i = 0; i < prefix.length(); i++) {
+            char c = prefix.charAt(i);
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                pattern.append(LIKE_ESCAPE);
+            }
+            pattern.append(c);
+        }
+        return pattern.append('%').toString();
+    }
+}
@@ -0,0 +1,602 @@
+package com.autodesk.fileservice.resultlog;
+
+import com.autodesk.fileservice.config.FileProcessingProperties;
+import com.autodesk.fileservice.config.FileProcessingProperties.Persistence.Mode;
+import com.autodesk.fileservice.model.FileMetadata;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of metadata rows on the local disk, used in
+ * {@link Mode#LOCAL_LOG LOCAL_LOG} persistence mode. A row is appended before it is sent to
+ * the database and forced to disk before the upload is answered, so it survives both a
+ * database outage and a crash; once the database has it, a marker with its id follows.
+ * Appends are forced as a group: records are written under a lock, and whichever
+ * appender forces next covers every record written before it, so concurrent uploads
+ * share one {@code force} instead of queueing for one each.
+ * <p>
+ * The log is a directory of fixed-size segment files, each mapped into memory; the newest
+ * takes appends until it is full. Every record is framed as
+ * <pre>
+ * int length | int crc32c | byte type | long sequence | [long id] | [row as JSON]
+ * </pre>
+ * where {@code length} and the checksum cover everything after the checksum. A zero length
+ * marks the end of a segment, since new segment files read as zeros.
+ * <p>
+ * Opening the log reads every segment to rebuild the index. A record that is cut short or
+ * fails its checksum ends the readable part of its segment; in the newest segment that is
+ * the tail of an interrupted append, which is zeroed so appends continue after the last
+ * good record. Rows found without a marker are handed out again as
+ * {@linkplain Pending#recovered() recovered}: the database may have committed them just
+ * before the crash.
+ * <p>
+ * The newest {@code retained-rows} rows that reached the database stay indexed by id and
+ * content hash, so recent lookups are answered without a round-trip, also while the
+ * database is down. Compaction reclaims the oldest segment once less than half of it is
+ * still needed: rows still pending or retained are copied to the newest segment and the
+ * file is deleted. Compaction runs when {@link #compact()} is called, off the append path.
+ * Only the oldest segment is ever deleted, so a marker never outlives
+ * the row it refers to.
+ * <p>
+ * When another persistence mode is configured the log opens no files and finds nothing.
+ */
+@Component
+public final class ResultLog {
+    private static final Logger log = LoggerFactory.getLogger(ResultLog.class);
+
+    private static final byte PENDING = 1;
+    private static final byte STORED = 2;
+    private static final byte REPLAYED = 3;
+
+    /** Length and checksum ahead of every record. */
+    private static final int HEADER = 2 * Integer.BYTES;
+    /** Type and sequence number at the start of every record body. */
+    private static final int BODY_PREFIX = 1 + Long.BYTES;
+    private static final int MIN_SEGMENT_SIZE = 64 * 1024;
+    private static final byte[] NO_ROW = new byte[0];
+
+    /** A row that has not reached the database yet. */
+    public record Pending(long sequence, FileMetadata row, boolean recovered) {}
+
+    private final FileProcessingProperties.Persistence.Log settings;
+    private final boolean enabled;
+    private final int segmentSize;
+    private final ObjectMapper mapper = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    /** Oldest first; the last one takes appends. */
+    private final List<Segment> segments = new ArrayList<>();
+    /** Guards the segments, the index and the closed flag. */
+    private final ReentrantLock lock = new ReentrantLock();
+    /**
+     * Held by whoever forces segments: the appender forcing for a group, whose fellow
+     * appenders wait on it and usually find their record forced, and compaction and close.
+     * Taken before {@link #lock}, never while holding it.
+     */
+    private final ReentrantLock forceLock = new ReentrantLock();
+    private final NavigableMap<Long, Entry> pending = new TreeMap<>();
+    /** Rows in the database that are still indexed, in the order they got there. */
+    private final ArrayDeque<Entry> retained = new ArrayDeque<>();
+    private final Map<Long, Entry> byId = new HashMap<>();
+    private final Map<String, Entry> byHash = new HashMap<>();
+    private final AtomicLong nextSequence = new AtomicLong(1);
+    private boolean closed;
+
+    public ResultLog(FileProcessingProperties properties, MeterRegistry meterRegistry) {
+        this.settings = properties.getPersistence().getLog();
+        this.enabled = properties.getPersistence().getMode() == Mode.LOCAL_LOG;
+        long size = settings.getSegmentSize().toBytes();
+        if (size < MIN_SEGMENT_SIZE || size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Result log segment size must be between 64KB and 2GB");
+        }
+        this.segmentSize = (int) size;
+
+        Gauge.builder("file.metadata.log.pending", this, ResultLog::pendingCount)
+                .description("Rows in the local result log that have not reached the database")
+                .register(meterRegistry);
+        Gauge.builder("file.metadata.log.segments", this, ResultLog::segmentCount)
+                .description("Segment files of the local result log")
+                .register(meterRegistry);
+
+        if (enabled) {
+            try {
+                open();
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Cannot open the result log in " + settings.getDirectory(), ex);
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Appends {@code row}, which has no id yet, and forces it to disk.
+     *
+     * @return the sequence number that identifies the row until it is {@linkplain #stored stored}
+     */
+    public long append(FileMetadata row) {
+        long sequence = nextSequence();
+        append(sequence, row);
+        return sequence;
+    }
+
+    /**
+     * Hands out the sequence number for a row about to be {@linkplain #append(long, FileMetadata)
+     * appended}, so that the caller can register it before the row can be replayed.
+     */
+    public long nextSequence() {
+        return nextSequence.getAndIncrement();
+    }
+
+    /** Appends {@code row} as {@code sequence}, from {@link #nextSequence()}, and forces it to disk. */
+    public void append(long sequence, FileMetadata row) {
+        byte[] json = toJson(row);
+        Segment segment;
+        int end;
+        lock.lock();
+        try {
+            checkOpen();
+            Entry entry = new Entry(sequence, row.getContentHash());
+            segment = reserve(HEADER + BODY_PREFIX + json.length);
+            place(entry, segment, put(segment, PENDING, sequence, 0, json));
+            pending.put(sequence, entry);
+            end = segment.position;
+        } finally {
+            lock.unlock();
+        }
+        force(segment, end);
+    }
+
+    /**
+     * Forces {@code segment} up to at least {@code end}. Records are complete up to the
+     * position read here, so one force covers every append that came before it.
+     */
+    private void force(Segment segment, int end) {
+        forceLock.lock();
+        try {
+            if (segment.forced >= end) {
+                return;
+            }
+            int upTo;
+            lock.lock();
+            try {
+                upTo = segment.position;
+            } finally {
+                lock.unlock();
+            }
+            segment.buffer.force(segment.forced, upTo - segment.forced);
+            segment.forced = upTo;
+        } finally {
+            forceLock.unlock();
+        }
+    }
+
+    /** Up to {@code max} rows that have not reached the database, oldest first. */
+    public List<Pending> pending(int max) {
+        List<Entry> entries = new ArrayList<>(max);
+        List<byte[]> rows = new ArrayList<>(max);
+        lock.lock();
+        try {
+            for (Entry entry : pending.values()) {
+                if (entries.size() == max) {
+                    break;
+                }
+                entries.add(entry);
+                rows.add(readRow(entry));
+            }
+        } finally {
+            lock.unlock();
+        }
+        List<Pending> result = new ArrayList<>(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            result.add(new Pending(entry.sequence, fromJson(rows.get(i)), entry.recovered));
+        }
+        return result;
+    }
+
+    /**
+     * Records that the row appended as {@code sequence} is in the database as {@code id}.
+     * The row stops being pending before the marker is written, so it is not handed out
+     * again even if writing the marker fails. The marker is not forced: if it is lost, the
+     * row comes back as recovered.
+     */
+    public void stored(long sequence, long id) {
+        lock.lock();
+        try {
+            Entry entry = pending.remove(sequence);
+            if (entry == null || closed) {
+                return;
+            }
+            entry.id = id;
+            retain(entry);
+            Segment segment = reserve(HEADER + BODY_PREFIX + Long.BYTES);
+            put(segment, REPLAYED, sequence, id, NO_ROW);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Optional<FileMetadata> findById(long id) {
+        byte[] row;
+        lock.lock();
+        try {
+            Entry entry = byId.get(id);
+            if (entry == null) {
+                return Optional.empty();
+            }
+            row = readRow(entry);
+        } finally {
+            lock.unlock();
+        }
+        FileMetadata meta = fromJson(row);
+        meta.setId(id);
+        return Optional.of(meta);
+    }
+
+    /** The oldest retained row with this content hash, if any. */
+    public Optional<FileMetadata> findByContentHash(String contentHash) {
+        Entry entry;
+        byte[] row;
+        lock.lock();
+        try {
+            entry = byHash.get(contentHash);
+            if (entry == null) {
+                return Optional.empty();
+            }
+            row = readRow(entry);
+        } finally {
+            lock.unlock();
+        }
+        FileMetadata meta = fromJson(row);
+        meta.setId(entry.id);
+        return Optional.of(meta);
+    }
+
+    public int pendingCount() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int segmentCount() {
+        lock.lock();
+        try {
+            return segments.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reclaims the oldest segments while less than half of each is still needed. Copies
+     * are forced before the old file is deleted, so a crash in between leaves both, and
+     * recovery keeps the later copy. Appends wait while segments are copied, so this is
+     * meant for the thread that replays the log, not for uploads.
+     */
+    public void compact() {
+        forceLock.lock();
+        lock.lock();
+        try {
+            if (!closed) {
+                compactSegments();
+            }
+        } finally {
+            lock.unlock();
+            forceLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        forceLock.lock();
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (Segment segment : segments) {
+                forceAll(segment);
+            }
+        } finally {
+            lock.unlock();
+            forceLock.unlock();
+        }
+    }
+
+    private void open() throws IOException {
+        Path directory = settings.getDirectory();
+        Files.createDirectories(directory);
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.filter(Segment::isSegment).sorted(Comparator.comparingLong(Segment::numberOf)).toList();
+        }
+        Map<Long, Entry> entries = new HashMap<>();
+        for (int i = 0; i < files.size(); i++) {
+            Segment segment = Segment.open(files.get(i));
+            segments.add(segment);
+            recover(segment, entries, i == files.size() - 1);
+        }
+
+        List<Entry> stored = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            entry.segment.liveBytes += entry.size;
+            if (entry.id == 0) {
+                entry.recovered = true;
+                pending.put(entry.sequence, entry);
+            } else {
+                stored.add(entry);
+            }
+        }
+        stored.sort(Comparator.comparingLong(entry -> entry.sequence));
+        for (Entry entry : stored.subList(0, Math.max(0, stored.size() - settings.getRetainedRows()))) {
+            entry.segment.liveBytes -= entry.size;
+        }
+        for (Entry entry : stored.subList(Math.max(0, stored.size() - settings.getRetainedRows()), stored.size())) {
+            entry.contentHash = fromJson(readRow(entry)).getContentHash();
+            retain(entry);
+        }
+        compactSegments();
+        log.info("Opened result log in {}: {} segments, {} rows pending, {} rows retained",
+                directory, segments.size(), pending.size(), retained.size());
+    }
+
+    /** Reads the records of {@code segment} into {@code entries}, up to the first damaged one. */
+    private void recover(Segment segment, Map<Long, Entry> entries, boolean newest) {
+        MappedByteBuffer buffer = segment.buffer;
+        int position = 0;
+        while (position + HEADER <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length == 0) {
+                break;
+            }
+            int body = position + HEADER;
+            if (length < BODY_PREFIX || length > buffer.capacity() - body
+                    || buffer.getInt(position + Integer.BYTES) != checksum(buffer, body, length)) {
+                damaged(segment, position, newest);
+                return;
+            }
+            byte type = buffer.get(body);
+            long sequence = buffer.getLong(body + 1);
+            nextSequence.accumulateAndGet(sequence + 1, Math::max);
+            switch (type) {
+                case PENDING -> recovered(entries, sequence, segment, position, 0);
+                case STORED -> recovered(entries, sequence, segment, position, buffer.getLong(body + BODY_PREFIX));
+                case REPLAYED -> {
+                    Entry entry = entries.get(sequence);
+                    if (entry != null && entry.id == 0) {
+                        entry.id = buffer.getLong(body + BODY_PREFIX);
+                    }
+                }
+                default -> {
+                    damaged(segment, position, newest);
+                    return;
+                }
+            }
+            position = body + length;
+        }
+        segment.position = position;
+        segment.forced = position;
+    }
+
+    /** A row record found during recovery; a later copy, left by compaction, replaces an earlier one. */
+    private static void recovered(Map<Long, Entry> entries, long sequence, Segment segment, int offset, long id) {
+        Entry entry = entries.computeIfAbsent(sequence, key -> new Entry(key, null));
+        entry.segment = segment;
+        entry.offset = offset;
+        entry.size = HEADER + segment.buffer.getInt(offset);
+        if (id != 0) {
+            entry.id = id;
+        }
+    }
+
+    private void damaged(Segment segment, int position, boolean newest) {
+        if (newest) {
+            log.warn("Discarding the damaged tail of {} from offset {}, left by an interrupted append", segment.path, position);
+            byte[] zeros = new byte[8192];
+            for (int at = position; at < segment.capacity(); at += zeros.length) {
+                segment.buffer.put(at, zeros, 0, Math.min(zeros.length, segment.capacity() - at));
+            }
+            segment.buffer.force();
+            segment.position = position;
+            segment.forced = position;
+        } else {
+            log.warn("Skipping the unreadable rest of {} from offset {}", segment.path, position);
+            segment.position = segment.capacity();
+            segment.forced = segment.capacity();
+        }
+    }
+
+    /** The segment to append {@code size} bytes to, starting a new one if the newest is full. */
+    private Segment reserve(int size) {
+        if (size > segmentSize) {
+            throw new IllegalArgumentException("A row of " + size + " bytes does not fit in a result log segment");
+        }
+        Segment newest = segments.isEmpty() ? null : segments.getLast();
+        if (newest != null && newest.remaining() >= size) {
+            return newest;
+        }
+        long number = newest == null ? 1 : newest.number + 1;
+        try {
+            Segment segment = Segment.create(settings.getDirectory(), number, segmentSize);
+            segments.add(segment);
+            return segment;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot create a result log segment in " + settings.getDirectory(), ex);
+        }
+    }
+
+    /** Writes one record at the end of {@code segment}, without forcing it, and returns its offset. */
+    private static int put(Segment segment, byte type, long sequence, long id, byte[] json) {
+        MappedByteBuffer buffer = segment.buffer;
+        int offset = segment.position;
+        int body = offset + HEADER;
+        int length = BODY_PREFIX + (type == PENDING ? 0 : Long.BYTES) + json.length;
+        buffer.put(body, type);
+        buffer.putLong(body + 1, sequence);
+        int at = body + BODY_PREFIX;
+        if (type != PENDING) {
+            buffer.putLong(at, id);
+            at += Long.BYTES;
+        }
+        buffer.put(at, json);
+        buffer.putInt(offset + Integer.BYTES, checksum(buffer, body, length));
+        buffer.putInt(offset, length);
+        segment.position = body + length;
+        return offset;
+    }
+
+    private static int checksum(MappedByteBuffer buffer, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+
+    private static void place(Entry entry, Segment segment, int offset) {
+        entry.segment = segment;
+        entry.offset = offset;
+        entry.size = HEADER + segment.buffer.getInt(offset);
+        segment.liveBytes += entry.size;
+    }
+
+    /** Indexes a row that is in the database, dropping the oldest one beyond the retention. */
+    private void retain(Entry entry) {
+        retained.addLast(entry);
+        byId.put(entry.id, entry);
+        if (entry.contentHash != null) {
+            byHash.putIfAbsent(entry.contentHash, entry);
+        }
+        while (retained.size() > settings.getRetainedRows()) {
+            Entry dropped = retained.removeFirst();
+            byId.remove(dropped.id, dropped);
+            if (dropped.contentHash != null) {
+                byHash.remove(dropped.contentHash, dropped);
+            }
+            dropped.segment.liveBytes -= dropped.size;
+        }
+    }
+
+    private void compactSegments() {
+        while (segments.size() > 1 && segments.getFirst().liveBytes * 2 <= segments.getFirst().position) {
+            Segment oldest = segments.getFirst();
+            if (oldest.liveBytes > 0) {
+                relocate(oldest);
+            }
+            segments.removeFirst();
+            try {
+                oldest.delete();
+            } catch (IOException ex) {
+                log.warn("Cannot delete compacted result log segment {}", oldest.path, ex);
+            }
+        }
+    }
+
+    private void relocate(Segment from) {
+        List<Entry> moving = new ArrayList<>();
+        pending.values().stream().filter(entry -> entry.segment == from).forEach(moving::add);
+        retained.stream().filter(entry -> entry.segment == from).forEach(moving::add);
+        List<Segment> written = new ArrayList<>();
+        for (Entry entry : moving) {
+            byte[] json = readRow(entry);
+            byte type = entry.id == 0 ? PENDING : STORED;
+            Segment segment = reserve(HEADER + BODY_PREFIX + (type == PENDING ? 0 : Long.BYTES) + json.length);
+            from.liveBytes -= entry.size;
+            place(entry, segment, put(segment, type, entry.sequence, entry.id, json));
+            if (!written.contains(segment)) {
+                written.add(segment);
+            }
+        }
+        written.forEach(ResultLog::forceAll);
+    }
+
+    /** Forces everything written to {@code segment}; the caller holds both locks or is opening the log. */
+    private static void forceAll(Segment segment) {
+        segment.buffer.force();
+        segment.forced = segment.position;
+    }
+
+    private static byte[] readRow(Entry entry) {
+        MappedByteBuffer buffer = entry.segment.buffer;
+        int body = entry.offset + HEADER;
+        int from = body + BODY_PREFIX + (buffer.get(body) == PENDING ? 0 : Long.BYTES);
+        byte[] json = new byte[entry.offset + entry.size - from];
+        buffer.get(from, json);
+        return json;
+    }
+
+    private byte[] toJson(FileMetadata row) {
+        try {
+            return mapper.writeValueAsBytes(row);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private FileMetadata fromJson(byte[] json) {
+        try {
+            return mapper.readValue(json, FileMetadata.class);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void checkOpen() {
+        if (!enabled || closed) {
+            throw new IllegalStateException("Result log is not open");
+        }
+    }
+
+    /** Where the latest copy of a row is, and whether it has reached the database. */
+    private static final class Entry {
+        final long sequence;
+        String contentHash;
+        Segment segment;
+        int offset;
+        int size;
+        /** Database id, 0 while pending. */
+        long id;
+        boolean recovered;
+
+        Entry(long sequence, String contentHash) {
+            this.sequence = sequence;
+            this.contentHash = contentHash;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.autodesk.fileservice.service;
+
+import com.autodesk.fileservice.config.FileProcessingProperties;
+import com.autodesk.fileservice.exception.FileValidationException;
+import com.autodesk.fileservice.exception.ProcessingRejectedException;
+import com.autodesk.fileservice.model.FileMetadata;
+import com.autodesk.fileservice.model.ProcessingJob;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accepts uploads for background processing so request threads are released as soon
+ * as the upload has been validated and spooled to a temp file. Work runs on a bounded
+ * pool with a bounded queue; when the queue is full, submissions are rejected rather
+ * than piling up.
+ */
+@Service
+public class AsyncProcessingService {
+    private static final Logger log = LoggerFactory.getLogger(AsyncProcessingService.class);
+
+    private final FileProcessingService processingService;
+    private final FileProcessingProperties.Async settings;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, ProcessingJob> jobs = new ConcurrentHashMap<>();
+    private final Timer queueWait;
+    private final Counter rejections;
+
+    public AsyncProcessingService(FileProcessingService processingService, FileProcessingProperties properties,
+                                  MeterRegistry meterRegistry, Environment environment) {
+        this.processingService = processingService;
+        this.settings = properties.getAsync();
+        // With virtual threads the pool size only caps concurrency; workers no longer hold platform threads
+        // while they block on file I/O or the database.
+        ThreadFactory threadFactory = Threading.VIRTUAL.isActive(environment)
+                ? Thread.ofVirtual().name("file-job-", 1).factory()
+                : new CustomizableThreadFactory("file-job-");
+        this.executor = new ThreadPoolExecutor(settings.getWorkers(), settings.getWorkers(), 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(settings.getQueueCapacity()), threadFactory);
+
+        Gauge.builder("file.processing.queue.depth", executor, e -> e.getQueue().size())
+                .description("Uploads waiting for a processing worker")
+                .register(meterRegistry);
+        Gauge.builder("file.processing.queue.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Uploads currently being processed in the background")
+                .register(meterRegistry);
+        this.queueWait = Timer.builder("file.processing.queue.wait")
+                .description("Time uploads spend queued before a worker picks them up")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.rejections = Counter.builder("file.processing.queue.rejected")
+                .description("Uploads rejected because the processing queue was full")
+                .register(meterRegistry);
+    }
+
+    public ProcessingJob submit(MultipartFile file) {
+        Objects.requireNonNull(file, "file must not be null");
+
+        String filename = file.getOriginalFilename();
+        processingService.validate(filename, file.getSize());
+        if (executor.getQueue().remainingCapacity() == 0) {
+            throw reject();
+        }
+
+        Path spooled = spool(file);
+        ProcessingJob job = new ProcessingJob(UUID.randomUUID().toString(), filename, Instant.now());
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> run(job, spooled));
+        } catch (RejectedExecutionException ex) {
+            jobs.remove(job.getId());
+            deleteQuietly(spooled);
+            throw reject();
+        }
+        log.info("Queued file: {} as job: {}", filename, job.getId());
+        return job;
+    }
+
+    public Optional<ProcessingJob> findJob(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void evictFinishedJobs() {
+        Instant cutoff = Instant.now().minus(settings.getJobRetention());
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(cutoff));
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Processing queue did not drain before shutdown; {} jobs dropped", executor.shutdownNow().size());
+        }
+    }
+
+    private void run(ProcessingJob job, Path spooled) {
+        Instant started = Instant.now();
+        queueWait.record(Duration.between(job.getSubmittedAt(), started));
+        job.markRunning(started);
+        try {
+            FileMetadata result = processingService.processValidated(job.getFileName(), spooled);
+            job.complete(result, Instant.now());
+        } catch (FileValidationException ex) {
+            job.fail(ex.getMessage(), Instant.now());
+        } catch (RuntimeException ex) {
+            log.error("Job {} failed for file: {}", job.getId(), job.getFileName(), ex);
+            job.fail("Failed to process file", Instant.now());
+        } finally {
+            deleteQuietly(spooled);
+        }
+    }
+
+    /**
+     * The multipart temp file is removed when the request completes, so the content is
+     * moved (or, for in-memory parts, written) to a file owned by the job.
+     */
+    private Path spool(MultipartFile file) {
+        Path temp = null;
+        try {
+            temp = Files.createTempFile("job-", ".tmp");
+            file.transferTo(temp.toFile());
+            return temp;
+        } catch (IOException ex) {
+            deleteQuietly(temp);
+            log.error("Error while spooling file: {}", file.getOriginalFilename(), ex);
+            throw new RuntimeException("Failed to process file");
+        }
+    }
+
+    private ProcessingRejectedException reject() {
+        rejections.increment();
+        return new ProcessingRejectedException(settings.getRetryAfter().toSeconds());
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) return;
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ex) {
+            log.warn("Could not delete temp file: {}", path, ex);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.autodesk.fileservice.service;
+
+import com.autodesk.fileservice.config.FileProcessingProperties;
+import com.autodesk.fileservice.exception.BatchTooLargeException;
+import com.autodesk.fileservice.exception.FileValidationException;
+import com.autodesk.fileservice.model.BatchUploadResult;
+import com.autodesk.fileservice.model.FileMetadata;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Processes many files from one request: plain .txt/.csv parts as well as the .txt/.csv
+ * entries of .zip archives. Files are counted concurrently on a bounded pool and all new
+ * records are inserted together in one transaction. A file that fails validation or
+ * counting is reported in the result without affecting the others.
+ */
+@Service
+public class BatchUploadService {
+    private static final Logger log = LoggerFactory.getLogger(BatchUploadService.class);
+
+    private final FileProcessingService processingService;
+    private final FileMetadataWriter writer;
+    private final FileProcessingProperties.Batch settings;
+    private final ThreadPoolExecutor executor;
+
+    public BatchUploadService(FileProcessingService processingService, FileMetadataWriter writer,
+                              FileProcessingProperties properties) {
+        this.processingService = processingService;
+        this.writer = writer;
+        this.settings = properties.getBatch();
+        int workers = settings.getWorkers() > 0 ? settings.getWorkers() : Runtime.getRuntime().availableProcessors();
+        // Counting is CPU-bound, so the pool stays small; when its queue is full the request
+        // thread counts the file itself, which throttles the producer instead of failing.
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(settings.getQueueCapacity()), new CustomizableThreadFactory("file-batch-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    public BatchUploadResult process(List<MultipartFile> files) {
+        List<Path> spooled = new ArrayList<>();
+        List<ZipFile> archives = new ArrayList<>();
+        try {
+            List<Entry> entries = collectEntries(files, spooled, archives);
+            log.info("Starting batch processing for {} files", entries.size());
+
+            List<CompletableFuture<Outcome>> futures = entries.stream()
+                    .map(entry -> CompletableFuture.supplyAsync(() -> analyze(entry), executor))
+                    .toList();
+            List<Outcome> outcomes = futures.stream().map(CompletableFuture::join).toList();
+
+            List<FileMetadata> unsaved = outcomes.stream()
+                    .filter(Outcome::isNew)
+                    .map(Outcome::meta)
+                    .toList();
+            Iterator<FileMetadata> saved = writer.writeAll(unsaved).iterator();
+
+            List<BatchUploadResult.Item> items = outcomes.stream()
+                    .map(outcome -> outcome.error() != null
+                            ? BatchUploadResult.Item.failure(outcome.fileName(), outcome.error())
+                            : BatchUploadResult.Item.success(outcome.fileName(), outcome.isNew() ? saved.next() : outcome.meta()))
+                    .toList();
+            BatchUploadResult result = BatchUploadResult.of(items);
+            log.info("Completed batch processing -> files: {}, stored: {}, failed: {}",
+                    result.total(), unsaved.size(), result.failed());
+            return result;
+        } finally {
+            archives.forEach(this::closeQuietly);
+            spooled.forEach(this::deleteQuietly);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private List<Entry> collectEntries(List<MultipartFile> files, List<Path> spooled, List<ZipFile> archives) {
+        List<Entry> entries = new ArrayList<>();
+        for (MultipartFile file : files) {
+            String name = file.getOriginalFilename();
+            if (name != null && name.toLowerCase(Locale.ROOT).endsWith(".zip")) {
+                addArchiveEntries(name, file, entries, spooled, archives);
+            } else {
+                entries.add(new Entry(name, file.getSize(), file, null));
+            }
+            if (entries.size() > settings.getMaxEntries()) {
+                throw new BatchTooLargeException(settings.getMaxEntries());
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Spools the archive to a temp file (a rename when the container already did) so its
+     * entries can be read concurrently through {@link ZipFile}.
+     */
+    private void addArchiveEntries(String name, MultipartFile file, List<Entry> entries,
+                                   List<Path> spooled, List<ZipFile> archives) {
+        ZipFile zip;
+        try {
+            Path temp = Files.createTempFile("batch-", ".zip");
+            spooled.add(temp);
+            file.transferTo(temp.toFile());
+            zip = new ZipFile(temp.toFile());
+            archives.add(zip);
+        } catch (IOException ex) {
+            log.warn("Could not open archive: {}", name, ex);
+            entries.add(new Entry(name, file.getSize(), null, "Invalid zip archive"));
+            return;
+        }
+        zip.stream()
+                .filter(entry -> !entry.isDirectory() && !entry.getName().startsWith("__MACOSX/"))
+                .forEach(entry -> entries.add(new Entry(entry.getName(), entry.getSize(), () -> zip.getInputStream(entry), null)));
+    }
+
+    private Outcome analyze(Entry entry) {
+        if (entry.error() != null) {
+            return new Outcome(entry.name(), null, entry.error());
+        }
+        try (InputStream in = entry.source().getInputStream()) {
+            return new Outcome(entry.name(), processingService.analyze(entry.name(), in, entry.size()), null);
+        } catch (FileValidationException ex) {
+            return new Outcome(entry.name(), null, ex.getMessage());
+        } catch (IOException | RuntimeException ex) {
+            log.error("Error while processing file: {}", entry.name(), ex);
+            return new Outcome(entry.name(), null, "Failed to process file");
+        }
+    }
+
+    private void closeQuietly(ZipFile zip) {
+        try {
+            zip.close();
+        } catch (IOException ex) {
+            log.warn("Could not close archive: {}", zip.getName(), ex);
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            log.warn("Could not delete spooled archive: {}", file, ex);
+        }
+    }
+
+    /** A file to process; {@code error} is set when it was rejected before counting. */
+    private record Entry(String name, long size, InputStreamSource source, String error) {
+    }
+
+    private record Outcome(String fileName, FileMetadata meta, String error) {
+        boolean isNew() {
+            return meta != null && meta.getId() == null;
+        }
+    }
+}
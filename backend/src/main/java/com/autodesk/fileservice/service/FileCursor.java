@@ -0,0 +1,39 @@
+package com.autodesk.fileservice.service;
+
+import com.autodesk.fileservice.exception.InvalidPageRequestException;
+import com.autodesk.fileservice.model.FileMetadata;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position after the last row of a keyset page: its {@code (uploaded_at, id)} pair,
+ * encoded as URL-safe base64 so clients treat it as opaque.
+ */
+record FileCursor(LocalDateTime uploadedAt, long id) {
+
+    static FileCursor after(FileMetadata last) {
+        return new FileCursor(last.getUploadedAt(), last.getId());
+    }
+
+    String encode() {
+        String raw = uploadedAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static FileCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            if (separator < 0) {
+                throw new InvalidPageRequestException("Invalid cursor");
+            }
+            return new FileCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException ex) {
+            throw new InvalidPageRequestException("Invalid cursor");
+        }
+    }
+}
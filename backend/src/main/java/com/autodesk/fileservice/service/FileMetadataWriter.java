@@ -0,0 +1,385 @@
+package com.autodesk.fileservice.service;
+
+import com.autodesk.fileservice.config.CacheConfig;
+import com.autodesk.fileservice.config.FileProcessingProperties;
+import com.autodesk.fileservice.config.FileProcessingProperties.Persistence.Mode;
+import com.autodesk.fileservice.exception.ProcessingRejectedException;
+import com.autodesk.fileservice.model.FileMetadata;
+import com.autodesk.fileservice.repository.DailyFileStatsRepository;
+import com.autodesk.fileservice.repository.FileMetadataRepository;
+import com.autodesk.fileservice.resultlog.ResultLog;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Persists {@link FileMetadata} rows. Outside {@link Mode#SYNC} mode, rows from concurrent
+ * uploads are collected by a single writer thread and inserted together, one transaction
+ * and one JDBC batch per flush, when either the batch is full or {@code max-delay} has
+ * passed since its first row.
+ * <p>
+ * Every committed insert evicts the cached list pages, since a new row shifts all of them.
+ * The daily totals in {@code file_daily_stats} are updated in the same transaction as the
+ * inserts, with one upsert per day in each batch.
+ * <p>
+ * In {@link Mode#LOCAL_LOG} mode the queue is the {@link ResultLog}: a row is appended to
+ * it and forced to disk first, and the writer thread replays the log to the database in
+ * batches, retrying until the database takes them. A recovered row whose content hash,
+ * file name and upload time match a stored row is taken to have been committed before a
+ * crash and is not inserted again; rows without a content hash are inserted at least once.
+ */
+@Service
+public class FileMetadataWriter {
+    private static final Logger log = LoggerFactory.getLogger(FileMetadataWriter.class);
+
+    private final FileMetadataRepository repository;
+    private final DailyFileStatsRepository dailyStats;
+    private final TransactionTemplate transactionTemplate;
+    private final FileProcessingProperties.Persistence settings;
+    private final BlockingQueue<PendingWrite> queue;
+    private final Thread flusher;
+    private final Timer flushTimer;
+    private final DistributionSummary batchSizes;
+    private final Counter failedRows;
+    private final Cache filePages;
+    private final ResultLog resultLog;
+    private final Semaphore appended = new Semaphore(0);
+    /** Callers waiting for their logged row to be replayed, by log sequence number. */
+    private final Map<Long, CompletableFuture<FileMetadata>> replays = new ConcurrentHashMap<>();
+    private final Counter failedReplays;
+    private volatile boolean running = true;
+
+    public FileMetadataWriter(FileMetadataRepository repository, DailyFileStatsRepository dailyStats,
+                              PlatformTransactionManager transactionManager, FileProcessingProperties properties,
+                              MeterRegistry meterRegistry, CacheManager cacheManager, ResultLog resultLog) {
+        this.repository = repository;
+        this.dailyStats = dailyStats;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.settings = properties.getPersistence();
+        this.queue = new ArrayBlockingQueue<>(settings.getQueueCapacity());
+        this.filePages = cacheManager.getCache(CacheConfig.FILE_PAGES);
+        this.resultLog = resultLog;
+
+        Gauge.builder("file.metadata.pending", queue, BlockingQueue::size)
+                .description("Metadata rows waiting to be flushed")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("file.metadata.flush")
+                .description("Time to insert and commit one batch of metadata rows")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("file.metadata.batch.size")
+                .description("Metadata rows per flushed batch")
+                .register(meterRegistry);
+        this.failedRows = Counter.builder("file.metadata.failed")
+                .description("Metadata rows that could not be persisted")
+                .register(meterRegistry);
+        this.failedReplays = Counter.builder("file.metadata.replay.failed")
+                .description("Batches from the result log the database did not take; they are retried")
+                .register(meterRegistry);
+
+        if (settings.getMode() == Mode.SYNC) {
+            this.flusher = null;
+        } else if (settings.getMode() == Mode.LOCAL_LOG) {
+            this.flusher = new Thread(this::replayLoop, "metadata-replayer");
+            this.flusher.start();
+        } else {
+            this.flusher = new Thread(this::flushLoop, "metadata-writer");
+            this.flusher.start();
+        }
+    }
+
+    /**
+     * Persists {@code meta} according to the configured mode. In {@link Mode#ASYNC} mode the
+     * row is only queued and the returned entity has no id yet; in {@link Mode#LOCAL_LOG}
+     * mode the same holds when the database does not take it within {@code log.max-wait}.
+     */
+    public FileMetadata write(FileMetadata meta) {
+        if (settings.getMode() == Mode.LOCAL_LOG) {
+            return writeThroughLog(meta);
+        }
+        if (settings.getMode() == Mode.SYNC) {
+            FileMetadata saved = transactionTemplate.execute(status -> {
+                FileMetadata row = repository.save(meta);
+                addToDailyStats(List.of(meta));
+                return row;
+            });
+            evictPages();
+            return saved;
+        }
+
+        PendingWrite pending = new PendingWrite(meta);
+        if (!running || !queue.offer(pending)) {
+            throw new ProcessingRejectedException(1);
+        }
+        if (settings.getMode() == Mode.ASYNC) {
+            return meta;
+        }
+        try {
+            return pending.result.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for metadata to be persisted", ex);
+        } catch (ExecutionException ex) {
+            throw ex.getCause() instanceof RuntimeException re ? re : new IllegalStateException(ex.getCause());
+        }
+    }
+
+    /**
+     * Inserts {@code rows} in a single transaction and JDBC batch, bypassing the shared
+     * queue: a caller that already holds many rows gains nothing from group commit.
+     */
+    public List<FileMetadata> writeAll(List<FileMetadata> rows) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        try {
+            List<FileMetadata> saved = flushTimer.record(() -> transactionTemplate.execute(status -> insert(rows)));
+            batchSizes.record(rows.size());
+            evictPages();
+            return saved;
+        } catch (RuntimeException ex) {
+            failedRows.increment(rows.size());
+            throw ex;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        if (flusher != null) {
+            flusher.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        PendingWrite abandoned;
+        while ((abandoned = queue.poll()) != null) {
+            failedRows.increment();
+            abandoned.result.completeExceptionally(new IllegalStateException("Metadata writer is shut down"));
+        }
+    }
+
+    private void flushLoop() {
+        long maxDelayNanos = settings.getMaxDelay().toNanos();
+        List<PendingWrite> batch = new ArrayList<>(settings.getBatchSize());
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingWrite first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < settings.getBatchSize()) {
+                    if (queue.drainTo(batch, settings.getBatchSize() - batch.size()) > 0) {
+                        continue;
+                    }
+                    PendingWrite next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private FileMetadata writeThroughLog(FileMetadata meta) {
+        if (!running) {
+            throw new ProcessingRejectedException(1);
+        }
+        CompletableFuture<FileMetadata> replayed = new CompletableFuture<>();
+        // registered first: the replayer may store the row as soon as it is appended
+        long sequence = resultLog.nextSequence();
+        replays.put(sequence, replayed);
+        try {
+            resultLog.append(sequence, meta);
+            appended.release();
+            return replayed.get(settings.getLog().getMaxWait().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            return meta;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return meta;
+        } catch (ExecutionException ex) {
+            throw ex.getCause() instanceof RuntimeException re ? re : new IllegalStateException(ex.getCause());
+        } finally {
+            replays.remove(sequence);
+        }
+    }
+
+    /**
+     * Replays the result log to the database. A partial batch waits up to {@code max-delay}
+     * for more rows, as in {@link Mode#BATCHED} mode; rows left at shutdown stay in the log
+     * for the next start. The log is compacted here after each stored batch, so uploads
+     * never wait for segments to be copied.
+     */
+    private void replayLoop() {
+        long maxDelayNanos = settings.getMaxDelay().toNanos();
+        while (running) {
+            try {
+                if (resultLog.pendingCount() == 0) {
+                    appended.tryAcquire(100, TimeUnit.MILLISECONDS);
+                    continue;
+                }
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (resultLog.pendingCount() < settings.getBatchSize()
+                        && appended.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    // collect more rows until the batch is full or the delay has passed
+                }
+                appended.drainPermits();
+                if (replay(resultLog.pending(settings.getBatchSize()))) {
+                    resultLog.compact();
+                } else {
+                    Thread.sleep(settings.getLog().getRetryDelay().toMillis());
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+        }
+    }
+
+    private boolean replay(List<ResultLog.Pending> batch) {
+        try {
+            List<ResultLog.Pending> unsaved = new ArrayList<>(batch.size());
+            for (ResultLog.Pending pending : batch) {
+                Optional<FileMetadata> committed = pending.recovered() ? findCommitted(pending.row()) : Optional.empty();
+                if (committed.isPresent()) {
+                    replayed(pending.sequence(), committed.get());
+                } else {
+                    unsaved.add(pending);
+                }
+            }
+            if (unsaved.isEmpty()) {
+                return true;
+            }
+            List<FileMetadata> rows = unsaved.stream().map(ResultLog.Pending::row).toList();
+            List<FileMetadata> saved = flushTimer.record(() -> transactionTemplate.execute(status -> insert(rows)));
+            batchSizes.record(rows.size());
+            evictPages();
+            for (int i = 0; i < unsaved.size(); i++) {
+                replayed(unsaved.get(i).sequence(), saved.get(i));
+            }
+            return true;
+        } catch (RuntimeException ex) {
+            log.warn("Failed to replay {} metadata rows from the result log, retrying in {}",
+                    batch.size(), settings.getLog().getRetryDelay(), ex);
+            failedReplays.increment();
+            return false;
+        }
+    }
+
+    /** The stored row a recovered row became, if the database committed it before a crash. */
+    private Optional<FileMetadata> findCommitted(FileMetadata row) {
+        if (row.getContentHash() == null || row.getUploadedAt() == null) {
+            return Optional.empty();
+        }
+        return repository.findByContentHashAndFileName(row.getContentHash(), row.getFileName()).stream()
+                .filter(stored -> sameInstant(stored.getUploadedAt(), row.getUploadedAt()))
+                .findFirst();
+    }
+
+    /** The database keeps microseconds and may round, so a stored time can differ slightly. */
+    private static boolean sameInstant(LocalDateTime stored, LocalDateTime logged) {
+        return stored != null && Duration.between(stored, logged).abs().toMillis() < 1;
+    }
+
+    /**
+     * Marks a committed row as stored. A marker that cannot be written, e.g. on a full disk,
+     * must not fail the batch: the rest of it is committed too and would be inserted again.
+     */
+    private void replayed(long sequence, FileMetadata saved) {
+        try {
+            resultLog.stored(sequence, saved.getId());
+        } catch (RuntimeException ex) {
+            log.warn("Cannot mark result log row {} as stored with id {}; it is checked against the database after a restart",
+                    sequence, saved.getId(), ex);
+        }
+        CompletableFuture<FileMetadata> waiting = replays.remove(sequence);
+        if (waiting != null) {
+            waiting.complete(saved);
+        }
+    }
+
+    private void flush(List<PendingWrite> batch) {
+        List<FileMetadata> rows = batch.stream().map(PendingWrite::meta).toList();
+        try {
+            List<FileMetadata> saved = flushTimer.record(() -> transactionTemplate.execute(status -> insert(rows)));
+            batchSizes.record(batch.size());
+            evictPages();
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result.complete(saved.get(i));
+            }
+        } catch (RuntimeException ex) {
+            log.error("Failed to persist {} metadata rows", batch.size(), ex);
+            failedRows.increment(batch.size());
+            batch.forEach(pending -> pending.result.completeExceptionally(ex));
+        }
+    }
+
+    private List<FileMetadata> insert(List<FileMetadata> rows) {
+        List<FileMetadata> saved = repository.saveAll(rows);
+        addToDailyStats(rows);
+        return saved;
+    }
+
+    /**
+     * Adds {@code rows} to their days' totals; must run in the transaction that inserts them.
+     * Days are upserted in ascending order so concurrent writers lock them in the same order.
+     */
+    private void addToDailyStats(List<FileMetadata> rows) {
+        Map<LocalDate, long[]> days = new TreeMap<>();
+        for (FileMetadata row : rows) {
+            if (row.getUploadedAt() != null) {
+                long[] totals = days.computeIfAbsent(row.getUploadedAt().toLocalDate(), day -> new long[3]);
+                totals[0]++;
+                totals[1] += row.getLineCount();
+                totals[2] += row.getWordCount();
+            }
+        }
+        days.forEach((day, totals) -> dailyStats.add(day, totals[0], totals[1], totals[2]));
+    }
+
+    private void evictPages() {
+        if (filePages != null) {
+            filePages.clear();
+        }
+    }
+
+    private record PendingWrite(FileMetadata meta, CompletableFuture<FileMetadata> result) {
+        PendingWrite(FileMetadata meta) {
+            this(meta, new CompletableFuture<>());
+        }
+    }
+}
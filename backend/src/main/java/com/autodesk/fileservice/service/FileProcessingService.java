@@ -1,11 +1,32 @@
 package com.autodesk.fileservice.service;
 
+import com.autodesk.fileservice.config.CacheConfig;
+import com.autodesk.fileservice.config.FileProcessingProperties;
+import com.autodesk.fileservice.csv.CsvStatsCollector;
+import com.autodesk.fileservice.csv.CsvStatsInputStream;
+import com.autodesk.fileservice.counter.MappedTextStatsCounter;
+import com.autodesk.fileservice.counter.ParallelTextStatsCounter;
+import com.autodesk.fileservice.counter.TextStats;
+import com.autodesk.fileservice.counter.TextStatsCounter;
+import com.autodesk.fileservice.exception.FileValidationException;
+import com.autodesk.fileservice.exception.InvalidContentException;
+import com.autodesk.fileservice.exception.InvalidPageRequestException;
 import com.autodesk.fileservice.exception.PayloadTooLargeException;
 import com.autodesk.fileservice.exception.UnsupportedMediaTypeException;
+import com.autodesk.fileservice.model.CsvStats;
+import com.autodesk.fileservice.model.FileCursorPage;
 import com.autodesk.fileservice.model.FileMetadata;
+import com.autodesk.fileservice.model.FileSearchCriteria;
 import com.autodesk.fileservice.repository.FileMetadataRepository;
+import com.autodesk.fileservice.resultlog.ResultLog;
+import com.autodesk.fileservice.service.ProcessingMetrics.Stage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -13,63 +34,481 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.BufferedReader;
+import java.io.EOFException;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipException;
 
 @Service
 public class FileProcessingService {
     private static final Logger log = LoggerFactory.getLogger(FileProcessingService.class);
+    static final int MAX_CURSOR_PAGE_SIZE = 100;
+    private static final String GZIP_SUFFIX = ".gz";
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
     private final FileMetadataRepository repository;
-    private static final long MAX_FILE_SIZE = 5 * 1024 * 1024; // 5 MB
+    private final FileMetadataWriter writer;
+    private final ResultLog resultLog;
+    private final TextStatsCounter counter;
+    private final MappedTextStatsCounter mappedCounter;
+    private final ParallelTextStatsCounter parallelCounter;
+    private final FileProcessingProperties properties;
+    private final ProcessingMetrics metrics;
+    /** {@link System#nanoTime()} before which database dedup lookups are skipped; see {@link #findStoredDuplicate}. */
+    private volatile long dedupLookupsSkippedUntil = System.nanoTime();
 
-    public FileProcessingService(FileMetadataRepository repository) {
+    public FileProcessingService(FileMetadataRepository repository, FileMetadataWriter writer, ResultLog resultLog,
+                                 TextStatsCounter counter, MappedTextStatsCounter mappedCounter,
+                                 ParallelTextStatsCounter parallelCounter, FileProcessingProperties properties,
+                                 MeterRegistry meterRegistry) {
         this.repository = repository;
+        this.writer = writer;
+        this.resultLog = resultLog;
+        this.counter = counter;
+        this.mappedCounter = mappedCounter;
+        this.parallelCounter = parallelCounter;
+        this.properties = properties;
+        this.metrics = new ProcessingMetrics(meterRegistry);
     }
 
     public boolean isAllowedFile(String filename) {
         if (filename == null || filename.trim().isEmpty()) return false;
         String lower = filename.toLowerCase();
+        if (isCompressed(filename)) {
+            lower = lower.substring(0, lower.length() - GZIP_SUFFIX.length());
+        }
         return lower.endsWith(".txt") || lower.endsWith(".csv");
     }
 
+    /** Whether {@code filename} names a CSV upload whose columns are analysed while counting. */
+    private boolean isCsvCandidate(String filename) {
+        if (!properties.getCsv().isEnabled() || filename == null) return false;
+        String lower = filename.toLowerCase();
+        if (isCompressed(filename)) {
+            lower = lower.substring(0, lower.length() - GZIP_SUFFIX.length());
+        }
+        return lower.endsWith(".csv");
+    }
+
+    /**
+     * Compressed uploads are decoded sequentially, so they always take the streaming path
+     * instead of being mapped or counted in parallel. CSV uploads large enough to be mapped
+     * or split are parsed alongside the counters, like on the streaming path.
+     */
+    private boolean requiresStreaming(String filename, long size) {
+        return isCompressed(filename) || isCsvCandidate(filename) && !isFileCandidate(size);
+    }
+
+    /** Whether {@code filename} names a gzip-compressed upload that is decoded while counting. */
+    public boolean isCompressed(String filename) {
+        return properties.getCompression().isEnabled() && filename != null
+                && filename.toLowerCase().endsWith(GZIP_SUFFIX);
+    }
+
+    /**
+     * Rejects unsupported file types and sizes above the configured limit; a negative
+     * {@code size} means the size is not known yet. For compressed uploads {@code size}
+     * is the compressed size.
+     */
+    public void validate(String filename, long size) {
+        Timer.Sample sample = Timer.start();
+        try {
+            checkFile(filename, size);
+        } catch (FileValidationException ex) {
+            metrics.rejected(ex);
+            throw ex;
+        } finally {
+            sample.stop(metrics.timer(Stage.VALIDATE));
+        }
+    }
+
+    private void checkFile(String filename, long size) {
+        if (!isAllowedFile(filename)) {
+            throw new UnsupportedMediaTypeException();
+        }
+
+        long maxFileSize = isCompressed(filename)
+                ? properties.getCompression().getMaxCompressedSize().toBytes()
+                : properties.getMaxFileSize().toBytes();
+        if (size > maxFileSize) {
+            throw new PayloadTooLargeException(maxFileSize+"b");
+        }
+    }
+
     public FileMetadata processAndSave(MultipartFile file) {
         Objects.requireNonNull(file, "file must not be null");
 
         String filename = file.getOriginalFilename();
-        if (!isAllowedFile(filename)) {
-            throw new UnsupportedMediaTypeException();
+        validate(filename, file.getSize());
+
+        log.info("Starting processing for file: {}", filename);
+
+        try {
+            if (requiresStreaming(filename, file.getSize())) {
+                try (InputStream in = file.getInputStream()) {
+                    return saveIfNew(count(filename, in));
+                }
+            }
+            if (isFileCandidate(file.getSize())) {
+                return saveIfNew(analyzeFromTempFile(filename, file));
+            }
+            String hash = null;
+            if (isDedupEnabled()) {
+                hash = metrics.time(Stage.HASH, () -> {
+                    try (InputStream in = file.getInputStream()) {
+                        return ContentHashing.hash(in);
+                    }
+                });
+                Optional<FileMetadata> duplicate = findDuplicate(filename, hash);
+                if (duplicate.isPresent()) {
+                    return saveIfNew(duplicate.get());
+                }
+            }
+            TextStats stats = metrics.time(Stage.COUNT, () -> countStream(file));
+            metrics.counted(file.getSize(), stats);
+            return save(newRecord(filename, stats, hash));
+        } catch (IOException ex) {
+            log.error("Error while processing file: {}", filename, ex);
+            throw new RuntimeException("Failed to process file");
+        }
+    }
+
+    /**
+     * Counts {@code content} while it is being received, e.g. straight from the request
+     * body, so the upload is never buffered in memory or spooled to disk. The size limit
+     * is enforced on the bytes actually read; {@code declaredSize} (or -1 when unknown)
+     * only allows rejecting an oversized body up front.
+     */
+    public FileMetadata processAndSave(String filename, InputStream content, long declaredSize) {
+        log.info("Starting streaming processing for file: {}", filename);
+        FileMetadata meta;
+        try {
+            meta = analyze(filename, content, declaredSize);
+        } catch (IOException ex) {
+            log.error("Error while processing file: {}", filename, ex);
+            throw new RuntimeException("Failed to process file");
         }
+        return saveIfNew(meta);
+    }
 
-        if (file.getSize() > MAX_FILE_SIZE) {
-            throw new PayloadTooLargeException(MAX_FILE_SIZE+"b");
+    /**
+     * Validates and counts {@code content} without persisting the result. Returns the
+     * stored record when the same file was uploaded before, otherwise a new record without
+     * an id that the caller is expected to save. Compressed content is inflated on the fly
+     * and counted, hashed and limited on its decompressed bytes; CSV content is parsed
+     * for column statistics in the same pass.
+     */
+    public FileMetadata analyze(String filename, InputStream content, long declaredSize) throws IOException {
+        Objects.requireNonNull(content, "content must not be null");
+
+        validate(filename, declaredSize);
+        return count(filename, content);
+    }
+
+    /** {@link #analyze} without the up-front checks, for content that has passed them. */
+    private FileMetadata count(String filename, InputStream content) throws IOException {
+        MessageDigest digest = isDedupEnabled() ? ContentHashing.newDigest() : null;
+        CsvStatsCollector csv = isCsvCandidate(filename) ? newCsvCollector() : null;
+        SizeLimitedInputStream limited;
+        TextStats stats;
+        try {
+            // Opening a gzip stream already reads its header.
+            limited = limitedStream(filename, content);
+            try (InputStream in = teeStream(limited, digest, csv)) {
+                stats = metrics.time(Stage.COUNT, () -> counter.count(in));
+            }
+        } catch (ZipException | EOFException ex) {
+            if (!isCompressed(filename)) {
+                throw ex;
+            }
+            InvalidContentException rejection = new InvalidContentException();
+            metrics.rejected(rejection);
+            throw rejection;
+        } catch (FileValidationException ex) {
+            // Size limits are only known to be exceeded once the content is read.
+            metrics.rejected(ex);
+            throw ex;
         }
+        metrics.counted(limited.getCount(), stats);
+
+        // The stream can only be read once, so hashing happens in the same pass as counting
+        // and a duplicate only saves the insert.
+        return toRecord(filename, stats, digest, csv);
+    }
+
+    /**
+     * Starts counting content of {@code filename} that arrives in pieces, e.g. the chunks of
+     * a resumable upload. The caller validates the file and feeds every byte, in order, to
+     * the returned analysis, then passes it to {@link #complete(IncrementalAnalysis)}.
+     */
+    public IncrementalAnalysis startAnalysis(String filename) {
+        MessageDigest digest = isDedupEnabled() ? ContentHashing.newDigest() : null;
+        CsvStatsCollector csv = isCsvCandidate(filename) ? newCsvCollector() : null;
+        return new IncrementalAnalysis(filename, counter.newAccumulator(), digest, csv);
+    }
+
+    /**
+     * Stores the result of an analysis that has been fed all content. Only closes the
+     * trailing line, so its cost does not depend on the size of the file. The totals are
+     * finished once and kept, so the call can be repeated if storing the result failed;
+     * every attempt stores a new record.
+     */
+    public FileMetadata complete(IncrementalAnalysis analysis) {
+        if (analysis.getTotals() == null) {
+            TextStats stats = analysis.getAccumulator().finish();
+            metrics.counted(analysis.getByteCount(), stats);
+            String hash = analysis.getDigest() != null ? ContentHashing.toHex(analysis.getDigest()) : null;
+            CsvStats csvStats = analysis.getCsv() != null ? analysis.getCsv().finish() : null;
+            analysis.setTotals(new IncrementalAnalysis.Totals(stats, hash, csvStats));
+        }
+        IncrementalAnalysis.Totals totals = analysis.getTotals();
+        return saveIfNew(toRecord(analysis.getFilename(), totals.stats(), totals.contentHash(),
+                totals.csvStats() != null ? totals::csvStats : null));
+    }
+
+    private FileMetadata toRecord(String filename, TextStats stats, MessageDigest digest, CsvStatsCollector csv) {
+        return toRecord(filename, stats, digest != null ? ContentHashing.toHex(digest) : null,
+                csv != null ? csv::finish : null);
+    }
+
+    /** {@code csvStats} is only asked for when the content is new. */
+    private FileMetadata toRecord(String filename, TextStats stats, String hash, Supplier<CsvStats> csvStats) {
+        FileMetadata meta = hash != null
+                ? findDuplicate(filename, hash).orElseGet(() -> newRecord(filename, stats, hash))
+                : newRecord(filename, stats, null);
+        if (csvStats != null && meta.getId() == null) {
+            meta.setCsvStats(csvStats.get());
+        }
+        return meta;
+    }
+
+    private CsvStatsCollector newCsvCollector() {
+        FileProcessingProperties.Csv settings = properties.getCsv();
+        return new CsvStatsCollector(settings.isHeader(), settings.getMaxColumns(), settings.getDistinctPrecision());
+    }
+
+    /**
+     * Processes content that has already been written to {@code file}. The caller keeps
+     * ownership of the file.
+     */
+    public FileMetadata processAndSave(String filename, Path file) {
+        return process(filename, file, true);
+    }
+
+    /**
+     * Like {@link #processAndSave(String, Path)}, for a file the caller has already passed
+     * through {@link #validate}, e.g. before queueing it, so that it is not checked and
+     * counted in the rejection metrics twice. Limits that only show while reading, such
+     * as the decompressed size, still apply.
+     */
+    public FileMetadata processValidated(String filename, Path file) {
+        return process(filename, file, false);
+    }
+
+    private FileMetadata process(String filename, Path file, boolean validate) {
+        Objects.requireNonNull(file, "file must not be null");
 
         log.info("Starting processing for file: {}", filename);
-        long lineCount = 0L;
-        long wordCount = 0L;
-
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                lineCount++;
-                if (!line.isBlank()) {
-                    String[] words = line.trim().split("\\s+");
-                    wordCount += words.length;
+
+        try {
+            long size = Files.size(file);
+            if (validate) {
+                validate(filename, size);
+            }
+            if (requiresStreaming(filename, size)) {
+                try (InputStream in = Files.newInputStream(file)) {
+                    return saveIfNew(count(filename, in));
                 }
             }
+            return saveIfNew(analyzeFile(filename, file, size));
         } catch (IOException ex) {
             log.error("Error while processing file: {}", filename, ex);
             throw new RuntimeException("Failed to process file");
         }
+    }
+
+    /**
+     * Applies the size limit to {@code content}, inflating it first when it is compressed.
+     * Nothing is inflated up front; each stage pulls from the one below through a small buffer.
+     */
+    private SizeLimitedInputStream limitedStream(String filename, InputStream content) throws IOException {
+        if (isCompressed(filename)) {
+            FileProcessingProperties.Compression compression = properties.getCompression();
+            InputStream compressed = new SizeLimitedInputStream(content, compression.getMaxCompressedSize().toBytes());
+            return new SizeLimitedInputStream(new GZIPInputStream(compressed, GZIP_BUFFER_SIZE),
+                    compression.getMaxDecompressedSize().toBytes());
+        }
+        return new SizeLimitedInputStream(content, properties.getMaxFileSize().toBytes());
+    }
+
+    /**
+     * Stacks the CSV and hashing stages on top of {@code in}, so they see every byte the counter reads.
+     */
+    private InputStream teeStream(InputStream in, MessageDigest digest, CsvStatsCollector csv) {
+        if (csv != null) {
+            in = new CsvStatsInputStream(in, csv);
+        }
+        return digest != null ? new DigestInputStream(in, digest) : in;
+    }
+
+    private boolean isParallelCandidate(long size) {
+        FileProcessingProperties.Parallel parallel = properties.getParallel();
+        return parallel.isEnabled() && size >= parallel.getThreshold().toBytes();
+    }
+
+    private boolean isMappedCandidate(long size) {
+        FileProcessingProperties.Mapped mapped = properties.getMapped();
+        return mapped.isEnabled() && size >= mapped.getThreshold().toBytes();
+    }
+
+    private boolean isFileCandidate(long size) {
+        return isParallelCandidate(size) || isMappedCandidate(size);
+    }
+
+    private TextStats countStream(MultipartFile file) throws IOException {
+        try (InputStream in = file.getInputStream()) {
+            return counter.count(in);
+        } catch (InvalidContentException ex) {
+            // Malformed text is only found while counting.
+            metrics.rejected(ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * Moves the upload into a temp file (a rename when the container already spooled it
+     * to disk) so that it can be mapped or split into ranges.
+     */
+    private FileMetadata analyzeFromTempFile(String filename, MultipartFile file) throws IOException {
+        Path temp = Files.createTempFile("upload-", ".tmp");
+        try {
+            metrics.time(Stage.SPOOL, () -> {
+                file.transferTo(temp.toFile());
+                return null;
+            });
+            return analyzeFile(filename, temp, file.getSize());
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Returns the stored record or a new, unsaved one for the content of {@code file}.
+     * Content seen before is only hashed, not counted.
+     */
+    private FileMetadata analyzeFile(String filename, Path file, long size) throws IOException {
+        String hash = null;
+        if (isDedupEnabled()) {
+            hash = metrics.time(Stage.HASH, () -> ContentHashing.hash(file));
+            Optional<FileMetadata> duplicate = findDuplicate(filename, hash);
+            if (duplicate.isPresent()) {
+                return duplicate.get();
+            }
+        }
+        CsvStatsCollector csv = isCsvCandidate(filename) ? newCsvCollector() : null;
+        TextStats stats = metrics.time(Stage.COUNT, () -> countFile(file, size, csv));
+        metrics.counted(size, stats);
+        FileMetadata meta = newRecord(filename, stats, hash);
+        if (csv != null) {
+            meta.setCsvStats(csv.finish());
+        }
+        return meta;
+    }
+
+    /** Feeds the content to {@code csv} as well, if not null, in the same pass. */
+    private TextStats countFile(Path file, long size, CsvStatsCollector csv) throws IOException {
+        try {
+            if (!isFileCandidate(size)) {
+                try (InputStream in = teeStream(Files.newInputStream(file), null, csv)) {
+                    return counter.count(in);
+                }
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                Consumer<ByteBuffer> sink = csv != null ? csv::update : null;
+                return isParallelCandidate(size) ? parallelCounter.count(channel, sink) : mappedCounter.count(channel, sink);
+            }
+        } catch (InvalidContentException ex) {
+            metrics.rejected(ex);
+            throw ex;
+        }
+    }
+
+    private boolean isDedupEnabled() {
+        return properties.getDedup().isEnabled();
+    }
+
+    /**
+     * Looks for an earlier upload with the same content. The same file uploaded again
+     * resolves to the stored record; identical content under another name resolves to a
+     * new, unsaved record with the stored counts. Rows retained in the result log are
+     * looked up there first.
+     */
+    private Optional<FileMetadata> findDuplicate(String filename, String hash) {
+        Optional<FileMetadata> stored = metrics.timer(Stage.DEDUP).record(() -> resultLog.findByContentHash(hash)
+                .or(() -> findStoredDuplicate(hash)));
+        return stored.map(existing -> {
+            log.info("Content of file: {} matches stored record id: {}", filename, existing.getId());
+            if (existing.getFileName().equals(filename)) {
+                return existing;
+            }
+            FileMetadata copy = newRecord(filename, new TextStats(existing.getLineCount(), existing.getWordCount()), hash);
+            copy.setCsvStats(existing.getCsvStats());
+            copy.setTextProfile(existing.getTextProfile());
+            return copy;
+        });
+    }
+
+    /**
+     * Looks {@code hash} up in the database. With the local result log, uploads must not
+     * depend on the database: a failed lookup counts as a miss, and further lookups are
+     * skipped for the log's retry delay instead of each waiting out the connection timeout.
+     */
+    private Optional<FileMetadata> findStoredDuplicate(String hash) {
+        if (!resultLog.isEnabled()) {
+            return repository.findFirstByContentHashOrderByIdAsc(hash);
+        }
+        if (System.nanoTime() - dedupLookupsSkippedUntil < 0) {
+            return Optional.empty();
+        }
+        try {
+            return repository.findFirstByContentHashOrderByIdAsc(hash);
+        } catch (DataAccessException ex) {
+            dedupLookupsSkippedUntil = System.nanoTime() + properties.getPersistence().getLog().getRetryDelay().toNanos();
+            log.warn("Duplicate lookup failed, treating content hash: {} as new: {}", hash, ex.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private FileMetadata newRecord(String filename, TextStats stats, String hash) {
+        FileMetadata meta = new FileMetadata(filename, stats.lineCount(), stats.wordCount(), LocalDateTime.now());
+        meta.setContentHash(hash);
+        if (stats.profiler() != null) {
+            meta.setTextProfile(stats.profiler().toProfile(properties.getProfile().getTopWords()));
+        }
+        return meta;
+    }
 
-        FileMetadata meta = new FileMetadata(filename, lineCount, wordCount, LocalDateTime.now());
-        FileMetadata saved = repository.save(meta);
-        log.info("Completed processing for file: {} -> lines: {}, words: {}, id: {}", filename, lineCount, wordCount, saved.getId());
+    private FileMetadata saveIfNew(FileMetadata meta) {
+        return meta.getId() != null ? meta : save(meta);
+    }
+
+    private FileMetadata save(FileMetadata meta) {
+        FileMetadata saved = metrics.timer(Stage.PERSIST).record(() -> writer.write(meta));
+        log.info("Completed processing for file: {} -> lines: {}, words: {}, id: {}",
+                meta.getFileName(), meta.getLineCount(), meta.getWordCount(), saved.getId());
         return saved;
     }
 
@@ -77,12 +516,67 @@ public class FileProcessingService {
         return repository.findAll();
     }
 
+    @Cacheable(CacheConfig.FILE_PAGES)
     public Page<FileMetadata> listAllPaginated(int page, int size) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("uploadedAt").descending());
         return repository.findAll(pageable);
     }
 
-    public java.util.Optional<FileMetadata> findById(Long id) {
-        return repository.findById(id);
+    /**
+     * Newest-first listing that seeks past {@code cursor} instead of counting and skipping
+     * rows, so every page costs the same regardless of depth. One extra row is fetched to
+     * tell whether another page follows.
+     */
+    public FileCursorPage listAfter(String cursor, int size) {
+        checkPageSize(size);
+        Limit limit = Limit.of(size + 1);
+        List<FileMetadata> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = repository.findNewest(limit);
+        } else {
+            FileCursor position = FileCursor.decode(cursor);
+            rows = repository.findOlderThan(position.uploadedAt(), position.id(), limit);
+        }
+        return toPage(rows, size);
+    }
+
+    /**
+     * Newest-first keyset listing of the rows matching {@code criteria}. Cursors work as in
+     * {@link #listAfter} and are only meaningful with the criteria that produced them.
+     */
+    public FileCursorPage search(FileSearchCriteria criteria, String cursor, int size) {
+        checkPageSize(size);
+        if (criteria.from() != null && criteria.to() != null && !criteria.from().isBefore(criteria.to())) {
+            throw new InvalidPageRequestException("from must be before to");
+        }
+        Limit limit = Limit.of(size + 1);
+        List<FileMetadata> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = repository.search(criteria, null, 0, limit);
+        } else {
+            FileCursor position = FileCursor.decode(cursor);
+            rows = repository.search(criteria, position.uploadedAt(), position.id(), limit);
+        }
+        return toPage(rows, size);
+    }
+
+    private static void checkPageSize(int size) {
+        if (size < 1 || size > MAX_CURSOR_PAGE_SIZE) {
+            throw new InvalidPageRequestException("Page size must be between 1 and " + MAX_CURSOR_PAGE_SIZE);
+        }
+    }
+
+    /** Cuts the extra row fetched to tell whether another page follows. */
+    private static FileCursorPage toPage(List<FileMetadata> rows, int size) {
+        if (rows.size() <= size) {
+            return new FileCursorPage(rows, null);
+        }
+        List<FileMetadata> items = rows.subList(0, size);
+        return new FileCursorPage(List.copyOf(items), FileCursor.after(items.get(size - 1)).encode());
+    }
+
+    @Cacheable(cacheNames = CacheConfig.FILES, unless = "#result == null")
+    public Optional<FileMetadata> findById(Long id) {
+        return resultLog.findById(id).or(() -> repository.findById(id));
     }
 }
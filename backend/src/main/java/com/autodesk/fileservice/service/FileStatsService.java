@@ -0,0 +1,54 @@
+package com.autodesk.fileservice.service;
+
+import com.autodesk.fileservice.exception.InvalidPageRequestException;
+import com.autodesk.fileservice.model.DailyFileStats;
+import com.autodesk.fileservice.model.FileStatsSummary;
+import com.autodesk.fileservice.repository.DailyFileStatsRepository;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Upload totals per day and over a range of days, read from the rollup rows that
+ * {@link FileMetadataWriter} maintains. A request reads at most one row per day.
+ */
+@Service
+public class FileStatsService {
+
+    static final int MAX_DAYS = 366;
+    static final int DEFAULT_DAYS = 30;
+
+    private final DailyFileStatsRepository repository;
+
+    public FileStatsService(DailyFileStatsRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Totals from {@code from} to {@code to}, both inclusive. {@code to} defaults to today
+     * and {@code from} to {@value #DEFAULT_DAYS} days before {@code to}.
+     */
+    public FileStatsSummary summarize(LocalDate from, LocalDate to) {
+        LocalDate last = to != null ? to : LocalDate.now();
+        LocalDate first = from != null ? from : last.minusDays(DEFAULT_DAYS - 1);
+        if (first.isAfter(last)) {
+            throw new InvalidPageRequestException("from must not be after to");
+        }
+        if (ChronoUnit.DAYS.between(first, last) >= MAX_DAYS) {
+            throw new InvalidPageRequestException("Date range must not exceed " + MAX_DAYS + " days");
+        }
+
+        List<DailyFileStats> days = repository.findByDayBetweenOrderByDayAsc(first, last);
+        long files = 0;
+        long lines = 0;
+        long words = 0;
+        for (DailyFileStats day : days) {
+            files += day.getFileCount();
+            lines += day.getLineCount();
+            words += day.getWordCount();
+        }
+        return new FileStatsSummary(first, last, files, lines, words, days);
+    }
+}
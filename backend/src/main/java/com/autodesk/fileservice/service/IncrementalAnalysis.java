@@ -0,0 +1,56 @@
+package com.autodesk.fileservice.service;
+
+import com.autodesk.fileservice.counter.TextStats;
+import com.autodesk.fileservice.counter.TextStatsAccumulator;
+import com.autodesk.fileservice.csv.CsvStatsCollector;
+import com.autodesk.fileservice.model.CsvStats;
+
+import java.security.MessageDigest;
+
+/**
+ * Counting, hashing and CSV state of a file whose content arrives in several pieces.
+ * Everything a single-pass upload computes is carried here between pieces, including a
+ * line or word that spans two of them. Instances are not thread-safe.
+ */
+public final class IncrementalAnalysis {
+
+    /** What the finished analysis found; the CSV statistics are null for other files. */
+    record Totals(TextStats stats, String contentHash, CsvStats csvStats) {}
+
+    private final String filename;
+    private final TextStatsAccumulator accumulator;
+    private final MessageDigest digest;
+    private final CsvStatsCollector csv;
+    private long byteCount;
+    /**
+     * Set once all content has been fed. Only these are kept between attempts to store the
+     * result, not the record, since a failed write can leave an uncommitted id on it.
+     */
+    private Totals totals;
+
+    IncrementalAnalysis(String filename, TextStatsAccumulator accumulator, MessageDigest digest, CsvStatsCollector csv) {
+        this.filename = filename;
+        this.accumulator = accumulator;
+        this.digest = digest;
+        this.csv = csv;
+    }
+
+    public void update(byte[] bytes, int offset, int length) {
+        byteCount += length;
+        accumulator.update(bytes, offset, length);
+        if (digest != null) {
+            digest.update(bytes, offset, length);
+        }
+        if (csv != null) {
+            csv.update(bytes, offset, length);
+        }
+    }
+
+    String getFilename() { return filename; }
+    TextStatsAccumulator getAccumulator() { return accumulator; }
+    MessageDigest getDigest() { return digest; }
+    CsvStatsCollector getCsv() { return csv; }
+    long getByteCount() { return byteCount; }
+    Totals getTotals() { return totals; }
+    void setTotals(Totals totals) { this.totals = totals; }
+}
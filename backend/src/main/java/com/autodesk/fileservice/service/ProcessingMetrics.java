@@ -0,0 +1,121 @@
+package com.autodesk.fileservice.service;
+
+import com.autodesk.fileservice.counter.TextStats;
+import com.autodesk.fileservice.exception.FileValidationException;
+import com.autodesk.fileservice.exception.InvalidContentException;
+import com.autodesk.fileservice.exception.PayloadTooLargeException;
+import com.autodesk.fileservice.exception.UnsupportedMediaTypeException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Meters of the upload processing path. Every meter is registered up front, so recording
+ * is a lookup-free timer or counter update per upload and stage, never per byte.
+ * <ul>
+ *   <li>{@code file.processing.stage}: time per stage, tagged {@code stage}. {@code hash} is
+ *       the separate hashing pass of in-memory and spooled uploads; streamed uploads are
+ *       hashed while they are counted, within {@code count}.</li>
+ *   <li>{@code file.processing.bytes}, {@code .lines}, {@code .words}: totals of counted
+ *       content; their rates give throughput.</li>
+ *   <li>{@code file.processing.rejected}: uploads refused, tagged {@code reason}.</li>
+ *   <li>{@code file.processing.upload.size}: sizes of counted uploads in fixed buckets.</li>
+ * </ul>
+ */
+final class ProcessingMetrics {
+
+    enum Stage {
+        VALIDATE, SPOOL, HASH, COUNT, DEDUP, PERSIST
+    }
+
+    @FunctionalInterface
+    interface IOCallable<T> {
+        T call() throws IOException;
+    }
+
+    private static final double[] SIZE_BUCKETS = {
+            DataSize.ofKilobytes(1).toBytes(), DataSize.ofKilobytes(64).toBytes(), DataSize.ofMegabytes(1).toBytes(),
+            DataSize.ofMegabytes(5).toBytes(), DataSize.ofMegabytes(32).toBytes(), DataSize.ofMegabytes(100).toBytes(),
+            DataSize.ofGigabytes(1).toBytes()
+    };
+
+    private final Map<Stage, Timer> stages = new EnumMap<>(Stage.class);
+    private final Counter bytes;
+    private final Counter lines;
+    private final Counter words;
+    private final DistributionSummary uploadSizes;
+    private final Counter unsupportedType;
+    private final Counter tooLarge;
+    private final Counter invalidContent;
+
+    ProcessingMetrics(MeterRegistry registry) {
+        for (Stage stage : Stage.values()) {
+            stages.put(stage, Timer.builder("file.processing.stage")
+                    .description("Time spent in each stage of processing an upload")
+                    .tag("stage", stage.name().toLowerCase())
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+        this.bytes = Counter.builder("file.processing.bytes")
+                .description("Bytes of content counted")
+                .baseUnit("bytes")
+                .register(registry);
+        this.lines = Counter.builder("file.processing.lines")
+                .description("Lines counted")
+                .register(registry);
+        this.words = Counter.builder("file.processing.words")
+                .description("Words counted")
+                .register(registry);
+        this.uploadSizes = DistributionSummary.builder("file.processing.upload.size")
+                .description("Size of counted uploads, after decompression")
+                .baseUnit("bytes")
+                .serviceLevelObjectives(SIZE_BUCKETS)
+                .register(registry);
+        this.unsupportedType = rejections(registry, "unsupported_type");
+        this.tooLarge = rejections(registry, "too_large");
+        this.invalidContent = rejections(registry, "invalid_content");
+    }
+
+    private static Counter rejections(MeterRegistry registry, String reason) {
+        return Counter.builder("file.processing.rejected")
+                .description("Uploads rejected by validation")
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    <T> T time(Stage stage, IOCallable<T> action) throws IOException {
+        Timer.Sample sample = Timer.start();
+        try {
+            return action.call();
+        } finally {
+            sample.stop(stages.get(stage));
+        }
+    }
+
+    Timer timer(Stage stage) {
+        return stages.get(stage);
+    }
+
+    void counted(long size, TextStats stats) {
+        bytes.increment(size);
+        lines.increment(stats.lineCount());
+        words.increment(stats.wordCount());
+        uploadSizes.record(size);
+    }
+
+    void rejected(FileValidationException ex) {
+        if (ex instanceof UnsupportedMediaTypeException) {
+            unsupportedType.increment();
+        } else if (ex instanceof PayloadTooLargeException) {
+            tooLarge.increment();
+        } else if (ex instanceof InvalidContentException) {
+            invalidContent.increment();
+        }
+    }
+}
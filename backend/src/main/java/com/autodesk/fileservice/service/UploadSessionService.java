@@ -0,0 +1,220 @@
+package com.autodesk.fileservice.service;
+
+import com.autodesk.fileservice.config.FileProcessingProperties;
+import com.autodesk.fileservice.exception.InvalidContentException;
+import com.autodesk.fileservice.exception.PayloadTooLargeException;
+import com.autodesk.fileservice.exception.ProcessingRejectedException;
+import com.autodesk.fileservice.exception.UnsupportedMediaTypeException;
+import com.autodesk.fileservice.exception.UploadConflictException;
+import com.autodesk.fileservice.exception.UploadSessionNotFoundException;
+import com.autodesk.fileservice.model.FileMetadata;
+import com.autodesk.fileservice.model.UploadSession;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Resumable uploads: a client opens a session for a file of known length, sends the
+ * content in chunks that each start where the previous one ended, and completes the
+ * session once all bytes have arrived.
+ * <p>
+ * Chunks are counted while they are received and then discarded, so neither memory nor
+ * disk use grows with the file. Every byte read is kept, even when the connection drops
+ * in the middle of a chunk; the client asks for the session's offset and resumes from
+ * there. Completing a session only closes the trailing line and stores the result.
+ */
+@Service
+public class UploadSessionService {
+    private static final Logger log = LoggerFactory.getLogger(UploadSessionService.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileProcessingService processingService;
+    private final FileProcessingProperties.Resumable settings;
+    private final long retryAfterSeconds;
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    public UploadSessionService(FileProcessingService processingService, FileProcessingProperties properties,
+                                MeterRegistry meterRegistry) {
+        this.processingService = processingService;
+        this.settings = properties.getResumable();
+        // Full session table is back-pressure like a full processing queue; reuse its Retry-After.
+        this.retryAfterSeconds = properties.getAsync().getRetryAfter().toSeconds();
+
+        Gauge.builder("file.upload.sessions", sessions, Map::size)
+                .description("Open resumable upload sessions")
+                .register(meterRegistry);
+    }
+
+    public UploadSession create(String filename, long length) {
+        if (!processingService.isAllowedFile(filename) || processingService.isCompressed(filename)) {
+            throw new UnsupportedMediaTypeException("Unsupported file type. Resumable uploads accept .txt and .csv files only.");
+        }
+        if (length < 0) {
+            throw new InvalidContentException("Upload length must not be negative.");
+        }
+        long maxFileSize = settings.getMaxFileSize().toBytes();
+        if (length > maxFileSize) {
+            throw new PayloadTooLargeException(maxFileSize + "b");
+        }
+        if (sessions.size() >= settings.getMaxSessions()) {
+            throw new ProcessingRejectedException(retryAfterSeconds);
+        }
+
+        Session session = new Session(UUID.randomUUID().toString(), filename, length,
+                processingService.startAnalysis(filename));
+        session.touch(settings);
+        sessions.put(session.id, session);
+        log.info("Opened upload session: {} for file: {} ({} bytes)", session.id, filename, length);
+        return session.view();
+    }
+
+    public UploadSession find(String id) {
+        return get(id).view();
+    }
+
+    /**
+     * Counts the bytes of {@code chunk}, which must start at the session's current offset.
+     * Bytes read before a failure stay counted and advance the offset.
+     */
+    public UploadSession append(String id, long offset, InputStream chunk) {
+        Objects.requireNonNull(chunk, "chunk must not be null");
+
+        Session session = get(id);
+        if (!session.lock.tryLock()) {
+            throw new UploadConflictException("Another chunk of this upload is still being received.", session.offset);
+        }
+        try {
+            checkOpen(session);
+            if (offset != session.offset) {
+                throw new UploadConflictException("Chunk starts at byte " + offset + " but the upload continues at byte "
+                        + session.offset + ".", session.offset);
+            }
+            receive(session, chunk);
+            session.touch(settings);
+            return session.view();
+        } finally {
+            session.lock.unlock();
+        }
+    }
+
+    /**
+     * Stores the result of a session that has received all of its bytes and closes it.
+     */
+    public FileMetadata complete(String id) {
+        Session session = get(id);
+        if (!session.lock.tryLock()) {
+            throw new UploadConflictException("Another chunk of this upload is still being received.", session.offset);
+        }
+        try {
+            checkOpen(session);
+            if (session.offset != session.length) {
+                throw new UploadConflictException("Upload is incomplete: received " + session.offset + " of "
+                        + session.length + " bytes.", session.offset);
+            }
+            log.info("Completing upload session: {} for file: {}", id, session.filename);
+            // Closed only once the result is stored, so a failed store can be retried without resending the file.
+            FileMetadata result = processingService.complete(session.analysis);
+            sessions.remove(id);
+            return result;
+        } finally {
+            session.lock.unlock();
+        }
+    }
+
+    public void cancel(String id) {
+        if (sessions.remove(id) == null) {
+            throw new UploadSessionNotFoundException();
+        }
+        log.info("Cancelled upload session: {}", id);
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void evictExpiredSessions() {
+        Instant now = Instant.now();
+        sessions.values().removeIf(session -> session.isExpired(now) && !session.lock.isLocked());
+    }
+
+    private Session get(String id) {
+        Session session = sessions.get(id);
+        if (session == null || session.isExpired(Instant.now())) {
+            throw new UploadSessionNotFoundException();
+        }
+        return session;
+    }
+
+    /** A session completed or cancelled while the caller waited for it. */
+    private void checkOpen(Session session) {
+        if (sessions.get(session.id) != session) {
+            throw new UploadSessionNotFoundException();
+        }
+    }
+
+    private void receive(Session session, InputStream chunk) {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try {
+            while (true) {
+                long remaining = session.length - session.offset;
+                // Ask for one byte more than the session still expects to notice an overlong chunk.
+                int read = chunk.read(buffer, 0, (int) Math.min(buffer.length, remaining + 1));
+                if (read == -1) {
+                    return;
+                }
+                if (read > remaining) {
+                    session.accept(buffer, (int) remaining);
+                    throw new PayloadTooLargeException(session.length + "b");
+                }
+                session.accept(buffer, read);
+            }
+        } catch (IOException ex) {
+            log.warn("Chunk of upload session: {} interrupted at byte {}", session.id, session.offset, ex);
+            throw new RuntimeException("Failed to receive chunk");
+        }
+    }
+
+    private static final class Session {
+        private final String id;
+        private final String filename;
+        private final long length;
+        private final IncrementalAnalysis analysis;
+        /** Held while a chunk is received or the session is completed. */
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile long offset;
+        private volatile Instant expiresAt;
+
+        Session(String id, String filename, long length, IncrementalAnalysis analysis) {
+            this.id = id;
+            this.filename = filename;
+            this.length = length;
+            this.analysis = analysis;
+        }
+
+        void accept(byte[] bytes, int length) {
+            analysis.update(bytes, 0, length);
+            offset += length;
+        }
+
+        void touch(FileProcessingProperties.Resumable settings) {
+            expiresAt = Instant.now().plus(settings.getSessionTimeout());
+        }
+
+        boolean isExpired(Instant now) {
+            return expiresAt.isBefore(now);
+        }
+
+        UploadSession view() {
+            return new UploadSession(id, filename, length, offset, expiresAt);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.autodesk.fileservice.sketch;
+
+/**
+ * Incremental 64-bit hash over a byte sequence that may arrive in pieces: FNV-1a per
+ * byte, followed by the MurmurHash3 finalizer so that every output bit depends on every
+ * input bit, as {@link HyperLogLog} requires.
+ */
+public final class ByteHash {
+
+    public static final long SEED = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    private ByteHash() {
+    }
+
+    public static long update(long hash, int b) {
+        return (hash ^ (b & 0xFF)) * PRIME;
+    }
+
+    public static long finish(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
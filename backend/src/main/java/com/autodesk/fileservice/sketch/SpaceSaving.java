@@ -0,0 +1,210 @@
+package com.autodesk.fileservice.sketch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Space-Saving summary of the most frequent items in a stream, keyed by 64-bit hash and
+ * labelled with the item's first bytes. Tracks a fixed number of items; an untracked item
+ * replaces the least frequent one and inherits its count as overestimation error, so any
+ * item occurring more than {@code n / capacity} times is guaranteed to be tracked.
+ * <p>
+ * All storage is allocated up front: a min-heap of slots ordered by count and an
+ * open-addressing index from hash to slot. Instances are not thread-safe.
+ */
+public final class SpaceSaving {
+
+    public static final int MAX_LABEL_LENGTH = 64;
+
+    public record Item(byte[] label, long count, long error) {
+    }
+
+    private final int capacity;
+    private int size;
+
+    private final long[] keys;
+    private final long[] counts;
+    private final long[] errors;
+    private final byte[][] labels;
+    private final int[] labelLengths;
+
+    /** Slots ordered as a binary min-heap by count, and each slot's position in it. */
+    private final int[] heap;
+    private final int[] heapPositions;
+
+    /** Linear-probing table of slot + 1, 0 meaning empty. */
+    private final int[] index;
+    private final int indexMask;
+
+    public SpaceSaving(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.keys = new long[capacity];
+        this.counts = new long[capacity];
+        this.errors = new long[capacity];
+        this.labels = new byte[capacity][MAX_LABEL_LENGTH];
+        this.labelLengths = new int[capacity];
+        this.heap = new int[capacity];
+        this.heapPositions = new int[capacity];
+        int indexSize = Integer.highestOneBit(capacity * 4 - 1) << 1;
+        this.index = new int[indexSize];
+        this.indexMask = indexSize - 1;
+    }
+
+    /**
+     * Counts one occurrence of the item with hash {@code key}; {@code label} is copied
+     * (up to {@value #MAX_LABEL_LENGTH} bytes) only when the item starts being tracked.
+     */
+    public void add(long key, byte[] label, int labelLength) {
+        add(key, 1, 0, label, labelLength);
+    }
+
+    private void add(long key, long count, long error, byte[] label, int labelLength) {
+        int slot = find(key);
+        if (slot >= 0) {
+            counts[slot] += count;
+            errors[slot] += error;
+            siftDown(heapPositions[slot]);
+            return;
+        }
+        if (size < capacity) {
+            slot = size++;
+            heap[slot] = slot;
+            heapPositions[slot] = slot;
+            track(slot, key, count, error, label, labelLength);
+            siftUp(slot);
+        } else {
+            slot = heap[0];
+            long min = counts[slot];
+            unindex(keys[slot]);
+            track(slot, key, min + count, min + error, label, labelLength);
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Folds {@code other} into this summary. An item tracked by only one side may have
+     * occurred up to the other side's minimum count, which is added to its count and error;
+     * items that do not fit replace the least frequent ones as in {@link #add}.
+     */
+    public void merge(SpaceSaving other) {
+        long otherMin = other.size == other.capacity ? other.counts[other.heap[0]] : 0;
+        if (otherMin > 0) {
+            for (int slot = 0; slot < size; slot++) {
+                if (other.find(keys[slot]) < 0) {
+                    counts[slot] += otherMin;
+                    errors[slot] += otherMin;
+                    siftDown(heapPositions[slot]);
+                }
+            }
+        }
+        for (int slot = 0; slot < other.size; slot++) {
+            add(other.keys[slot], other.counts[slot], other.errors[slot], other.labels[slot], other.labelLengths[slot]);
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} tracked items, most frequent first.
+     */
+    public List<Item> top(int limit) {
+        List<Item> items = new ArrayList<>(size);
+        for (int slot = 0; slot < size; slot++) {
+            items.add(new Item(Arrays.copyOf(labels[slot], labelLengths[slot]), counts[slot], errors[slot]));
+        }
+        items.sort(Comparator.comparingLong(Item::count).reversed());
+        return items.subList(0, Math.min(limit, items.size()));
+    }
+
+    private void track(int slot, long key, long count, long error, byte[] label, int labelLength) {
+        keys[slot] = key;
+        counts[slot] = count;
+        errors[slot] = error;
+        int length = Math.min(labelLength, MAX_LABEL_LENGTH);
+        System.arraycopy(label, 0, labels[slot], 0, length);
+        labelLengths[slot] = length;
+        int i = (int) mix(key) & indexMask;
+        while (index[i] != 0) {
+            i = (i + 1) & indexMask;
+        }
+        index[i] = slot + 1;
+    }
+
+    private int find(long key) {
+        int i = (int) mix(key) & indexMask;
+        int entry;
+        while ((entry = index[i]) != 0) {
+            if (keys[entry - 1] == key) {
+                return entry - 1;
+            }
+            i = (i + 1) & indexMask;
+        }
+        return -1;
+    }
+
+    /** Removes {@code key} from the index, shifting later entries back to keep probes intact. */
+    private void unindex(long key) {
+        int i = (int) mix(key) & indexMask;
+        while (keys[index[i] - 1] != key) {
+            i = (i + 1) & indexMask;
+        }
+        int hole = i;
+        int j = i;
+        while (true) {
+            j = (j + 1) & indexMask;
+            if (index[j] == 0) {
+                break;
+            }
+            int home = (int) mix(keys[index[j] - 1]) & indexMask;
+            // Move the entry back unless its home lies cyclically within (hole, j].
+            if (hole <= j ? (home <= hole || home > j) : (home <= hole && home > j)) {
+                index[hole] = index[j];
+                hole = j;
+            }
+        }
+        index[hole] = 0;
+    }
+
+    private void siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (counts[heap[parent]] <= counts[heap[position]]) {
+                return;
+            }
+            swap(position, parent);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int position) {
+        while (true) {
+            int left = 2 * position + 1;
+            if (left >= size) {
+                return;
+            }
+            int right = left + 1;
+            int smallest = right < size && counts[heap[right]] < counts[heap[left]] ? right : left;
+            if (counts[heap[position]] <= counts[heap[smallest]]) {
+                return;
+            }
+            swap(position, smallest);
+            position = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int slotA = heap[a];
+        int slotB = heap[b];
+        heap[a] = slotB;
+        heap[b] = slotA;
+        heapPositions[slotB] = a;
+        heapPositions[slotA] = b;
+    }
+
+    private static long mix(long key) {
+        return key ^ (key >>> 32);
+    }
+}
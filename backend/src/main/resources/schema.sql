@@ -1,7 +1,45 @@
+CREATE SEQUENCE IF NOT EXISTS file_metadata_id_seq INCREMENT BY 50;
+
 CREATE TABLE IF NOT EXISTS file_metadata (
-  id SERIAL PRIMARY KEY,
+  id BIGINT PRIMARY KEY DEFAULT nextval('file_metadata_id_seq'),
   file_name VARCHAR(1024) NOT NULL,
   line_count BIGINT DEFAULT 0,
   word_count BIGINT DEFAULT 0,
   uploaded_at TIMESTAMP WITHOUT TIME ZONE
 );
+
+-- Databases created with the former SERIAL column: let Hibernate allocate ids in blocks of 50.
+-- Only runs with spring.sql.init.mode=always; otherwise the 'fix' increment size mismatch
+-- strategy in application.yml keeps such databases working one id at a time.
+ALTER SEQUENCE file_metadata_id_seq INCREMENT BY 50;
+
+ALTER TABLE file_metadata ADD COLUMN IF NOT EXISTS content_hash VARCHAR(64);
+CREATE INDEX IF NOT EXISTS idx_file_metadata_content_hash ON file_metadata (content_hash);
+
+-- Keyset pagination seeks on (uploaded_at, id) in newest-first order.
+CREATE INDEX IF NOT EXISTS idx_file_metadata_uploaded_at_id ON file_metadata (uploaded_at DESC, id DESC);
+
+ALTER TABLE file_metadata ADD COLUMN IF NOT EXISTS csv_stats JSONB;
+
+ALTER TABLE file_metadata ADD COLUMN IF NOT EXISTS text_profile JSONB;
+
+-- File name prefix search (LIKE 'prefix%') regardless of collation. pg_trgm is a trusted
+-- extension, so the database owner can create it.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS idx_file_metadata_file_name_trgm ON file_metadata USING gin (file_name gin_trgm_ops);
+
+-- Upload totals per day, upserted in the same transaction as the rows they count.
+CREATE TABLE IF NOT EXISTS file_daily_stats (
+  day DATE PRIMARY KEY,
+  file_count BIGINT NOT NULL,
+  line_count BIGINT NOT NULL,
+  word_count BIGINT NOT NULL
+);
+
+-- One-off backfill from rows stored before the rollup existed.
+INSERT INTO file_daily_stats (day, file_count, line_count, word_count)
+SELECT uploaded_at::date, count(*), coalesce(sum(line_count), 0), coalesce(sum(word_count), 0)
+FROM file_metadata
+WHERE uploaded_at IS NOT NULL AND NOT EXISTS (SELECT 1 FROM file_daily_stats)
+GROUP BY uploaded_at::date
+ON CONFLICT (day) DO NOTHING;
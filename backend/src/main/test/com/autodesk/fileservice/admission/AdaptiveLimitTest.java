@@ -0,0 +1,83 @@
+package com.autodesk.fileservice.admission;
+
+import com.autodesk.fileservice.admission.AdaptiveLimit.Decision;
+import com.autodesk.fileservice.config.FileProcessingProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.*;
+
+class AdaptiveLimitTest {
+
+    private static final long FAST = Duration.ofMillis(10).toNanos();
+    private static final long SLOW = Duration.ofSeconds(1).toNanos();
+
+    private static FileProcessingProperties.Admission.Budget budget(int initial, int min, int max) {
+        return new FileProcessingProperties.Admission.Budget(initial, min, max, Duration.ofMillis(100));
+    }
+
+    @Test
+    void shouldRejectOnceTheLimitIsInFlight() {
+        AdaptiveLimit limit = new AdaptiveLimit(budget(2, 1, 10));
+
+        assertThat(limit.tryAcquire(0)).isEqualTo(Decision.ADMITTED);
+        assertThat(limit.tryAcquire(0)).isEqualTo(Decision.ADMITTED);
+        assertThat(limit.tryAcquire(0)).isEqualTo(Decision.OVER_LIMIT);
+
+        limit.releaseWithoutSample(0);
+        assertThat(limit.tryAcquire(0)).isEqualTo(Decision.ADMITTED);
+    }
+
+    @Test
+    void shouldGrowOnFastRequestsOnlyWhileTheLimitIsInUse() {
+        AdaptiveLimit limit = new AdaptiveLimit(budget(4, 1, 5));
+
+        limit.tryAcquire(0);
+        limit.release(0, FAST, false);
+        assertThat(limit.getLimit()).isEqualTo(4);
+
+        for (int i = 0; i < 4; i++) {
+            limit.tryAcquire(0);
+        }
+        limit.release(0, FAST, false);
+        limit.release(0, FAST, false);
+        limit.release(0, FAST, false);
+        assertThat(limit.getLimit()).isEqualTo(5);
+    }
+
+    @Test
+    void shouldBackOffOnSlowOrOverloadedRequestsDownToTheMinimum() {
+        AdaptiveLimit limit = new AdaptiveLimit(budget(20, 15, 50));
+
+        limit.tryAcquire(0);
+        limit.release(0, SLOW, false);
+        assertThat(limit.getLimit()).isEqualTo(18);
+
+        limit.tryAcquire(0);
+        limit.release(0, FAST, true);
+        assertThat(limit.getLimit()).isEqualTo(16);
+
+        limit.tryAcquire(0);
+        limit.release(0, SLOW, false);
+        assertThat(limit.getLimit()).isEqualTo(15);
+        assertThat(limit.getInFlight()).isZero();
+    }
+
+    @Test
+    void shouldCapDeclaredBytesButAdmitAnOversizedRequestAlone() {
+        FileProcessingProperties.Admission.Budget budget = budget(10, 1, 10);
+        budget.setMaxInFlightBytes(DataSize.ofBytes(100));
+        AdaptiveLimit limit = new AdaptiveLimit(budget);
+
+        assertThat(limit.tryAcquire(60)).isEqualTo(Decision.ADMITTED);
+        assertThat(limit.tryAcquire(60)).isEqualTo(Decision.OVER_BYTES);
+        assertThat(limit.getInFlight()).isEqualTo(1);
+
+        limit.release(60, FAST, false);
+        assertThat(limit.tryAcquire(500)).isEqualTo(Decision.ADMITTED);
+        assertThat(limit.getInFlightBytes()).isEqualTo(500);
+        assertThat(limit.tryAcquire(1)).isEqualTo(Decision.OVER_BYTES);
+    }
+}
@@ -0,0 +1,125 @@
+package com.autodesk.fileservice.admission;
+
+import com.autodesk.fileservice.config.FileProcessingProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.DelegatingServletInputStream;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.*;
+
+class AdmissionFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private AdmissionFilter filter(int writeLimit) {
+        FileProcessingProperties.Admission admission = new FileProcessingProperties.Admission();
+        admission.getWrite().setInitialLimit(writeLimit);
+        admission.getWrite().setMinLimit(1);
+        return new AdmissionFilter(admission, meterRegistry);
+    }
+
+    @Test
+    void shouldShedWritesOverBudgetWhileReadsPassThrough() throws Exception {
+        AdmissionFilter filter = filter(1);
+        CountDownLatch inside = new CountDownLatch(1);
+        CountDownLatch leave = new CountDownLatch(1);
+        FilterChain blocking = (request, response) -> {
+            inside.countDown();
+            try {
+                leave.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        try (ExecutorService executor = Executors.newSingleThreadExecutor()) {
+            Future<?> upload = executor.submit(() -> {
+                filter.doFilter(new MockHttpServletRequest("POST", "/api/files/upload"), new MockHttpServletResponse(), blocking);
+                return null;
+            });
+            inside.await();
+
+            MockHttpServletResponse rejected = new MockHttpServletResponse();
+            filter.doFilter(new MockHttpServletRequest("POST", "/api/files/upload"), rejected, new MockFilterChain());
+            assertThat(rejected.getStatus()).isEqualTo(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+            assertThat(rejected.getContentAsString()).contains("Server is busy");
+
+            MockHttpServletResponse listed = new MockHttpServletResponse();
+            filter.doFilter(new MockHttpServletRequest("GET", "/api/files/list"), listed, new MockFilterChain());
+            assertThat(listed.getStatus()).isEqualTo(HttpServletResponse.SC_OK);
+
+            leave.countDown();
+            upload.get();
+        }
+
+        assertThat(meterRegistry.get("file.admission.rejected").tag("budget", "write").tag("reason", "limit")
+                .counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("file.admission.inflight").tag("budget", "write").gauge().value()).isZero();
+    }
+
+    @Test
+    void shouldNotCountTheWaitForTheRequestBodyAsLatency() throws Exception {
+        FileProcessingProperties.Admission admission = new FileProcessingProperties.Admission();
+        admission.getWrite().setInitialLimit(10);
+        admission.getWrite().setLatencyThreshold(Duration.ofMillis(50));
+        AdmissionFilter filter = new AdmissionFilter(admission, meterRegistry);
+        InputStream slowClient = new ByteArrayInputStream(new byte[8 * 1024 * 1024]) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                sleep(20);
+                return super.read(b, off, Math.min(len, 1024 * 1024));
+            }
+        };
+        MockHttpServletRequest upload = new MockHttpServletRequest("POST", "/api/files/upload/stream") {
+            @Override
+            public ServletInputStream getInputStream() {
+                return new DelegatingServletInputStream(slowClient);
+            }
+        };
+        upload.addHeader(HttpHeaders.CONTENT_LENGTH, 8 * 1024 * 1024);
+        FilterChain readBody = (request, response) -> request.getInputStream().transferTo(OutputStream.nullOutputStream());
+        FilterChain slowServer = (request, response) -> sleep(100);
+
+        filter.doFilter(upload, new MockHttpServletResponse(), readBody);
+        double afterSlowClient = meterRegistry.get("file.admission.limit").tag("budget", "write").gauge().value();
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/files/upload"), new MockHttpServletResponse(), slowServer);
+
+        assertThat(afterSlowClient).isEqualTo(10);
+        assertThat(meterRegistry.get("file.admission.limit").tag("budget", "write").gauge().value()).isEqualTo(9);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    void shouldBackOffWhenTheApplicationRejectsForCapacity() throws Exception {
+        AdmissionFilter filter = filter(10);
+        FilterChain busy = (request, response) -> ((HttpServletResponse) response).setStatus(503);
+
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/files/upload/async"), new MockHttpServletResponse(), busy);
+
+        assertThat(meterRegistry.get("file.admission.limit").tag("budget", "write").gauge().value()).isEqualTo(9);
+    }
+}
@@ -0,0 +1,39 @@
+package com.autodesk.fileservice.config;
+
+import com.autodesk.fileservice.model.CsvColumnStats;
+import com.autodesk.fileservice.model.TextProfile;
+import com.autodesk.fileservice.model.WordCount;
+import io.swagger.v3.oas.models.info.Info;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileServiceRuntimeHintsTest {
+
+    private final RuntimeHints hints = new RuntimeHints();
+
+    FileServiceRuntimeHintsTest() {
+        new FileServiceRuntimeHints().registerHints(hints, getClass().getClassLoader());
+    }
+
+    @Test
+    void jsonColumnTypesAreBoundForReflection() throws NoSuchMethodException {
+        // Nested types are reached through the record components.
+        assertTrue(RuntimeHintsPredicates.reflection().onType(CsvColumnStats.class).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(WordCount.class).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection()
+                .onMethod(TextProfile.class.getMethod("topWords")).test(hints));
+    }
+
+    @Test
+    void dialectAndOpenApiModelAreRegistered() {
+        assertTrue(RuntimeHintsPredicates.reflection().onType(PostgreSQLDialect.class)
+                .withMemberCategory(MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(Info.class).test(hints));
+        assertTrue(RuntimeHintsPredicates.resource().forResource("schema.sql").test(hints));
+    }
+}
@@ -1,24 +1,55 @@
 package com.autodesk.fileservice.controller;
 
+import com.autodesk.fileservice.exception.InvalidPageRequestException;
 import com.autodesk.fileservice.exception.PayloadTooLargeException;
 import com.autodesk.fileservice.exception.UnsupportedMediaTypeException;
+import com.autodesk.fileservice.exception.UploadConflictException;
+import com.autodesk.fileservice.model.BatchUploadResult;
+import com.autodesk.fileservice.model.FileCursorPage;
+import com.autodesk.fileservice.model.DailyFileStats;
 import com.autodesk.fileservice.model.FileMetadata;
+import com.autodesk.fileservice.model.FileSearchCriteria;
+import com.autodesk.fileservice.model.FileStatsSummary;
+import com.autodesk.fileservice.exception.ProcessingRejectedException;
+import com.autodesk.fileservice.model.ProcessingJob;
+import com.autodesk.fileservice.model.UploadSession;
+import com.autodesk.fileservice.service.AsyncProcessingService;
+import com.autodesk.fileservice.service.BatchUploadService;
 import com.autodesk.fileservice.service.FileProcessingService;
+import com.autodesk.fileservice.service.FileStatsService;
+import com.autodesk.fileservice.service.MetadataExportService;
+import com.autodesk.fileservice.service.UploadSessionService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
 
 import static org.hamcrest.Matchers.containsString;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(FileController.class)
@@ -30,6 +61,21 @@ class FileControllerTest {
     @MockBean
     private FileProcessingService fileProcessingService;
 
+    @MockBean
+    private AsyncProcessingService asyncProcessingService;
+
+    @MockBean
+    private MetadataExportService metadataExportService;
+
+    @MockBean
+    private BatchUploadService batchUploadService;
+
+    @MockBean
+    private UploadSessionService uploadSessionService;
+
+    @MockBean
+    private FileStatsService fileStatsService;
+
     private MockMultipartFile validTxtFile;
     private MockMultipartFile largeFile;
     private MockMultipartFile invalidFile;
@@ -105,5 +151,247 @@ class FileControllerTest {
                 .andExpect(status().isInternalServerError())
                 .andExpect(jsonPath("$.error").value("Internal server error"));
     }
-}
 
+    @Test
+    void testStream_ValidTxtBody_ReturnsOk() throws Exception {
+        FileMetadata metadata = new FileMetadata();
+        metadata.setId(2L);
+        metadata.setFileName("stream.txt");
+        metadata.setLineCount(2);
+        metadata.setWordCount(5);
+
+        when(fileProcessingService.processAndSave(eq("stream.txt"), any(InputStream.class), anyLong())).thenReturn(metadata);
+
+        mockMvc.perform(post("/api/files/stream")
+                        .param("fileName", "stream.txt")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content("Hello world\nThis is a test".getBytes(StandardCharsets.UTF_8)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(2))
+                .andExpect(jsonPath("$.lineCount").value(2))
+                .andExpect(jsonPath("$.wordCount").value(5));
+    }
+
+    @Test
+    void testStream_BodyTooLarge_ReturnsPayloadTooLarge() throws Exception {
+        when(fileProcessingService.processAndSave(eq("big.txt"), any(InputStream.class), anyLong()))
+                .thenThrow(new PayloadTooLargeException("5MB"));
+
+        mockMvc.perform(post("/api/files/stream")
+                        .param("fileName", "big.txt")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content(new byte[16]))
+                .andExpect(status().isPayloadTooLarge())
+                .andExpect(jsonPath("$.error").value(containsString(PayloadTooLargeException.MESSAGE)));
+    }
+
+    @Test
+    void testCreateUploadSession_ReturnsCreatedWithLocation() throws Exception {
+        when(uploadSessionService.create("big.txt", 100L))
+                .thenReturn(new UploadSession("s-1", "big.txt", 100L, 0L, Instant.now()));
+
+        mockMvc.perform(post("/api/files/uploads")
+                        .param("fileName", "big.txt")
+                        .param("length", "100"))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Location", "/api/files/uploads/s-1"))
+                .andExpect(jsonPath("$.offset").value(0));
+    }
+
+    @Test
+    void testUploadChunk_ReturnsNewOffset() throws Exception {
+        when(uploadSessionService.append(eq("s-1"), eq(40L), any(InputStream.class)))
+                .thenReturn(new UploadSession("s-1", "big.txt", 100L, 60L, Instant.now()));
+
+        mockMvc.perform(put("/api/files/uploads/s-1")
+                        .header("Upload-Offset", "40")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content(new byte[20]))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Upload-Offset", "60"))
+                .andExpect(jsonPath("$.offset").value(60));
+    }
+
+    @Test
+    void testUploadChunk_WrongOffset_ReturnsConflictWithCurrentOffset() throws Exception {
+        when(uploadSessionService.append(eq("s-1"), eq(0L), any(InputStream.class)))
+                .thenThrow(new UploadConflictException("Chunk starts at byte 0 but the upload continues at byte 60.", 60L));
+
+        mockMvc.perform(put("/api/files/uploads/s-1")
+                        .header("Upload-Offset", "0")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content(new byte[20]))
+                .andExpect(status().isConflict())
+                .andExpect(header().string("Upload-Offset", "60"));
+    }
+
+    @Test
+    void testCompleteUpload_ReturnsResult() throws Exception {
+        FileMetadata metadata = new FileMetadata();
+        metadata.setId(9L);
+        metadata.setLineCount(3);
+        when(uploadSessionService.complete("s-1")).thenReturn(metadata);
+
+        mockMvc.perform(post("/api/files/uploads/s-1/complete"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(9))
+                .andExpect(jsonPath("$.lineCount").value(3));
+    }
+
+    @Test
+    void testUploadAsync_ValidFile_ReturnsAcceptedWithJobLocation() throws Exception {
+        ProcessingJob job = new ProcessingJob("job-1", "test.txt", Instant.now());
+        when(asyncProcessingService.submit(any())).thenReturn(job);
+
+        mockMvc.perform(multipart("/api/files/upload/async")
+                        .file(validTxtFile))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/files/jobs/job-1"))
+                .andExpect(jsonPath("$.id").value("job-1"))
+                .andExpect(jsonPath("$.status").value("QUEUED"));
+    }
+
+    @Test
+    void testUploadAsync_QueueFull_ReturnsServiceUnavailableWithRetryAfter() throws Exception {
+        when(asyncProcessingService.submit(any())).thenThrow(new ProcessingRejectedException(5));
+
+        mockMvc.perform(multipart("/api/files/upload/async")
+                        .file(validTxtFile))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "5"))
+                .andExpect(jsonPath("$.error").value(ProcessingRejectedException.MESSAGE));
+    }
+
+    @Test
+    void testGetJob_Completed_ReturnsResult() throws Exception {
+        FileMetadata metadata = new FileMetadata();
+        metadata.setId(7L);
+        metadata.setFileName("test.txt");
+        ProcessingJob job = new ProcessingJob("job-2", "test.txt", Instant.now());
+        job.complete(metadata, Instant.now());
+        when(asyncProcessingService.findJob("job-2")).thenReturn(Optional.of(job));
+
+        mockMvc.perform(get("/api/files/jobs/job-2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("COMPLETED"))
+                .andExpect(jsonPath("$.result.id").value(7));
+    }
+
+    @Test
+    void testGetJob_Unknown_ReturnsNotFound() throws Exception {
+        when(asyncProcessingService.findJob("missing")).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/files/jobs/missing"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testListByCursor_ReturnsItemsAndNextCursor() throws Exception {
+        FileMetadata metadata = new FileMetadata();
+        metadata.setId(3L);
+        metadata.setFileName("test.txt");
+        when(fileProcessingService.listAfter("abc", 1)).thenReturn(new FileCursorPage(List.of(metadata), "def"));
+
+        mockMvc.perform(get("/api/files/list/cursor").param("cursor", "abc").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(3))
+                .andExpect(jsonPath("$.nextCursor").value("def"));
+    }
+
+    @Test
+    void testSearch_PassesFiltersToService() throws Exception {
+        FileMetadata metadata = new FileMetadata();
+        metadata.setId(4L);
+        metadata.setFileName("report.txt");
+        FileSearchCriteria criteria = new FileSearchCriteria("rep",
+                LocalDateTime.of(2024, 1, 1, 0, 0), LocalDateTime.of(2024, 2, 1, 0, 0));
+        when(fileProcessingService.search(criteria, null, 5)).thenReturn(new FileCursorPage(List.of(metadata), null));
+
+        mockMvc.perform(get("/api/files/search")
+                        .param("prefix", "rep")
+                        .param("from", "2024-01-01T00:00:00")
+                        .param("to", "2024-02-01T00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].fileName").value("report.txt"));
+    }
+
+    @Test
+    void testSearch_MalformedTime_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/files/search").param("from", "yesterday"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Invalid value for parameter: from"));
+    }
+
+    @Test
+    void testStats_ReturnsTotalsAndDays() throws Exception {
+        LocalDate from = LocalDate.of(2024, 1, 1);
+        LocalDate to = LocalDate.of(2024, 1, 7);
+        when(fileStatsService.summarize(from, to)).thenReturn(new FileStatsSummary(from, to, 3, 15, 52,
+                List.of(new DailyFileStats(LocalDate.of(2024, 1, 3), 3, 15, 52))));
+
+        mockMvc.perform(get("/api/files/stats").param("from", "2024-01-01").param("to", "2024-01-07"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.wordCount").value(52))
+                .andExpect(jsonPath("$.days[0].day").value("2024-01-03"))
+                .andExpect(jsonPath("$.days[0].fileCount").value(3));
+    }
+
+    @Test
+    void testListByCursor_InvalidCursor_ReturnsBadRequest() throws Exception {
+        when(fileProcessingService.listAfter(eq("bogus"), anyInt())).thenThrow(new InvalidPageRequestException("Invalid cursor"));
+
+        mockMvc.perform(get("/api/files/list/cursor").param("cursor", "bogus"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Invalid cursor"));
+    }
+
+    @Test
+    void testExport_Csv_StreamsAttachment() throws Exception {
+        when(metadataExportService.export(eq(MetadataExportService.Format.CSV), any())).thenAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(1);
+            out.write("id,file_name\r\n1,a.txt\r\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        });
+
+        MvcResult result = mockMvc.perform(get("/api/files/export").param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", containsString("text/csv")))
+                .andExpect(header().string("Content-Disposition", containsString("file-metadata.csv")))
+                .andExpect(content().string("id,file_name\r\n1,a.txt\r\n"));
+    }
+
+    @Test
+    void testExport_UnknownFormat_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/files/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testUploadBatch_ReturnsPerFileResults() throws Exception {
+        FileMetadata metadata = new FileMetadata();
+        metadata.setId(5L);
+        metadata.setFileName("test.txt");
+        when(batchUploadService.process(any())).thenReturn(BatchUploadResult.of(List.of(
+                BatchUploadResult.Item.success("test.txt", metadata),
+                BatchUploadResult.Item.failure("test.exe", UnsupportedMediaTypeException.MESSAGE))));
+
+        mockMvc.perform(multipart("/api/files/upload/batch")
+                        .file(new MockMultipartFile("files", "test.txt", "text/plain", "a".getBytes(StandardCharsets.UTF_8)))
+                        .file(new MockMultipartFile("files", "test.exe", "application/octet-stream", "b".getBytes(StandardCharsets.UTF_8))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded").value(1))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.files[0].result.id").value(5))
+                .andExpect(jsonPath("$.files[1].error").value(UnsupportedMediaTypeException.MESSAGE));
+    }
+
+    @Test
+    void testUploadBatch_NoFiles_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(multipart("/api/files/upload/batch"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,194 @@
+package com.autodesk.fileservice.counter;
+
+import com.autodesk.fileservice.config.FileProcessingProperties.Text.WordSeparators;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ByteScanningTextStatsCounterTest {
+
+    private static final Pattern UNICODE_WORD = Pattern.compile("\\S+", Pattern.UNICODE_CHARACTER_CLASS);
+
+    private final ByteScanningTextStatsCounter counter = new ByteScanningTextStatsCounter();
+    private final ByteScanningTextStatsCounter unicodeCounter = new ByteScanningTextStatsCounter(WordSeparators.UNICODE);
+
+    /** The readLine()/split implementation this counter replaces. */
+    private static TextStats reference(byte[] content) throws IOException {
+        long lines = 0L;
+        long words = 0L;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(content), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines++;
+                if (!line.isBlank()) {
+                    words += line.trim().split("\\s+").length;
+                }
+            }
+        }
+        return new TextStats(lines, words);
+    }
+
+    /** Lines as above, words as runs of non-White_Space characters. */
+    private static TextStats unicodeReference(byte[] content) throws IOException {
+        long lines = 0L;
+        long words = 0L;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(content), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines++;
+                Matcher matcher = UNICODE_WORD.matcher(line);
+                while (matcher.find()) {
+                    words++;
+                }
+            }
+        }
+        return new TextStats(lines, words);
+    }
+
+    /** Random text over {@code alphabet}, counted whole, as a direct buffer and in small chunks. */
+    private static void assertMatchesReferenceInAnyChunks(ByteScanningTextStatsCounter counter, String alphabet,
+                                                          int maxLength, boolean unicode) throws IOException {
+        Random random = new Random(42);
+        for (int round = 0; round < 500; round++) {
+            StringBuilder sb = new StringBuilder();
+            int length = random.nextInt(maxLength);
+            for (int i = 0; i < length; i++) {
+                sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+            TextStats expected = unicode ? unicodeReference(bytes) : reference(bytes);
+
+            assertThat(counter.count(ByteBuffer.wrap(bytes))).isEqualTo(expected);
+
+            TextStatsAccumulator accumulator = counter.newAccumulator();
+            ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+            int offset = 0;
+            while (offset < bytes.length) {
+                int chunk = Math.min(1 + random.nextInt(length / 8 + 7), bytes.length - offset);
+                if (random.nextBoolean()) {
+                    accumulator.update(direct.slice(offset, chunk));
+                } else {
+                    accumulator.update(bytes, offset, chunk);
+                }
+                offset += chunk;
+            }
+            assertThat(accumulator.finish()).isEqualTo(expected);
+        }
+    }
+
+    private TextStats count(String content) throws IOException {
+        return counter.count(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void shouldCountSimpleText() throws Exception {
+        assertThat(count("hello world\nthis is a test")).isEqualTo(new TextStats(2, 6));
+    }
+
+    @Test
+    void shouldReturnZeroForEmptyContent() throws Exception {
+        assertThat(count("")).isEqualTo(TextStats.EMPTY);
+    }
+
+    @Test
+    void shouldCountBlankLinesAndTrailingLineWithoutNewline() throws Exception {
+        assertThat(count("a b\n\n   \nc")).isEqualTo(new TextStats(4, 3));
+        assertThat(count("a\n")).isEqualTo(new TextStats(1, 1));
+        assertThat(count("a\n\n")).isEqualTo(new TextStats(2, 1));
+    }
+
+    @Test
+    void shouldTreatCrLfAndCrAsLineTerminators() throws Exception {
+        assertThat(count("a b\r\nc\rd e\r\n")).isEqualTo(new TextStats(3, 5));
+        assertThat(count("\r\r\n\n")).isEqualTo(new TextStats(3, 0));
+    }
+
+    @Test
+    void shouldMatchSplitSemanticsForUnicodeAndControlCharacters() throws Exception {
+        String[] samples = {
+                "\u2003",            // blank: Unicode whitespace only
+                "\u2003 a",          // split() does not separate on U+2003
+                "a\u00A0b",          // NBSP is part of a word
+                "\u0001",            // not blank, but trims to nothing
+                "a \u0001 b",        // inner control character is a word
+                "a \u0001",          // trailing control character is trimmed
+                "\u001C\u001D",      // blank control characters
+                "\uFEFFbom line",
+                "\u3000\u1680\u205F",
+                "tab\tsep\u000Bvt\ffeed"
+        };
+        for (String sample : samples) {
+            byte[] bytes = sample.getBytes(StandardCharsets.UTF_8);
+            assertThat(counter.count(new ByteArrayInputStream(bytes)))
+                    .as("sample %s", sample.codePoints().mapToObj(Integer::toHexString).toList())
+                    .isEqualTo(reference(bytes));
+        }
+    }
+
+    @Test
+    void shouldMatchDecoderForMalformedUtf8() throws Exception {
+        byte[][] samples = {
+                {(byte) 0xE2, '\n', 'a'},
+                {(byte) 0xE2, (byte) 0x80, ' ', 'b'},
+                {(byte) 0x80},
+                {' ', (byte) 0xE3, (byte) 0x80}
+        };
+        for (byte[] sample : samples) {
+            assertThat(counter.count(new ByteArrayInputStream(sample))).isEqualTo(reference(sample));
+        }
+    }
+
+    @Test
+    void shouldMatchReferenceOnRandomContentRegardlessOfChunking() throws Exception {
+        assertMatchesReferenceInAnyChunks(counter,
+                "ab \t\n\r\u000B\f\u0001\u001F\u00A0\u2003\u3000\u00E9\uD83D\uDE00", 200, false);
+    }
+
+    @Test
+    void shouldMatchReferenceOnMostlyAsciiContent() throws Exception {
+        // Long runs of printable ASCII take the eight-byte path, interrupted by everything else.
+        assertMatchesReferenceInAnyChunks(counter, "abcdefgh   abcdefgh   \n\r\t\u0001\u00E9", 2000, false);
+        assertMatchesReferenceInAnyChunks(counter, "abc  \n\r\t", 2000, false);
+    }
+
+    @Test
+    void shouldSplitWordsOnUnicodeWhitespaceWhenConfigured() throws Exception {
+        byte[] nbsp = "a\u00A0b\u3000c d\u2003".getBytes(StandardCharsets.UTF_8);
+        assertThat(counter.count(ByteBuffer.wrap(nbsp))).isEqualTo(new TextStats(1, 2));
+        assertThat(unicodeCounter.count(ByteBuffer.wrap(nbsp))).isEqualTo(new TextStats(1, 4));
+        assertThat(unicodeCounter.count(ByteBuffer.wrap("\u0085x\u1680\u205Fy\u202F".getBytes(StandardCharsets.UTF_8))))
+                .isEqualTo(new TextStats(1, 2));
+    }
+
+    @Test
+    void shouldMatchUnicodeReferenceRegardlessOfChunking() throws Exception {
+        assertMatchesReferenceInAnyChunks(unicodeCounter,
+                "ab \t\n\r\u000B\f\u0001\u001F\u0085\u00A0\u00E9\u1680\u2003\u2028\u202F\u3000\u3001\uD83D\uDE00",
+                200, true);
+        assertMatchesReferenceInAnyChunks(unicodeCounter, "abcdefgh   abcdefgh   \n\r\t\u00A0\u00E9", 2000, true);
+        assertMatchesReferenceInAnyChunks(unicodeCounter, "abc  \n\r\t", 2000, true);
+    }
+
+    @Test
+    void shouldCountMalformedUtf8AsWordCharacterWithUnicodeSeparators() throws Exception {
+        byte[][] samples = {
+                {(byte) 0xE2, '\n', 'a'},
+                {(byte) 0xE2, (byte) 0x80, ' ', 'b'},
+                {(byte) 0xC2, (byte) 0xC2, (byte) 0xA0},
+                {' ', (byte) 0xE3, (byte) 0x80}
+        };
+        for (byte[] sample : samples) {
+            assertThat(unicodeCounter.count(ByteBuffer.wrap(sample))).isEqualTo(unicodeReference(sample));
+        }
+    }
+}
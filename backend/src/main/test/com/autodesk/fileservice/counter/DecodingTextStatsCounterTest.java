@@ -0,0 +1,123 @@
+package com.autodesk.fileservice.counter;
+
+import com.autodesk.fileservice.config.FileProcessingProperties;
+import com.autodesk.fileservice.config.FileProcessingProperties.Text.MalformedInput;
+import com.autodesk.fileservice.exception.InvalidContentException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.*;
+
+class DecodingTextStatsCounterTest {
+
+    private static final String TEXT = "naïve café\r\n\n日本語 テキスト 😀 end\nlast line";
+    private static final TextStats TEXT_STATS = new TextStats(4, 8);
+
+    private static DecodingTextStatsCounter counter(Charset charset, MalformedInput malformedInput) {
+        FileProcessingProperties properties = new FileProcessingProperties();
+        properties.getText().setCharset(charset);
+        properties.getText().setMalformedInput(malformedInput);
+        return new DecodingTextStatsCounter(
+                new ProfilingTextStatsCounter(new ByteScanningTextStatsCounter(), properties), properties);
+    }
+
+    private static byte[] withMark(int[] mark, byte[] content) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int b : mark) {
+            out.write(b);
+        }
+        out.writeBytes(content);
+        return out.toByteArray();
+    }
+
+    /** Counts byte by byte, so every character and the mark are split between updates. */
+    private static TextStats countBytewise(TextStatsCounter counter, byte[] content) {
+        TextStatsAccumulator accumulator = counter.newAccumulator();
+        for (int i = 0; i < content.length; i++) {
+            if (i % 2 == 0) {
+                accumulator.update(content, i, 1);
+            } else {
+                accumulator.update(ByteBuffer.allocateDirect(1).put(content[i]).flip());
+            }
+        }
+        return accumulator.finish();
+    }
+
+    @Test
+    void shouldDetectEncodingFromByteOrderMark() throws Exception {
+        DecodingTextStatsCounter counter = counter(StandardCharsets.ISO_8859_1, MalformedInput.REJECT);
+        byte[][] samples = {
+                withMark(new int[]{0xEF, 0xBB, 0xBF}, TEXT.getBytes(StandardCharsets.UTF_8)),
+                withMark(new int[]{0xFE, 0xFF}, TEXT.getBytes(StandardCharsets.UTF_16BE)),
+                withMark(new int[]{0xFF, 0xFE}, TEXT.getBytes(StandardCharsets.UTF_16LE))
+        };
+        for (byte[] sample : samples) {
+            assertThat(counter.count(new ByteArrayInputStream(sample))).isEqualTo(TEXT_STATS);
+            assertThat(countBytewise(counter, sample)).isEqualTo(TEXT_STATS);
+        }
+    }
+
+    @Test
+    void shouldNotCountUtf8MarkAsWord() throws Exception {
+        DecodingTextStatsCounter counter = counter(StandardCharsets.UTF_8, MalformedInput.REPLACE);
+        assertThat(counter.count(ByteBuffer.wrap(new byte[]{(byte) 0xEF, (byte) 0xBB, (byte) 0xBF, '\n', 'a'})))
+                .isEqualTo(new TextStats(2, 1));
+        assertThat(counter.count(ByteBuffer.wrap(new byte[]{(byte) 0xEF, (byte) 0xBB}))).isEqualTo(new TextStats(1, 1));
+        assertThat(counter.count(ByteBuffer.wrap(new byte[]{'a'}))).isEqualTo(new TextStats(1, 1));
+        assertThat(counter.count(ByteBuffer.wrap(new byte[0]))).isEqualTo(TextStats.EMPTY);
+    }
+
+    @Test
+    void shouldUseConfiguredCharsetWithoutMark() throws Exception {
+        byte[] latin1 = "déjà vu\nà la carte".getBytes(StandardCharsets.ISO_8859_1);
+        assertThat(counter(StandardCharsets.ISO_8859_1, MalformedInput.REJECT).count(ByteBuffer.wrap(latin1)))
+                .isEqualTo(new TextStats(2, 5));
+        assertThat(countBytewise(counter(StandardCharsets.UTF_16LE, MalformedInput.REJECT),
+                TEXT.getBytes(StandardCharsets.UTF_16LE))).isEqualTo(TEXT_STATS);
+    }
+
+    @Test
+    void shouldCountMalformedInputAsReplacementCharacterByDefault() throws Exception {
+        byte[] latin1 = "déjà vu".getBytes(StandardCharsets.ISO_8859_1);
+        assertThat(counter(StandardCharsets.UTF_8, MalformedInput.REPLACE).count(ByteBuffer.wrap(latin1)))
+                .isEqualTo(new TextStats(1, 2));
+        byte[] loneSurrogate = {(byte) 0xFF, (byte) 0xFE, 'a', 0, 0, (byte) 0xDC, ' ', 0, 'b', 0};
+        assertThat(counter(StandardCharsets.UTF_8, MalformedInput.REPLACE).count(ByteBuffer.wrap(loneSurrogate)))
+                .isEqualTo(new TextStats(1, 2));
+    }
+
+    @Test
+    void shouldRejectMalformedUtf8WhenConfigured() {
+        DecodingTextStatsCounter counter = counter(StandardCharsets.UTF_8, MalformedInput.REJECT);
+        byte[][] samples = {
+                "déjà".getBytes(StandardCharsets.ISO_8859_1),
+                {'a', (byte) 0xC0, (byte) 0xAF},                     // overlong '/'
+                {(byte) 0xED, (byte) 0xA0, (byte) 0x80},             // surrogate
+                {(byte) 0xF4, (byte) 0x90, (byte) 0x80, (byte) 0x80}, // above U+10FFFF
+                {'a', 'b', (byte) 0xE2, (byte) 0x82}                 // truncated
+        };
+        for (byte[] sample : samples) {
+            assertThatThrownBy(() -> counter.count(new ByteArrayInputStream(sample)))
+                    .isInstanceOf(InvalidContentException.class)
+                    .hasMessageContaining("UTF-8");
+            assertThatThrownBy(() -> countBytewise(counter, sample)).isInstanceOf(InvalidContentException.class);
+        }
+        assertThat(counter.count(ByteBuffer.wrap(TEXT.getBytes(StandardCharsets.UTF_8)))).isEqualTo(TEXT_STATS);
+    }
+
+    @Test
+    void shouldRejectMalformedUtf16WhenConfigured() {
+        DecodingTextStatsCounter counter = counter(StandardCharsets.UTF_8, MalformedInput.REJECT);
+        byte[] loneSurrogate = {(byte) 0xFF, (byte) 0xFE, 'a', 0, 0, (byte) 0xDC, ' ', 0};
+        assertThatThrownBy(() -> counter.count(ByteBuffer.wrap(loneSurrogate)))
+                .isInstanceOf(InvalidContentException.class)
+                .hasMessageContaining("UTF-16LE");
+        byte[] oddLength = {(byte) 0xFE, (byte) 0xFF, 0, 'a', 0};
+        assertThatThrownBy(() -> counter.count(ByteBuffer.wrap(oddLength))).isInstanceOf(InvalidContentException.class);
+    }
+}
@@ -0,0 +1,157 @@
+package com.autodesk.fileservice.counter;
+
+import com.autodesk.fileservice.config.FileProcessingProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ParallelTextStatsCounterTest {
+
+    private final ByteScanningTextStatsCounter sequential = new ByteScanningTextStatsCounter();
+    private ParallelTextStatsCounter parallel;
+
+    @TempDir
+    Path tempDir;
+
+    @AfterEach
+    void tearDown() {
+        if (parallel != null) {
+            parallel.shutdown();
+        }
+    }
+
+    private ParallelTextStatsCounter parallelCounter(long chunkSize) {
+        return parallelCounter(chunkSize, false);
+    }
+
+    private ParallelTextStatsCounter parallelCounter(long chunkSize, boolean mapped) {
+        FileProcessingProperties properties = new FileProcessingProperties();
+        properties.getParallel().setChunkSize(DataSize.ofBytes(chunkSize));
+        properties.getParallel().setParallelism(4);
+        properties.getMapped().setEnabled(mapped);
+        return new ParallelTextStatsCounter(sequential, new MappedTextStatsCounter(sequential), properties);
+    }
+
+    private ParallelTextStatsCounter decodingParallelCounter(long chunkSize, Charset charset) {
+        FileProcessingProperties properties = new FileProcessingProperties();
+        properties.getParallel().setChunkSize(DataSize.ofBytes(chunkSize));
+        properties.getParallel().setParallelism(4);
+        properties.getText().setCharset(charset);
+        DecodingTextStatsCounter counter = new DecodingTextStatsCounter(
+                new ProfilingTextStatsCounter(sequential, properties), properties);
+        return new ParallelTextStatsCounter(counter, new MappedTextStatsCounter(counter), properties);
+    }
+
+    private TextStats countInParallel(byte[] content) throws Exception {
+        Path file = Files.write(tempDir.resolve("content.txt"), content);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return parallel.count(channel);
+        }
+    }
+
+    @Test
+    void shouldMatchSequentialCountForAnyChunkSize() throws Exception {
+        String alphabet = "ab \t\n\r\u0001\u00A0\u2003\u00E9";
+        Random random = new Random(3);
+        for (int round = 0; round < 100; round++) {
+            StringBuilder sb = new StringBuilder();
+            int length = random.nextInt(2000);
+            for (int i = 0; i < length; i++) {
+                sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+            parallel = parallelCounter(1 + random.nextInt(64), random.nextBoolean());
+
+            assertThat(countInParallel(bytes)).isEqualTo(sequential.count(ByteBuffer.wrap(bytes)));
+            parallel.shutdown();
+        }
+    }
+
+    @Test
+    void shouldNotSplitCrLfAcrossChunks() throws Exception {
+        parallel = parallelCounter(2);
+        assertThat(countInParallel("a\r\nb\r\nc".getBytes(StandardCharsets.UTF_8))).isEqualTo(new TextStats(3, 3));
+    }
+
+    @Test
+    void shouldHandleSingleLineLongerThanChunk() throws Exception {
+        parallel = parallelCounter(4);
+        assertThat(countInParallel("one two three four five".getBytes(StandardCharsets.UTF_8))).isEqualTo(new TextStats(1, 5));
+    }
+
+    @Test
+    void shouldCountEmptyFile() throws Exception {
+        parallel = parallelCounter(4);
+        assertThat(countInParallel(new byte[0])).isEqualTo(TextStats.EMPTY);
+    }
+
+    @Test
+    void shouldCountUtf16FileInOneRange() throws Exception {
+        // U+0A0A is encoded as two \n bytes, which must not be taken for line ends.
+        String text = "a \u0A0A b\nc\u0A0Ad\r\ne f g\n";
+        byte[] utf16 = ("\uFEFF" + text).getBytes(StandardCharsets.UTF_16BE);
+        parallel = decodingParallelCounter(3, StandardCharsets.UTF_8);
+
+        assertThat(countInParallel(utf16)).isEqualTo(sequential.count(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    void shouldSplitSingleByteEncodings() throws Exception {
+        String text = "déjà vu\nà la carte\r\n\nnaïve  façade\n";
+        parallel = decodingParallelCounter(5, StandardCharsets.ISO_8859_1);
+
+        assertThat(countInParallel(text.getBytes(StandardCharsets.ISO_8859_1)))
+                .isEqualTo(sequential.count(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    void shouldSkipUtf8MarkOnlyAtStartOfFile() throws Exception {
+        byte[] mark = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+        byte[] content = ByteBuffer.allocate(12).put(mark).put("a\nb\n".getBytes(StandardCharsets.UTF_8))
+                .put(mark).put("\nc".getBytes(StandardCharsets.UTF_8)).array();
+        parallel = decodingParallelCounter(2, StandardCharsets.UTF_8);
+
+        // The second mark is a zero-width no-break space, which is not whitespace.
+        assertThat(countInParallel(content)).isEqualTo(new TextStats(4, 4));
+    }
+
+    @Test
+    void shouldFeedEveryByteInOrderWhileCounting() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            sb.append("row ").append(i).append(i % 5 == 0 ? "\r\n" : " x\n");
+        }
+        byte[] content = sb.toString().getBytes(StandardCharsets.UTF_8);
+        TextStats expected = sequential.count(ByteBuffer.wrap(content));
+        Path file = Files.write(tempDir.resolve("content.csv"), content);
+
+        for (long chunkSize : new long[]{1_000, 64 * 1024, content.length}) {
+            for (boolean mapped : new boolean[]{false, true}) {
+                parallel = parallelCounter(chunkSize, mapped);
+                ByteArrayOutputStream fed = new ByteArrayOutputStream();
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    assertThat(parallel.count(channel, buffer -> {
+                        byte[] bytes = new byte[buffer.remaining()];
+                        buffer.get(bytes);
+                        fed.writeBytes(bytes);
+                    })).isEqualTo(expected);
+                }
+                assertThat(fed.toByteArray()).as("chunk size %d, mapped %s", chunkSize, mapped).isEqualTo(content);
+                parallel.shutdown();
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.autodesk.fileservice.counter;
+
+import com.autodesk.fileservice.config.FileProcessingProperties;
+import com.autodesk.fileservice.model.TextProfile;
+import com.autodesk.fileservice.model.WordCount;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+class TextProfilerTest {
+
+    private static TextProfile profile(byte[] bytes, int trackedWords) {
+        TextProfiler profiler = new TextProfiler(trackedWords, 14);
+        profiler.update(bytes, 0, bytes.length);
+        return profiler.finish().toProfile(5);
+    }
+
+    @Test
+    void shouldCountBytesCharactersAndLongestLine() {
+        byte[] bytes = "héllo wörld\r\nüber\t€5\nend".getBytes(StandardCharsets.UTF_8);
+
+        TextProfile profile = profile(bytes, 10);
+
+        assertThat(profile.byteCount()).isEqualTo(bytes.length);
+        assertThat(profile.charCount()).isEqualTo(24);
+        assertThat(profile.longestLine()).isEqualTo(11);
+        assertThat(profile.distinctWords()).isEqualTo(5);
+        assertThat(profile.topWords()).extracting(WordCount::word)
+                .containsExactlyInAnyOrder("héllo", "wörld", "über", "€5", "end");
+    }
+
+    @Test
+    void shouldGiveSameResultForAnySplitOfTheInput() {
+        byte[] bytes = "one two  two\r\nthree three three\n\n  four".getBytes(StandardCharsets.UTF_8);
+        TextProfile whole = profile(bytes, 10);
+
+        for (int split = 0; split <= bytes.length; split++) {
+            TextProfiler profiler = new TextProfiler(10, 14);
+            profiler.update(bytes, 0, split);
+            profiler.update(ByteBuffer.allocateDirect(bytes.length - split).put(bytes, split, bytes.length - split).flip());
+            assertThat(profiler.finish().toProfile(5)).as("split at %d", split).isEqualTo(whole);
+        }
+    }
+
+    @Test
+    void shouldProfileTheCountedSlicesOfLargeAndDirectBuffers() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 5_000; i++) {
+            text.append("line ").append(i % 37).append(i % 9 == 0 ? " \u00e9t\u00e9\r\n" : " word\n");
+        }
+        byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        FileProcessingProperties properties = new FileProcessingProperties();
+        properties.getProfile().setEnabled(true);
+        ByteScanningTextStatsCounter sequential = new ByteScanningTextStatsCounter();
+        ProfilingTextStatsCounter profiling = new ProfilingTextStatsCounter(sequential, properties);
+
+        TextStats heap = profiling.count(ByteBuffer.wrap(bytes));
+        TextStats direct = profiling.count(ByteBuffer.allocateDirect(bytes.length).put(bytes).flip());
+
+        assertThat(new TextStats(heap.lineCount(), heap.wordCount())).isEqualTo(sequential.count(ByteBuffer.wrap(bytes)));
+        assertThat(heap.profiler().toProfile(5)).isEqualTo(profile(bytes, properties.getProfile().getTrackedWords()));
+        assertThat(direct.lineCount()).isEqualTo(heap.lineCount());
+        assertThat(direct.wordCount()).isEqualTo(heap.wordCount());
+        assertThat(direct.profiler().toProfile(5)).isEqualTo(heap.profiler().toProfile(5));
+    }
+
+    @Test
+    void shouldFindFrequentWordsWithBoundedError() {
+        Random random = new Random(11);
+        Map<String, Long> exact = new HashMap<>();
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 50_000; i++) {
+            // Roughly Zipf-distributed vocabulary of 5000 words.
+            String word = "w" + (int) Math.floor(Math.pow(5000, random.nextDouble()));
+            exact.merge(word, 1L, Long::sum);
+            text.append(word).append(i % 10 == 9 ? '\n' : ' ');
+        }
+
+        TextProfile profile = profile(text.toString().getBytes(StandardCharsets.UTF_8), 100);
+
+        assertThat(profile.topWords()).extracting(WordCount::word).startsWith("w1", "w2", "w3");
+        for (WordCount top : profile.topWords()) {
+            long actual = exact.get(top.word());
+            assertThat(actual).isBetween(top.count() - top.error(), top.count());
+        }
+        assertThat(profile.distinctWords()).isCloseTo(exact.size(), withinPercentage(5));
+    }
+
+    @Test
+    void shouldMergeProfilesOfConsecutiveParts() {
+        byte[] first = "a b c a\nlonger line here\n".getBytes(StandardCharsets.UTF_8);
+        byte[] second = "a d\ne e e e\n".getBytes(StandardCharsets.UTF_8);
+        byte[] both = new byte[first.length + second.length];
+        System.arraycopy(first, 0, both, 0, first.length);
+        System.arraycopy(second, 0, both, first.length, second.length);
+
+        TextProfiler left = new TextProfiler(10, 14);
+        left.update(first, 0, first.length);
+        TextProfiler right = new TextProfiler(10, 14);
+        right.update(second, 0, second.length);
+        TextProfile merged = left.finish().merge(right.finish()).toProfile(5);
+
+        TextProfile whole = profile(both, 10);
+        assertThat(merged.byteCount()).isEqualTo(whole.byteCount());
+        assertThat(merged.charCount()).isEqualTo(whole.charCount());
+        assertThat(merged.longestLine()).isEqualTo(16);
+        assertThat(merged.distinctWords()).isEqualTo(8);
+        assertThat(merged.topWords().subList(0, 2)).containsExactly(new WordCount("e", 4, 0), new WordCount("a", 3, 0));
+    }
+}
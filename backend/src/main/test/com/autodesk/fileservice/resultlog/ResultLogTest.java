@@ -0,0 +1,203 @@
+package com.autodesk.fileservice.resultlog;
+
+import com.autodesk.fileservice.config.FileProcessingProperties;
+import com.autodesk.fileservice.config.FileProcessingProperties.Persistence.Mode;
+import com.autodesk.fileservice.model.FileMetadata;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ResultLogTest {
+
+    @TempDir
+    Path directory;
+
+    private ResultLog open(int retainedRows) {
+        FileProcessingProperties properties = new FileProcessingProperties();
+        properties.getPersistence().setMode(Mode.LOCAL_LOG);
+        properties.getPersistence().getLog().setDirectory(directory);
+        properties.getPersistence().getLog().setSegmentSize(DataSize.ofKilobytes(64));
+        properties.getPersistence().getLog().setRetainedRows(retainedRows);
+        return new ResultLog(properties, new SimpleMeterRegistry());
+    }
+
+    private static FileMetadata row(int i) {
+        FileMetadata meta = new FileMetadata("file-" + i + ".txt", i, 2L * i, LocalDateTime.of(2025, 1, 2, 3, 4, 5, i * 1000));
+        meta.setContentHash(String.format("%064x", i));
+        return meta;
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    @Test
+    void shouldHandOutPendingRowsAgainAfterRestart() {
+        ResultLog log = open(100);
+        long first = log.append(row(1));
+        long second = log.append(row(2));
+        assertThat(log.pending(10)).extracting(ResultLog.Pending::recovered).containsExactly(false, false);
+        log.close();
+
+        ResultLog reopened = open(100);
+
+        List<ResultLog.Pending> pending = reopened.pending(10);
+        assertThat(pending).extracting(ResultLog.Pending::sequence).containsExactly(first, second);
+        assertThat(pending).allMatch(ResultLog.Pending::recovered);
+        FileMetadata recovered = pending.getFirst().row();
+        assertThat(recovered.getId()).isNull();
+        assertThat(recovered.getFileName()).isEqualTo("file-1.txt");
+        assertThat(recovered.getWordCount()).isEqualTo(2);
+        assertThat(recovered.getUploadedAt()).isEqualTo(row(1).getUploadedAt());
+        assertThat(reopened.append(row(3))).isGreaterThan(second);
+    }
+
+    @Test
+    void shouldServeStoredRowsByIdAndContentHashAcrossRestarts() {
+        ResultLog log = open(100);
+        long sequence = log.append(row(1));
+        log.append(row(2));
+        log.stored(sequence, 42);
+
+        assertThat(log.pendingCount()).isEqualTo(1);
+        assertThat(log.findById(42)).get().extracting(FileMetadata::getId, FileMetadata::getFileName)
+                .containsExactly(42L, "file-1.txt");
+        assertThat(log.findByContentHash(row(1).getContentHash())).get().extracting(FileMetadata::getId).isEqualTo(42L);
+        assertThat(log.findByContentHash(row(2).getContentHash())).isEmpty();
+        log.close();
+
+        ResultLog reopened = open(100);
+        assertThat(reopened.pending(10)).extracting(p -> p.row().getFileName()).containsExactly("file-2.txt");
+        assertThat(reopened.findById(42)).isPresent();
+    }
+
+    @Test
+    void shouldDiscardADamagedTailAndAppendAfterTheLastGoodRecord() throws IOException {
+        ResultLog log = open(100);
+        log.append(row(1));
+        log.append(row(2));
+        log.close();
+        Path segment = segmentFiles().getFirst();
+        byte[] content = Files.readAllBytes(segment);
+        int end = content.length;
+        while (content[end - 1] == 0) {
+            end--;
+        }
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(end - 2);
+            file.write(content[end - 2] ^ 0x20);
+        }
+
+        ResultLog reopened = open(100);
+        assertThat(reopened.pending(10)).extracting(p -> p.row().getFileName()).containsExactly("file-1.txt");
+        reopened.append(row(3));
+        reopened.close();
+
+        assertThat(open(100).pending(10)).extracting(p -> p.row().getFileName())
+                .containsExactly("file-1.txt", "file-3.txt");
+    }
+
+    @Test
+    void shouldCompactSegmentsAndKeepPendingAndRetainedRows() throws IOException {
+        ResultLog log = open(10);
+        log.append(row(0));
+        for (int i = 1; i <= 2000; i++) {
+            log.stored(log.append(row(i)), i);
+        }
+        assertThat(segmentFiles().size()).isGreaterThan(2);
+
+        log.compact();
+
+        assertThat(segmentFiles().size()).isLessThanOrEqualTo(2);
+        assertThat(log.findById(1991)).isPresent();
+        assertThat(log.findById(1990)).isEmpty();
+        log.close();
+
+        ResultLog reopened = open(10);
+        assertThat(reopened.pending(10)).extracting(p -> p.row().getFileName()).containsExactly("file-0.txt");
+        assertThat(reopened.findById(2000)).get().extracting(FileMetadata::getFileName).isEqualTo("file-2000.txt");
+        assertThat(reopened.findById(1991)).isPresent();
+        assertThat(reopened.findById(1990)).isEmpty();
+    }
+
+    @Test
+    void shouldKeepEveryRowAppendedConcurrently() throws Exception {
+        ResultLog log = open(100);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Long>> sequences = new ArrayList<>();
+            for (int i = 0; i < 400; i++) {
+                FileMetadata row = row(i);
+                sequences.add(executor.submit(() -> log.append(row)));
+            }
+            for (Future<Long> sequence : sequences) {
+                sequence.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        log.close();
+
+        List<ResultLog.Pending> pending = open(100).pending(1000);
+        assertThat(pending).hasSize(400);
+        assertThat(pending).extracting(p -> p.row().getFileName()).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void shouldCompactWhileRowsAreAppended() throws Exception {
+        ResultLog log = open(10);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> appends = new ArrayList<>();
+            for (int i = 1; i <= 1000; i++) {
+                int id = i;
+                appends.add(executor.submit(() -> log.stored(log.append(row(id)), id)));
+            }
+            while (!appends.getLast().isDone()) {
+                log.compact();
+            }
+            for (Future<?> append : appends) {
+                append.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        log.compact();
+        assertThat(log.segmentCount()).isLessThanOrEqualTo(2);
+        log.close();
+
+        ResultLog reopened = open(10);
+        assertThat(reopened.pending(10)).isEmpty();
+        assertThat(LongStream.rangeClosed(1, 1000).filter(id -> reopened.findById(id).isPresent()).count()).isEqualTo(10);
+    }
+
+    @Test
+    void shouldOpenNothingInOtherPersistenceModes() {
+        FileProcessingProperties properties = new FileProcessingProperties();
+        properties.getPersistence().getLog().setDirectory(directory.resolve("unused"));
+        ResultLog log = new ResultLog(properties, new SimpleMeterRegistry());
+
+        assertThat(log.isEnabled()).isFalse();
+        assertThat(log.findById(1)).isEmpty();
+        assertThat(directory.resolve("unused")).doesNotExist();
+        assertThatThrownBy(() -> log.append(row(1))).isInstanceOf(IllegalStateException.class);
+    }
+}
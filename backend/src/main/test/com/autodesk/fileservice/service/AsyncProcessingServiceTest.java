@@ -0,0 +1,126 @@
+package com.autodesk.fileservice.service;
+
+import com.autodesk.fileservice.config.FileProcessingProperties;
+import com.autodesk.fileservice.exception.ProcessingRejectedException;
+import com.autodesk.fileservice.exception.UnsupportedMediaTypeException;
+import com.autodesk.fileservice.model.FileMetadata;
+import com.autodesk.fileservice.model.ProcessingJob;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class AsyncProcessingServiceTest {
+
+    private FileProcessingService processingService;
+    private SimpleMeterRegistry meterRegistry;
+    private AsyncProcessingService service;
+
+    @BeforeEach
+    void setup() {
+        processingService = mock(FileProcessingService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        FileProcessingProperties properties = new FileProcessingProperties();
+        properties.getAsync().setWorkers(1);
+        properties.getAsync().setQueueCapacity(1);
+        service = new AsyncProcessingService(processingService, properties, meterRegistry, new MockEnvironment());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        service.shutdown();
+    }
+
+    private MockMultipartFile mockFile(String name) {
+        return new MockMultipartFile("file", name, "text/plain", "hello world".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private ProcessingJob await(ProcessingJob job) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!job.isFinished() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        return job;
+    }
+
+    @Test
+    void shouldProcessQueuedUploadAndExposeResult() throws Exception {
+        FileMetadata saved = new FileMetadata("a.txt", 1, 2, LocalDateTime.now());
+        when(processingService.processValidated(eq("a.txt"), any(Path.class))).thenReturn(saved);
+
+        ProcessingJob job = await(service.submit(mockFile("a.txt")));
+
+        assertThat(job.getStatus()).isEqualTo(ProcessingJob.Status.COMPLETED);
+        assertThat(job.getResult()).isSameAs(saved);
+        assertThat(service.findJob(job.getId())).contains(job);
+        assertThat(meterRegistry.get("file.processing.queue.wait").timer().count()).isEqualTo(1);
+        verify(processingService).validate(eq("a.txt"), anyLong());
+        verify(processingService, never()).processAndSave(any(), any(Path.class));
+    }
+
+    @Test
+    void shouldRecordFailureOnJob() throws Exception {
+        when(processingService.processValidated(eq("a.txt"), any(Path.class))).thenThrow(new RuntimeException("boom"));
+
+        ProcessingJob job = await(service.submit(mockFile("a.txt")));
+
+        assertThat(job.getStatus()).isEqualTo(ProcessingJob.Status.FAILED);
+        assertThat(job.getError()).isEqualTo("Failed to process file");
+    }
+
+    @Test
+    void shouldValidateBeforeQueueing() {
+        doThrow(new UnsupportedMediaTypeException()).when(processingService).validate(eq("virus.exe"), anyLong());
+
+        assertThatThrownBy(() -> service.submit(mockFile("virus.exe")))
+                .isInstanceOf(UnsupportedMediaTypeException.class);
+    }
+
+    @Test
+    void shouldRejectWhenQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(processingService.processValidated(any(), any(Path.class))).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return new FileMetadata("a.txt", 0, 0, LocalDateTime.now());
+        });
+
+        ProcessingJob running = service.submit(mockFile("a.txt"));
+        while (running.getStatus() == ProcessingJob.Status.QUEUED) {
+            Thread.sleep(5);
+        }
+        service.submit(mockFile("b.txt"));
+
+        assertThatThrownBy(() -> service.submit(mockFile("c.txt")))
+                .isInstanceOf(ProcessingRejectedException.class);
+        assertThat(meterRegistry.get("file.processing.queue.rejected").counter().count()).isEqualTo(1);
+        release.countDown();
+    }
+
+    @Test
+    void shouldRunJobsOnVirtualThreadsWhenEnabled() throws Exception {
+        service.shutdown();
+        FileProcessingProperties properties = new FileProcessingProperties();
+        service = new AsyncProcessingService(processingService, properties, meterRegistry,
+                new MockEnvironment().withProperty("spring.threads.virtual.enabled", "true"));
+        when(processingService.processValidated(eq("a.txt"), any(Path.class))).thenAnswer(invocation ->
+                new FileMetadata(Thread.currentThread().isVirtual() ? "virtual" : "platform", 0, 0, LocalDateTime.now()));
+
+        ProcessingJob job = await(service.submit(mockFile("a.txt")));
+
+        assertThat(job.getResult().getFileName()).isEqualTo("virtual");
+    }
+}
@@ -0,0 +1,145 @@
+package com.autodesk.fileservice.service;
+
+import com.autodesk.fileservice.config.FileProcessingProperties;
+import com.autodesk.fileservice.counter.ByteScanningTextStatsCounter;
+import com.autodesk.fileservice.counter.MappedTextStatsCounter;
+import com.autodesk.fileservice.counter.ParallelTextStatsCounter;
+import com.autodesk.fileservice.exception.BatchTooLargeException;
+import com.autodesk.fileservice.model.BatchUploadResult;
+import com.autodesk.fileservice.model.FileMetadata;
+import com.autodesk.fileservice.repository.DailyFileStatsRepository;
+import com.autodesk.fileservice.repository.FileMetadataRepository;
+import com.autodesk.fileservice.resultlog.ResultLog;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class BatchUploadServiceTest {
+
+    private final FileMetadataRepository repository = mock(FileMetadataRepository.class);
+    private final AtomicLong ids = new AtomicLong();
+    private FileProcessingProperties properties;
+    private BatchUploadService service;
+
+    @BeforeEach
+    void setup() {
+        properties = new FileProcessingProperties();
+        properties.getBatch().setWorkers(2);
+        when(repository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<FileMetadata> rows = invocation.getArgument(0);
+            rows.forEach(row -> row.setId(ids.incrementAndGet()));
+            return rows;
+        });
+        service = newService();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    private BatchUploadService newService() {
+        ByteScanningTextStatsCounter counter = new ByteScanningTextStatsCounter();
+        MappedTextStatsCounter mappedCounter = new MappedTextStatsCounter(counter);
+        ResultLog resultLog = new ResultLog(properties, new SimpleMeterRegistry());
+        FileMetadataWriter writer = new FileMetadataWriter(repository, mock(DailyFileStatsRepository.class), mock(PlatformTransactionManager.class), properties,
+                new SimpleMeterRegistry(), new NoOpCacheManager(), resultLog);
+        FileProcessingService processingService = new FileProcessingService(repository, writer, resultLog, counter, mappedCounter,
+                new ParallelTextStatsCounter(counter, mappedCounter, properties), properties, new SimpleMeterRegistry());
+        return new BatchUploadService(processingService, writer, properties);
+    }
+
+    private static MockMultipartFile file(String name, String content) {
+        return new MockMultipartFile("files", name, "text/plain", content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static MockMultipartFile zip(String name, String... namesAndContents) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            for (int i = 0; i < namesAndContents.length; i += 2) {
+                zip.putNextEntry(new ZipEntry(namesAndContents[i]));
+                zip.write(namesAndContents[i + 1].getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        return new MockMultipartFile("files", name, "application/zip", bytes.toByteArray());
+    }
+
+    @Test
+    void shouldCountAllFilesAndStoreThemInOneBatch() {
+        BatchUploadResult result = service.process(List.of(
+                file("a.txt", "hello world\n"),
+                file("b.csv", "x,y\n1,2\n3,4\n")));
+
+        assertThat(result.total()).isEqualTo(2);
+        assertThat(result.failed()).isZero();
+        assertThat(result.files()).extracting(BatchUploadResult.Item::fileName).containsExactly("a.txt", "b.csv");
+        assertThat(result.files().get(0).result().getWordCount()).isEqualTo(2);
+        assertThat(result.files().get(1).result().getLineCount()).isEqualTo(3);
+        assertThat(result.files()).allSatisfy(item -> assertThat(item.result().getId()).isNotNull());
+        verify(repository, times(1)).saveAll(anyList());
+    }
+
+    @Test
+    void shouldExpandZipEntriesAndReportRejectedOnes() throws Exception {
+        BatchUploadResult result = service.process(List.of(zip("batch.zip",
+                "docs/one.txt", "a b c\n",
+                "image.png", "not text",
+                "two.csv", "1,2\n")));
+
+        assertThat(result.total()).isEqualTo(3);
+        assertThat(result.succeeded()).isEqualTo(2);
+        BatchUploadResult.Item rejected = result.files().get(1);
+        assertThat(rejected.fileName()).isEqualTo("image.png");
+        assertThat(rejected.result()).isNull();
+        assertThat(rejected.error()).contains("Unsupported file type");
+        assertThat(result.files().get(0).result().getWordCount()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldReportCorruptArchive() {
+        MockMultipartFile corrupt = new MockMultipartFile("files", "broken.zip", "application/zip", new byte[]{1, 2, 3});
+
+        BatchUploadResult result = service.process(List.of(corrupt, file("ok.txt", "fine\n")));
+
+        assertThat(result.files()).extracting(BatchUploadResult.Item::error).containsExactly("Invalid zip archive", null);
+    }
+
+    @Test
+    void shouldNotInsertFilesUploadedBefore() {
+        FileMetadata stored = new FileMetadata("a.txt", 1, 2, LocalDateTime.now());
+        stored.setId(99L);
+        when(repository.findFirstByContentHashOrderByIdAsc(anyString())).thenReturn(Optional.of(stored));
+
+        BatchUploadResult result = service.process(List.of(file("a.txt", "hello world\n")));
+
+        assertThat(result.files().get(0).result()).isSameAs(stored);
+        verify(repository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void shouldRejectBatchesAboveEntryLimit() {
+        properties.getBatch().setMaxEntries(1);
+
+        assertThatThrownBy(() -> service.process(List.of(file("a.txt", "a"), file("b.txt", "b"))))
+                .isInstanceOf(BatchTooLargeException.class);
+    }
+}
@@ -0,0 +1,264 @@
+package com.autodesk.fileservice.service;
+
+import com.autodesk.fileservice.config.CacheConfig;
+import com.autodesk.fileservice.config.FileProcessingProperties;
+import com.autodesk.fileservice.config.FileProcessingProperties.Persistence.Mode;
+import com.autodesk.fileservice.model.FileMetadata;
+import com.autodesk.fileservice.repository.DailyFileStatsRepository;
+import com.autodesk.fileservice.repository.FileMetadataRepository;
+import com.autodesk.fileservice.resultlog.ResultLog;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class FileMetadataWriterTest {
+
+    private final FileMetadataRepository repository = mock(FileMetadataRepository.class);
+    private final DailyFileStatsRepository dailyStats = mock(DailyFileStatsRepository.class);
+    private final AtomicLong ids = new AtomicLong();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager(CacheConfig.FILE_PAGES);
+    private FileMetadataWriter writer;
+    private ResultLog resultLog;
+
+    @TempDir
+    Path logDirectory;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        writer.shutdown();
+        resultLog.close();
+    }
+
+    private FileMetadataWriter writer(Mode mode, int batchSize, Duration maxDelay) {
+        FileProcessingProperties properties = properties(mode, batchSize, maxDelay);
+        resultLog = new ResultLog(properties, meterRegistry);
+        return new FileMetadataWriter(repository, dailyStats, mock(PlatformTransactionManager.class), properties, meterRegistry,
+                cacheManager, resultLog);
+    }
+
+    private FileProcessingProperties properties(Mode mode, int batchSize, Duration maxDelay) {
+        FileProcessingProperties properties = new FileProcessingProperties();
+        properties.getPersistence().setMode(mode);
+        properties.getPersistence().setBatchSize(batchSize);
+        properties.getPersistence().setMaxDelay(maxDelay);
+        properties.getPersistence().getLog().setDirectory(logDirectory);
+        properties.getPersistence().getLog().setMaxWait(Duration.ofMillis(200));
+        properties.getPersistence().getLog().setRetryDelay(Duration.ofMillis(10));
+        when(repository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<FileMetadata> rows = invocation.getArgument(0);
+            rows.forEach(row -> row.setId(ids.incrementAndGet()));
+            return rows;
+        });
+        when(repository.save(any(FileMetadata.class))).thenAnswer(invocation -> {
+            FileMetadata row = invocation.getArgument(0);
+            row.setId(ids.incrementAndGet());
+            return row;
+        });
+        return properties;
+    }
+
+    private static FileMetadata row(int i) {
+        return new FileMetadata("file-" + i + ".txt", i, i, LocalDateTime.now());
+    }
+
+    @Test
+    void shouldSaveDirectlyInSyncMode() {
+        writer = writer(Mode.SYNC, 50, Duration.ofMillis(10));
+
+        FileMetadata saved = writer.write(row(1));
+
+        assertThat(saved.getId()).isEqualTo(1L);
+        verify(repository).save(any(FileMetadata.class));
+        verify(repository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void shouldEvictCachedPagesOnceRowsAreWritten() {
+        writer = writer(Mode.BATCHED, 50, Duration.ofMillis(10));
+        cacheManager.getCache(CacheConfig.FILE_PAGES).put("0-5", "page");
+
+        writer.write(row(1));
+
+        assertThat(cacheManager.getCache(CacheConfig.FILE_PAGES).get("0-5")).isNull();
+    }
+
+    @Test
+    void shouldGroupConcurrentWritesIntoBatches() throws Exception {
+        writer = writer(Mode.BATCHED, 10, Duration.ofMillis(200));
+
+        List<Future<FileMetadata>> results = new ArrayList<>();
+        try (ExecutorService callers = Executors.newFixedThreadPool(20)) {
+            for (int i = 0; i < 20; i++) {
+                int n = i;
+                results.add(callers.submit(() -> writer.write(row(n))));
+            }
+        }
+
+        for (Future<FileMetadata> result : results) {
+            assertThat(result.get().getId()).isNotNull();
+        }
+        verify(repository, never()).save(any(FileMetadata.class));
+        assertThat(meterRegistry.get("file.metadata.batch.size").summary().count()).isLessThan(20);
+        assertThat(meterRegistry.get("file.metadata.batch.size").summary().totalAmount()).isEqualTo(20);
+    }
+
+    @Test
+    void shouldPropagateFlushFailureToWaitingCaller() {
+        writer = writer(Mode.BATCHED, 10, Duration.ofMillis(1));
+        when(repository.saveAll(anyList())).thenThrow(new IllegalStateException("db down"));
+
+        assertThatThrownBy(() -> writer.write(row(1)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("db down");
+        assertThat(meterRegistry.get("file.metadata.failed").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldReturnImmediatelyAndFlushLaterInAsyncMode() throws Exception {
+        writer = writer(Mode.ASYNC, 10, Duration.ofMillis(1));
+
+        FileMetadata queued = writer.write(row(1));
+        writer.shutdown();
+
+        verify(repository).saveAll(anyList());
+        assertThat(queued.getId()).isEqualTo(1L);
+    }
+
+    @Test
+    void shouldAddEachBatchToItsDaysTotals() {
+        writer = writer(Mode.SYNC, 50, Duration.ofMillis(10));
+        LocalDateTime monday = LocalDateTime.of(2024, 1, 1, 23, 59);
+        List<FileMetadata> rows = List.of(
+                new FileMetadata("a.txt", 2, 5, monday),
+                new FileMetadata("b.txt", 3, 7, monday.plusMinutes(2)),
+                new FileMetadata("c.txt", 1, 1, monday.minusMinutes(1)));
+
+        writer.writeAll(rows);
+
+        var order = inOrder(dailyStats);
+        order.verify(dailyStats).add(LocalDate.of(2024, 1, 1), 2, 3, 6);
+        order.verify(dailyStats).add(LocalDate.of(2024, 1, 2), 1, 3, 7);
+        verifyNoMoreInteractions(dailyStats);
+    }
+
+    @Test
+    void shouldCountSyncWritesInDailyTotals() {
+        writer = writer(Mode.SYNC, 50, Duration.ofMillis(10));
+
+        writer.write(new FileMetadata("a.txt", 4, 9, LocalDateTime.of(2024, 3, 5, 12, 0)));
+
+        verify(dailyStats).add(LocalDate.of(2024, 3, 5), 1, 4, 9);
+    }
+
+    @Test
+    void shouldReplayLoggedRowsAndServeThemFromTheLog() {
+        writer = writer(Mode.LOCAL_LOG, 10, Duration.ofMillis(1));
+
+        FileMetadata saved = writer.write(row(1));
+
+        assertThat(saved.getId()).isEqualTo(1L);
+        assertThat(resultLog.pendingCount()).isZero();
+        assertThat(resultLog.findById(1L)).get().extracting(FileMetadata::getFileName).isEqualTo("file-1.txt");
+    }
+
+    @Test
+    void shouldAnswerWithoutIdWhileTheDatabaseIsDownAndReplayLater() throws Exception {
+        writer = writer(Mode.LOCAL_LOG, 10, Duration.ofMillis(1));
+        when(repository.saveAll(anyList())).thenThrow(new IllegalStateException("db down"));
+
+        FileMetadata queued = writer.write(row(1));
+
+        assertThat(queued.getId()).isNull();
+        assertThat(resultLog.pendingCount()).isEqualTo(1);
+        doAnswer(invocation -> {
+            List<FileMetadata> rows = invocation.getArgument(0);
+            rows.forEach(row -> row.setId(ids.incrementAndGet()));
+            return rows;
+        }).when(repository).saveAll(anyList());
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (resultLog.pendingCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(resultLog.pendingCount()).isZero();
+        assertThat(resultLog.findById(1L)).isPresent();
+        assertThat(meterRegistry.get("file.metadata.replay.failed").counter().count()).isGreaterThanOrEqualTo(1);
+        assertThat(meterRegistry.get("file.metadata.failed").counter().count()).isZero();
+    }
+
+    @Test
+    void shouldNotInsertRecoveredRowsTheDatabaseAlreadyCommitted() throws Exception {
+        FileProcessingProperties properties = new FileProcessingProperties();
+        properties.getPersistence().setMode(Mode.LOCAL_LOG);
+        properties.getPersistence().getLog().setDirectory(logDirectory);
+        FileMetadata logged = row(1);
+        logged.setContentHash("ab".repeat(32));
+        new ResultLog(properties, new SimpleMeterRegistry()).append(logged);
+        FileMetadata committed = row(1);
+        committed.setId(7L);
+        committed.setUploadedAt(logged.getUploadedAt());
+        committed.setContentHash(logged.getContentHash());
+        when(repository.findByContentHashAndFileName(anyString(), anyString())).thenReturn(List.of(committed));
+
+        writer = writer(Mode.LOCAL_LOG, 10, Duration.ofMillis(1));
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (resultLog.pendingCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertThat(resultLog.pendingCount()).isZero();
+        assertThat(resultLog.findById(7L)).map(FileMetadata::getFileName).isEqualTo(Optional.of("file-1.txt"));
+        verify(repository, never()).saveAll(anyList());
+        verifyNoInteractions(dailyStats);
+    }
+
+    @Test
+    void shouldNotInsertRowsAgainWhenAStoredMarkerCannotBeWritten() throws Exception {
+        FileProcessingProperties properties = properties(Mode.LOCAL_LOG, 10, Duration.ofMillis(1));
+        ResultLog log = new ResultLog(properties, meterRegistry);
+        long first = log.append(row(1));
+        log.append(row(2));
+        log.append(row(3));
+        resultLog = spy(log);
+        doAnswer(invocation -> {
+            invocation.callRealMethod();
+            throw new UncheckedIOException(new IOException("No space left on device"));
+        }).when(resultLog).stored(eq(first), anyLong());
+
+        writer = new FileMetadataWriter(repository, dailyStats, mock(PlatformTransactionManager.class), properties, meterRegistry,
+                cacheManager, resultLog);
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (resultLog.pendingCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(50);
+
+        assertThat(resultLog.pendingCount()).isZero();
+        verify(repository, times(1)).saveAll(anyList());
+        assertThat(resultLog.findById(3L)).isPresent();
+    }
+}
@@ -1,18 +1,55 @@
 package com.autodesk.fileservice.service;
 
+import com.autodesk.fileservice.config.FileProcessingProperties;
+import com.autodesk.fileservice.counter.ByteScanningTextStatsCounter;
+import com.autodesk.fileservice.counter.DecodingTextStatsCounter;
+import com.autodesk.fileservice.counter.MappedTextStatsCounter;
+import com.autodesk.fileservice.counter.ParallelTextStatsCounter;
+import com.autodesk.fileservice.counter.ProfilingTextStatsCounter;
+import com.autodesk.fileservice.exception.InvalidContentException;
+import com.autodesk.fileservice.exception.InvalidPageRequestException;
 import com.autodesk.fileservice.exception.PayloadTooLargeException;
 import com.autodesk.fileservice.exception.UnsupportedMediaTypeException;
+import com.autodesk.fileservice.model.CsvColumnStats;
+import com.autodesk.fileservice.model.FileCursorPage;
 import com.autodesk.fileservice.model.FileMetadata;
+import com.autodesk.fileservice.model.FileSearchCriteria;
+import com.autodesk.fileservice.model.TextProfile;
+import com.autodesk.fileservice.model.WordCount;
+import com.autodesk.fileservice.repository.DailyFileStatsRepository;
 import com.autodesk.fileservice.repository.FileMetadataRepository;
+import com.autodesk.fileservice.resultlog.ResultLog;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentCaptor;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.bind.PropertySourcesPlaceholdersResolver;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.core.env.MutablePropertySources;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -20,12 +57,38 @@ import static org.mockito.Mockito.*;
 class FileProcessingServiceTest {
 
     private FileMetadataRepository repository;
+    private FileProcessingProperties properties;
     private FileProcessingService service;
+    private ParallelTextStatsCounter parallelCounter;
+    private SimpleMeterRegistry meterRegistry;
 
     @BeforeEach
     void setup() {
         repository = mock(FileMetadataRepository.class);
-        service = new FileProcessingService(repository);
+        properties = new FileProcessingProperties();
+        properties.getPersistence().setMode(FileProcessingProperties.Persistence.Mode.SYNC);
+        meterRegistry = new SimpleMeterRegistry();
+        service = newService();
+    }
+
+    private FileProcessingService newService() {
+        DecodingTextStatsCounter counter = new DecodingTextStatsCounter(
+                new ProfilingTextStatsCounter(new ByteScanningTextStatsCounter(), properties), properties);
+        MappedTextStatsCounter mappedCounter = new MappedTextStatsCounter(counter);
+        ResultLog resultLog = new ResultLog(properties, new SimpleMeterRegistry());
+        FileMetadataWriter writer = new FileMetadataWriter(repository, mock(DailyFileStatsRepository.class), mock(PlatformTransactionManager.class), properties, new SimpleMeterRegistry(),
+                new NoOpCacheManager(), resultLog);
+        parallelCounter = spy(new ParallelTextStatsCounter(counter, mappedCounter, properties));
+        return new FileProcessingService(repository, writer, resultLog, counter, mappedCounter,
+                parallelCounter, properties, meterRegistry);
+    }
+
+    /** The file-processing settings of application.yml, with placeholders at their defaults. */
+    private static FileProcessingProperties shippedProperties() throws IOException {
+        MutablePropertySources sources = new MutablePropertySources();
+        new YamlPropertySourceLoader().load("application", new ClassPathResource("application.yml")).forEach(sources::addLast);
+        Binder binder = new Binder(ConfigurationPropertySources.from(sources), new PropertySourcesPlaceholdersResolver(sources));
+        return binder.bind("file-processing", FileProcessingProperties.class).get();
     }
 
     private MockMultipartFile mockFile(String name, String content) {
@@ -83,6 +146,139 @@ class FileProcessingServiceTest {
         verifyNoInteractions(repository);
     }
 
+    @Test
+    void shouldHonourConfiguredMaxFileSize() {
+        properties.setMaxFileSize(DataSize.ofKilobytes(1));
+        service = newService();
+        MockMultipartFile file = new MockMultipartFile("file", "small.txt", "text/plain", new byte[1025]);
+        assertThatThrownBy(() -> service.processAndSave(file))
+                .isInstanceOf(PayloadTooLargeException.class)
+                .hasMessageContaining("1024b");
+    }
+
+    @Test
+    void shouldCountLargeFilesInParallelWithSameResult() {
+        properties.getParallel().setThreshold(DataSize.ofBytes(1024));
+        properties.getParallel().setChunkSize(DataSize.ofBytes(100));
+        service = newService();
+        when(repository.save(any(FileMetadata.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            content.append("line ").append(i).append(i % 3 == 0 ? "\r\n" : "  with three words\n");
+        }
+
+        FileMetadata result = service.processAndSave(mockFile("big.csv", content.toString()));
+
+        assertThat(result.getLineCount()).isEqualTo(500);
+        assertThat(result.getWordCount()).isEqualTo(167 * 2 + 333 * 5);
+    }
+
+    @Test
+    void shouldCountLargeUploadsInParallelWithTheShippedConfiguration() throws Exception {
+        properties = shippedProperties();
+        properties.getPersistence().setMode(FileProcessingProperties.Persistence.Mode.SYNC);
+        service = newService();
+        when(repository.save(any(FileMetadata.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        StringBuilder content = new StringBuilder();
+        while (content.length() < properties.getParallel().getThreshold().toBytes()) {
+            content.append("the quick brown fox\n");
+        }
+        assertThat(content.length()).isLessThan((int) properties.getMaxFileSize().toBytes());
+
+        FileMetadata result = service.processAndSave(mockFile("big.txt", content.toString()));
+
+        verify(parallelCounter).count(any(FileChannel.class), any());
+        assertThat(result.getLineCount()).isEqualTo(content.length() / 20);
+        assertThat(result.getWordCount()).isEqualTo(content.length() / 20 * 4);
+    }
+
+    @Test
+    void shouldCountFileBackedUploadsThroughMapping() {
+        properties.getMapped().setThreshold(DataSize.ofBytes(16));
+        service = newService();
+        when(repository.save(any(FileMetadata.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        FileMetadata result = service.processAndSave(mockFile("mapped.txt", "hello world\n\nthis is a test"));
+
+        assertThat(result.getLineCount()).isEqualTo(3);
+        assertThat(result.getWordCount()).isEqualTo(6);
+    }
+
+    @Test
+    void shouldProcessStreamedContent() {
+        when(repository.save(any(FileMetadata.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        byte[] content = "hello world\nthis is a test\n".getBytes(StandardCharsets.UTF_8);
+
+        FileMetadata result = service.processAndSave("stream.csv", new ByteArrayInputStream(content), -1L);
+
+        assertThat(result.getFileName()).isEqualTo("stream.csv");
+        assertThat(result.getLineCount()).isEqualTo(2);
+        assertThat(result.getWordCount()).isEqualTo(6);
+    }
+
+    @Test
+    void shouldRejectStreamExceedingLimitWhileReading() {
+        byte[] content = new byte[(int) (5 * 1024 * 1024 + 1)];
+        assertThatThrownBy(() -> service.processAndSave("large.txt", new ByteArrayInputStream(content), -1L))
+                .isInstanceOf(PayloadTooLargeException.class);
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void shouldRejectStreamWithDeclaredSizeOverLimit() {
+        assertThatThrownBy(() -> service.processAndSave("large.txt", new ByteArrayInputStream(new byte[0]), 5 * 1024 * 1024 + 1))
+                .isInstanceOf(PayloadTooLargeException.class);
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void shouldStoreContentHashOfNewUpload() {
+        when(repository.save(any(FileMetadata.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        FileMetadata result = service.processAndSave(mockFile("test.txt", "abc"));
+
+        assertThat(result.getContentHash())
+                .isEqualTo("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad");
+    }
+
+    @Test
+    void shouldReturnStoredRecordForSameFileUploadedAgain() {
+        FileMetadata stored = new FileMetadata("test.txt", 2, 6, LocalDateTime.now());
+        stored.setId(1L);
+        when(repository.findFirstByContentHashOrderByIdAsc(anyString())).thenReturn(Optional.of(stored));
+
+        FileMetadata result = service.processAndSave(mockFile("test.txt", "hello world\nthis is a test"));
+
+        assertThat(result).isSameAs(stored);
+        verify(repository, never()).save(any(FileMetadata.class));
+    }
+
+    @Test
+    void shouldReuseStoredCountsForSameContentUnderAnotherName() {
+        FileMetadata stored = new FileMetadata("original.txt", 7, 42, LocalDateTime.now());
+        when(repository.findFirstByContentHashOrderByIdAsc(anyString())).thenReturn(Optional.of(stored));
+        when(repository.save(any(FileMetadata.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        byte[] content = "hello world\n".getBytes(StandardCharsets.UTF_8);
+        FileMetadata result = service.processAndSave("copy.txt", new ByteArrayInputStream(content), -1L);
+
+        assertThat(result.getFileName()).isEqualTo("copy.txt");
+        assertThat(result.getLineCount()).isEqualTo(7);
+        assertThat(result.getWordCount()).isEqualTo(42);
+        assertThat(result.getContentHash()).hasSize(64);
+    }
+
+    @Test
+    void shouldSkipHashingWhenDedupDisabled() {
+        properties.getDedup().setEnabled(false);
+        when(repository.save(any(FileMetadata.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        FileMetadata result = service.processAndSave(mockFile("test.txt", "abc"));
+
+        assertThat(result.getContentHash()).isNull();
+        verify(repository, never()).findFirstByContentHashOrderByIdAsc(anyString());
+    }
+
     @Test
     void shouldThrowWhenFileProcessingFails() throws Exception {
         MockMultipartFile brokenFile = spy(mockFile("broken.txt", "irrelevant"));
@@ -106,5 +302,328 @@ class FileProcessingServiceTest {
         when(repository.findById(1L)).thenReturn(Optional.of(f));
         assertThat(service.findById(1L)).contains(f);
     }
-}
 
+    @Test
+    void shouldReturnNextCursorWhenMoreRowsFollow() {
+        LocalDateTime now = LocalDateTime.of(2025, 1, 2, 3, 4, 5);
+        FileMetadata newest = withId(new FileMetadata("a.txt", 1, 1, now), 9L);
+        FileMetadata older = withId(new FileMetadata("b.txt", 1, 1, now), 8L);
+        FileMetadata extra = withId(new FileMetadata("c.txt", 1, 1, now.minusSeconds(1)), 7L);
+        when(repository.findNewest(Limit.of(3))).thenReturn(List.of(newest, older, extra));
+        when(repository.findOlderThan(now, 8L, Limit.of(3))).thenReturn(List.of(extra));
+
+        FileCursorPage first = service.listAfter(null, 2);
+        assertThat(first.items()).containsExactly(newest, older);
+        assertThat(first.nextCursor()).isNotNull();
+
+        FileCursorPage second = service.listAfter(first.nextCursor(), 2);
+        assertThat(second.items()).containsExactly(extra);
+        assertThat(second.nextCursor()).isNull();
+    }
+
+    @Test
+    void shouldRejectMalformedCursor() {
+        assertThatThrownBy(() -> service.listAfter("not a cursor!", 5))
+                .isInstanceOf(InvalidPageRequestException.class);
+        assertThatThrownBy(() -> service.listAfter("Zm9v", 5))
+                .isInstanceOf(InvalidPageRequestException.class);
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void shouldRejectCursorPageSizeOutOfRange() {
+        assertThatThrownBy(() -> service.listAfter(null, 0))
+                .isInstanceOf(InvalidPageRequestException.class);
+        assertThatThrownBy(() -> service.listAfter(null, FileProcessingService.MAX_CURSOR_PAGE_SIZE + 1))
+                .isInstanceOf(InvalidPageRequestException.class);
+    }
+
+    @Test
+    void shouldSearchFromTheCursorPositionWithTheSameCriteria() {
+        LocalDateTime now = LocalDateTime.of(2025, 1, 2, 3, 4, 5);
+        FileSearchCriteria criteria = new FileSearchCriteria("rep", now.minusDays(1), now.plusDays(1));
+        FileMetadata newest = withId(new FileMetadata("report-1.txt", 1, 1, now), 9L);
+        FileMetadata extra = withId(new FileMetadata("report-0.txt", 1, 1, now.minusSeconds(1)), 7L);
+        when(repository.search(criteria, null, 0, Limit.of(2))).thenReturn(List.of(newest, extra));
+        when(repository.search(criteria, now, 9L, Limit.of(2))).thenReturn(List.of(extra));
+
+        FileCursorPage first = service.search(criteria, null, 1);
+        assertThat(first.items()).containsExactly(newest);
+
+        FileCursorPage second = service.search(criteria, first.nextCursor(), 1);
+        assertThat(second.items()).containsExactly(extra);
+        assertThat(second.nextCursor()).isNull();
+    }
+
+    @Test
+    void shouldRejectEmptySearchTimeRange() {
+        LocalDateTime now = LocalDateTime.now();
+
+        assertThatThrownBy(() -> service.search(new FileSearchCriteria(null, now, now), null, 5))
+                .isInstanceOf(InvalidPageRequestException.class)
+                .hasMessage("from must be before to");
+        verifyNoInteractions(repository);
+    }
+
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(content);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Test
+    void shouldAllowGzipCompressedTextFiles() {
+        assertThat(service.isAllowedFile("notes.txt.gz")).isTrue();
+        assertThat(service.isAllowedFile("DATA.CSV.GZ")).isTrue();
+        assertThat(service.isAllowedFile("image.png.gz")).isFalse();
+        assertThat(service.isAllowedFile("archive.gz")).isFalse();
+
+        properties.getCompression().setEnabled(false);
+        assertThat(service.isAllowedFile("notes.txt.gz")).isFalse();
+    }
+
+    @Test
+    void shouldCountDecompressedContentOfGzipUpload() throws Exception {
+        when(repository.save(any(FileMetadata.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        byte[] plain = "hello world\nthis is a test\n".getBytes(StandardCharsets.UTF_8);
+        MockMultipartFile file = new MockMultipartFile("file", "test.txt.gz", "application/gzip", gzip(plain));
+
+        FileMetadata result = service.processAndSave(file);
+
+        assertThat(result.getFileName()).isEqualTo("test.txt.gz");
+        assertThat(result.getLineCount()).isEqualTo(2);
+        assertThat(result.getWordCount()).isEqualTo(6);
+        // Hashed on the decoded bytes, so the same text matches whether it was compressed or not.
+        assertThat(result.getContentHash()).isEqualTo(ContentHashing.hash(new ByteArrayInputStream(plain)));
+    }
+
+    @Test
+    void shouldStopInflatingAtDecompressedLimit() throws Exception {
+        properties.getCompression().setMaxDecompressedSize(DataSize.ofKilobytes(64));
+        byte[] bomb = gzip(new byte[1024 * 1024]);
+
+        assertThatThrownBy(() -> service.processAndSave("bomb.txt.gz", new ByteArrayInputStream(bomb), bomb.length))
+                .isInstanceOf(PayloadTooLargeException.class);
+        verify(repository, never()).save(any(FileMetadata.class));
+    }
+
+    @Test
+    void shouldApplyCompressedLimitToGzipUploads() {
+        properties.getCompression().setMaxCompressedSize(DataSize.ofBytes(10));
+
+        assertThatThrownBy(() -> service.validate("data.csv.gz", 11))
+                .isInstanceOf(PayloadTooLargeException.class);
+        service.validate("data.csv", 11);
+    }
+
+    @Test
+    void shouldRejectCorruptGzipContent() {
+        byte[] notGzip = "plain text".getBytes(StandardCharsets.UTF_8);
+
+        assertThatThrownBy(() -> service.processAndSave("data.csv.gz", new ByteArrayInputStream(notGzip), -1L))
+                .isInstanceOf(InvalidContentException.class);
+    }
+
+    @Test
+    void shouldStoreColumnStatisticsForCsvUploads() {
+        when(repository.save(any(FileMetadata.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        FileMetadata result = service.processAndSave(mockFile("data.csv", "a,b\n1,x\n2,\n"));
+
+        assertThat(result.getLineCount()).isEqualTo(3);
+        assertThat(result.getCsvStats().rowCount()).isEqualTo(2);
+        assertThat(result.getCsvStats().columns()).extracting(CsvColumnStats::name).containsExactly("a", "b");
+        assertThat(result.getCsvStats().columns().get(1).nullCount()).isEqualTo(1);
+        assertThat(service.processAndSave(mockFile("notes.txt", "a,b\n")).getCsvStats()).isNull();
+    }
+
+    @Test
+    void shouldCollectColumnStatisticsOfLargeCsvUploadsOnEveryPath() throws Exception {
+        when(repository.save(any(FileMetadata.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        StringBuilder content = new StringBuilder("id,note,price\n");
+        for (int i = 0; i < 300; i++) {
+            content.append(i).append(i % 4 == 0 ? ",\"two\nlines, quoted\"," : ",plain,").append(i % 3 == 0 ? "" : i / 2.0).append('\n');
+        }
+        FileMetadata streamed = service.processAndSave(mockFile("data.csv", content.toString()));
+
+        properties.getMapped().setThreshold(DataSize.ofBytes(1));
+        service = newService();
+        FileMetadata mapped = service.processAndSave(mockFile("data.csv", content.toString()));
+
+        properties.getParallel().setThreshold(DataSize.ofBytes(1));
+        properties.getParallel().setChunkSize(DataSize.ofBytes(256));
+        service = newService();
+        FileMetadata parallel = service.processAndSave(mockFile("data.csv", content.toString()));
+
+        verify(parallelCounter).count(any(FileChannel.class), notNull());
+        assertThat(streamed.getCsvStats().rowCount()).isEqualTo(300);
+        assertThat(streamed.getCsvStats().columns().get(2).nullCount()).isEqualTo(100);
+        assertThat(mapped.getCsvStats()).isEqualTo(streamed.getCsvStats());
+        assertThat(parallel.getCsvStats()).isEqualTo(streamed.getCsvStats());
+        assertThat(parallel.getLineCount()).isEqualTo(streamed.getLineCount());
+        assertThat(parallel.getWordCount()).isEqualTo(streamed.getWordCount());
+    }
+
+    @Test
+    void shouldStoreTextProfile() {
+        properties.getProfile().setEnabled(true);
+        when(repository.save(any(FileMetadata.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        FileMetadata result = service.processAndSave(mockFile("notes.txt", "the cat\r\nthe dog and the caf\u00e9\n"));
+
+        TextProfile profile = result.getTextProfile();
+        assertThat(profile.byteCount()).isEqualTo(31);
+        assertThat(profile.charCount()).isEqualTo(30);
+        assertThat(profile.longestLine()).isEqualTo(20);
+        assertThat(profile.distinctWords()).isEqualTo(5);
+        assertThat(profile.topWords().get(0)).isEqualTo(new WordCount("the", 3, 0));
+    }
+
+    @Test
+    void shouldProfileLargeUploadsAcrossParallelRanges() {
+        properties.getProfile().setEnabled(true);
+        properties.getMapped().setThreshold(DataSize.ofBytes(1));
+        properties.getParallel().setThreshold(DataSize.ofBytes(1));
+        properties.getParallel().setChunkSize(DataSize.ofBytes(64));
+        service = newService();
+        when(repository.save(any(FileMetadata.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            content.append("alpha beta ").append(i % 7 == 0 ? "gamma" : "alpha").append('\n');
+        }
+
+        TextProfile profile = service.processAndSave(mockFile("big.txt", content.toString())).getTextProfile();
+
+        assertThat(profile.byteCount()).isEqualTo(content.length());
+        assertThat(profile.distinctWords()).isEqualTo(3);
+        assertThat(profile.topWords()).extracting(WordCount::word).containsExactly("alpha", "beta", "gamma");
+        assertThat(profile.topWords().get(0).count()).isEqualTo(200 + 171);
+    }
+
+    @Test
+    void shouldCountUtf16UploadsOnEveryPath() {
+        when(repository.save(any(FileMetadata.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        byte[] content = "\uFEFFcaf\u00e9 cr\u00e8me\r\n\u65e5\u672c\u8a9e\n".getBytes(StandardCharsets.UTF_16LE);
+        MockMultipartFile file = new MockMultipartFile("file", "notes.txt", "text/plain", content);
+
+        FileMetadata streamed = service.processAndSave("notes.txt", new ByteArrayInputStream(content), -1L);
+        FileMetadata inMemory = service.processAndSave(file);
+        properties.getMapped().setThreshold(DataSize.ofBytes(1));
+        properties.getParallel().setThreshold(DataSize.ofBytes(1));
+        properties.getParallel().setChunkSize(DataSize.ofBytes(4));
+        service = newService();
+        FileMetadata parallel = service.processAndSave(file);
+
+        for (FileMetadata result : List.of(streamed, inMemory, parallel)) {
+            assertThat(result.getLineCount()).isEqualTo(2);
+            assertThat(result.getWordCount()).isEqualTo(3);
+        }
+    }
+
+    @Test
+    void shouldRejectMalformedTextWhenConfigured() {
+        properties.getText().setMalformedInput(FileProcessingProperties.Text.MalformedInput.REJECT);
+        service = newService();
+        byte[] latin1 = "caf\u00e9".getBytes(StandardCharsets.ISO_8859_1);
+
+        assertThatThrownBy(() -> service.processAndSave("notes.txt", new ByteArrayInputStream(latin1), -1L))
+                .isInstanceOf(InvalidContentException.class);
+        assertThatThrownBy(() -> service.processAndSave(new MockMultipartFile("file", "notes.txt", "text/plain", latin1)))
+                .isInstanceOf(InvalidContentException.class);
+        assertThat(meterRegistry.get("file.processing.rejected").tag("reason", "invalid_content").counter().count()).isEqualTo(2);
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void shouldRecordStageTimesCountsAndRejections() {
+        when(repository.save(any(FileMetadata.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        service.processAndSave(mockFile("test.txt", "Hello world\nsecond line here\n"));
+        service.processAndSave("stream.txt", new ByteArrayInputStream("a b c".getBytes(StandardCharsets.UTF_8)), -1L);
+        assertThatThrownBy(() -> service.processAndSave(mockFile("test.exe", "x"))).isInstanceOf(UnsupportedMediaTypeException.class);
+        properties.setMaxFileSize(DataSize.ofBytes(4));
+        assertThatThrownBy(() -> service.processAndSave("big.txt", new ByteArrayInputStream(new byte[8]), -1L))
+                .isInstanceOf(PayloadTooLargeException.class);
+
+        assertThat(meterRegistry.get("file.processing.stage").tag("stage", "validate").timer().count()).isEqualTo(4);
+        assertThat(meterRegistry.get("file.processing.stage").tag("stage", "count").timer().count()).isEqualTo(3);
+        assertThat(meterRegistry.get("file.processing.stage").tag("stage", "persist").timer().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("file.processing.bytes").counter().count()).isEqualTo(34);
+        assertThat(meterRegistry.get("file.processing.lines").counter().count()).isEqualTo(3);
+        assertThat(meterRegistry.get("file.processing.words").counter().count()).isEqualTo(8);
+        assertThat(meterRegistry.get("file.processing.upload.size").summary().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("file.processing.rejected").tag("reason", "unsupported_type").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("file.processing.rejected").tag("reason", "too_large").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldValidateStreamedMultipartUploadsOnce() throws Exception {
+        when(repository.save(any(FileMetadata.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        service.processAndSave(mockFile("data.csv", "a,b\n1,2\n"));
+        service.processAndSave(new MockMultipartFile("file", "notes.txt.gz", "application/gzip",
+                gzip("a b c".getBytes(StandardCharsets.UTF_8))));
+
+        assertThat(meterRegistry.get("file.processing.stage").tag("stage", "validate").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldNotValidateAlreadyValidatedFilesAgain() throws Exception {
+        when(repository.save(any(FileMetadata.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        Path plain = Files.createTempFile("queued-", ".tmp");
+        Path compressed = Files.createTempFile("queued-", ".tmp");
+        try {
+            Files.writeString(plain, "a b\nc\n");
+            Files.write(compressed, gzip("a b\nc\n".getBytes(StandardCharsets.UTF_8)));
+            service.validate("a.txt", Files.size(plain));
+            service.validate("a.txt.gz", Files.size(compressed));
+
+            assertThat(service.processValidated("a.txt", plain).getWordCount()).isEqualTo(3);
+            assertThat(service.processValidated("a.txt.gz", compressed).getWordCount()).isEqualTo(3);
+            assertThat(meterRegistry.get("file.processing.stage").tag("stage", "validate").timer().count()).isEqualTo(2);
+        } finally {
+            Files.deleteIfExists(plain);
+            Files.deleteIfExists(compressed);
+        }
+    }
+
+    @Test
+    void shouldTakeUploadsIntoTheLocalLogWhileTheDatabaseIsDown(@TempDir Path logDirectory) throws Exception {
+        properties.getPersistence().setMode(FileProcessingProperties.Persistence.Mode.LOCAL_LOG);
+        properties.getPersistence().getLog().setDirectory(logDirectory);
+        properties.getPersistence().getLog().setMaxWait(Duration.ofMillis(50));
+        properties.getPersistence().getLog().setRetryDelay(Duration.ofSeconds(10));
+        when(repository.findFirstByContentHashOrderByIdAsc(anyString()))
+                .thenThrow(new DataAccessResourceFailureException("db down"));
+        when(repository.saveAll(anyList())).thenThrow(new DataAccessResourceFailureException("db down"));
+        DecodingTextStatsCounter counter = new DecodingTextStatsCounter(
+                new ProfilingTextStatsCounter(new ByteScanningTextStatsCounter(), properties), properties);
+        MappedTextStatsCounter mappedCounter = new MappedTextStatsCounter(counter);
+        ResultLog resultLog = new ResultLog(properties, new SimpleMeterRegistry());
+        FileMetadataWriter writer = new FileMetadataWriter(repository, mock(DailyFileStatsRepository.class),
+                mock(PlatformTransactionManager.class), properties, new SimpleMeterRegistry(), new NoOpCacheManager(), resultLog);
+        FileProcessingService localLogService = new FileProcessingService(repository, writer, resultLog, counter, mappedCounter,
+                new ParallelTextStatsCounter(counter, mappedCounter, properties), properties, meterRegistry);
+        try {
+            FileMetadata first = localLogService.processAndSave(mockFile("a.txt", "hello world"));
+            FileMetadata second = localLogService.processAndSave(mockFile("b.txt", "other words here"));
+
+            assertThat(first.getId()).isNull();
+            assertThat(first.getWordCount()).isEqualTo(2);
+            assertThat(second.getWordCount()).isEqualTo(3);
+            assertThat(resultLog.pendingCount()).isEqualTo(2);
+            // the second lookup is skipped until the retry delay has passed
+            verify(repository, times(1)).findFirstByContentHashOrderByIdAsc(anyString());
+        } finally {
+            writer.shutdown();
+            resultLog.close();
+        }
+    }
+
+    private static FileMetadata withId(FileMetadata meta, long id) {
+        meta.setId(id);
+        return meta;
+    }
+}
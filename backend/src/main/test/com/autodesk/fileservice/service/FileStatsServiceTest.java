@@ -0,0 +1,60 @@
+package com.autodesk.fileservice.service;
+
+import com.autodesk.fileservice.exception.InvalidPageRequestException;
+import com.autodesk.fileservice.model.DailyFileStats;
+import com.autodesk.fileservice.model.FileStatsSummary;
+import com.autodesk.fileservice.repository.DailyFileStatsRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class FileStatsServiceTest {
+
+    private final DailyFileStatsRepository repository = mock(DailyFileStatsRepository.class);
+    private final FileStatsService service = new FileStatsService(repository);
+
+    @Test
+    void shouldSumTheDaysOfTheRange() {
+        LocalDate from = LocalDate.of(2024, 1, 1);
+        LocalDate to = LocalDate.of(2024, 1, 31);
+        List<DailyFileStats> days = List.of(
+                new DailyFileStats(LocalDate.of(2024, 1, 3), 2, 10, 40),
+                new DailyFileStats(LocalDate.of(2024, 1, 9), 1, 5, 12));
+        when(repository.findByDayBetweenOrderByDayAsc(from, to)).thenReturn(days);
+
+        FileStatsSummary summary = service.summarize(from, to);
+
+        assertThat(summary.fileCount()).isEqualTo(3);
+        assertThat(summary.lineCount()).isEqualTo(15);
+        assertThat(summary.wordCount()).isEqualTo(52);
+        assertThat(summary.days()).isEqualTo(days);
+    }
+
+    @Test
+    void shouldDefaultToTheLastThirtyDays() {
+        LocalDate today = LocalDate.now();
+
+        FileStatsSummary summary = service.summarize(null, null);
+
+        assertThat(summary.to()).isEqualTo(today);
+        assertThat(summary.from()).isEqualTo(today.minusDays(FileStatsService.DEFAULT_DAYS - 1));
+        assertThat(summary.fileCount()).isZero();
+        verify(repository).findByDayBetweenOrderByDayAsc(summary.from(), today);
+    }
+
+    @Test
+    void shouldRejectReversedOrTooLongRanges() {
+        LocalDate day = LocalDate.of(2024, 6, 1);
+
+        assertThatThrownBy(() -> service.summarize(day, day.minusDays(1)))
+                .isInstanceOf(InvalidPageRequestException.class);
+        assertThatThrownBy(() -> service.summarize(day, day.plusDays(FileStatsService.MAX_DAYS)))
+                .isInstanceOf(InvalidPageRequestException.class);
+        assertThatCode(() -> service.summarize(day, day.plusDays(FileStatsService.MAX_DAYS - 1)))
+                .doesNotThrowAnyException();
+    }
+}
@@ -0,0 +1,78 @@
+package com.autodesk.fileservice.service;
+
+import com.autodesk.fileservice.exception.UnsupportedExportFormatException;
+import com.autodesk.fileservice.model.FileMetadataExport;
+import com.autodesk.fileservice.repository.FileMetadataRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class MetadataExportServiceTest {
+
+    private final FileMetadataRepository repository = mock(FileMetadataRepository.class);
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final MetadataExportService service =
+            new MetadataExportService(repository, mock(PlatformTransactionManager.class), objectMapper);
+
+    private static final LocalDateTime UPLOADED = LocalDateTime.of(2025, 1, 2, 3, 4, 5);
+
+    @Test
+    void shouldWriteOneJsonObjectPerLine() {
+        when(repository.streamAllForExport()).thenReturn(Stream.of(
+                new FileMetadataExport(1L, "a.txt", 2, 6, UPLOADED),
+                new FileMetadataExport(2L, "b.csv", 0, 0, UPLOADED)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = service.export(MetadataExportService.Format.NDJSON, out);
+
+        assertThat(count).isEqualTo(2);
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "{\"id\":1,\"fileName\":\"a.txt\",\"lineCount\":2,\"wordCount\":6,\"uploadedAt\":\"2025-01-02T03:04:05\"}\n"
+                        + "{\"id\":2,\"fileName\":\"b.csv\",\"lineCount\":0,\"wordCount\":0,\"uploadedAt\":\"2025-01-02T03:04:05\"}\n");
+    }
+
+    @Test
+    void shouldWriteCsvWithHeaderAndQuotedNames() {
+        when(repository.streamAllForExport()).thenReturn(Stream.of(
+                new FileMetadataExport(1L, "plain.txt", 2, 6, UPLOADED),
+                new FileMetadataExport(2L, "a, \"quoted\".csv", 1, 1, null)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        service.export(MetadataExportService.Format.CSV, out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "id,file_name,line_count,word_count,uploaded_at\r\n"
+                        + "1,plain.txt,2,6,2025-01-02T03:04:05\r\n"
+                        + "2,\"a, \"\"quoted\"\".csv\",1,1,\r\n");
+    }
+
+    @Test
+    void shouldCloseTheRowStream() {
+        AtomicBoolean closed = new AtomicBoolean();
+        when(repository.streamAllForExport()).thenReturn(Stream.<FileMetadataExport>empty().onClose(() -> closed.set(true)));
+
+        service.export(MetadataExportService.Format.NDJSON, new ByteArrayOutputStream());
+
+        assertThat(closed).isTrue();
+    }
+
+    @Test
+    void shouldRejectUnknownFormat() {
+        assertThat(MetadataExportService.Format.parse("CSV")).isEqualTo(MetadataExportService.Format.CSV);
+        assertThatThrownBy(() -> MetadataExportService.Format.parse("xml"))
+                .isInstanceOf(UnsupportedExportFormatException.class);
+    }
+}
@@ -0,0 +1,191 @@
+package com.autodesk.fileservice.service;
+
+import com.autodesk.fileservice.config.FileProcessingProperties;
+import com.autodesk.fileservice.counter.ByteScanningTextStatsCounter;
+import com.autodesk.fileservice.counter.MappedTextStatsCounter;
+import com.autodesk.fileservice.counter.ParallelTextStatsCounter;
+import com.autodesk.fileservice.exception.PayloadTooLargeException;
+import com.autodesk.fileservice.exception.ProcessingRejectedException;
+import com.autodesk.fileservice.exception.UnsupportedMediaTypeException;
+import com.autodesk.fileservice.exception.UploadConflictException;
+import com.autodesk.fileservice.exception.UploadSessionNotFoundException;
+import com.autodesk.fileservice.model.CsvColumnStats;
+import com.autodesk.fileservice.model.FileMetadata;
+import com.autodesk.fileservice.model.UploadSession;
+import com.autodesk.fileservice.repository.DailyFileStatsRepository;
+import com.autodesk.fileservice.repository.FileMetadataRepository;
+import com.autodesk.fileservice.resultlog.ResultLog;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UploadSessionServiceTest {
+
+    private final FileMetadataRepository repository = mock(FileMetadataRepository.class);
+    private FileProcessingProperties properties;
+    private UploadSessionService service;
+
+    @BeforeEach
+    void setup() {
+        properties = new FileProcessingProperties();
+        properties.getPersistence().setMode(FileProcessingProperties.Persistence.Mode.SYNC);
+        when(repository.save(any(FileMetadata.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        service = newService();
+    }
+
+    private UploadSessionService newService() {
+        ByteScanningTextStatsCounter counter = new ByteScanningTextStatsCounter();
+        MappedTextStatsCounter mappedCounter = new MappedTextStatsCounter(counter);
+        ResultLog resultLog = new ResultLog(properties, new SimpleMeterRegistry());
+        FileMetadataWriter writer = new FileMetadataWriter(repository, mock(DailyFileStatsRepository.class), mock(PlatformTransactionManager.class), properties,
+                new SimpleMeterRegistry(), new NoOpCacheManager(), resultLog);
+        FileProcessingService processingService = new FileProcessingService(repository, writer, resultLog, counter, mappedCounter,
+                new ParallelTextStatsCounter(counter, mappedCounter, properties), properties, new SimpleMeterRegistry());
+        return new UploadSessionService(processingService, properties, new SimpleMeterRegistry());
+    }
+
+    private static InputStream bytes(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldCountChunksSplitInsideWordsAndLines() throws IOException {
+        String content = "Hello wor" + "ld\r" + "\nsecond line\n" + "last";
+        UploadSession session = service.create("notes.txt", content.length());
+
+        service.append(session.id(), 0, bytes("Hello wor"));
+        service.append(session.id(), 9, bytes("ld\r"));
+        service.append(session.id(), 12, bytes("\nsecond line\n"));
+        UploadSession state = service.append(session.id(), 25, bytes("last"));
+        FileMetadata result = service.complete(session.id());
+
+        assertThat(state.offset()).isEqualTo(content.length());
+        assertThat(result.getFileName()).isEqualTo("notes.txt");
+        assertThat(result.getLineCount()).isEqualTo(3);
+        assertThat(result.getWordCount()).isEqualTo(5);
+        assertThat(result.getContentHash()).isEqualTo(ContentHashing.hash(bytes(content)));
+        assertThatThrownBy(() -> service.find(session.id())).isInstanceOf(UploadSessionNotFoundException.class);
+    }
+
+    @Test
+    void shouldKeepTheSessionWhenStoringTheResultFails() throws IOException {
+        UploadSession session = service.create("notes.txt", 11);
+        service.append(session.id(), 0, bytes("hello world"));
+        when(repository.save(any(FileMetadata.class))).thenThrow(new IllegalStateException("db down"));
+
+        assertThatThrownBy(() -> service.complete(session.id())).hasMessage("db down");
+        assertThat(service.find(session.id()).offset()).isEqualTo(11);
+
+        doAnswer(invocation -> invocation.getArgument(0)).when(repository).save(any(FileMetadata.class));
+        FileMetadata result = service.complete(session.id());
+
+        assertThat(result.getLineCount()).isEqualTo(1);
+        assertThat(result.getWordCount()).isEqualTo(2);
+        assertThat(result.getContentHash()).isEqualTo(ContentHashing.hash(bytes("hello world")));
+        assertThatThrownBy(() -> service.find(session.id())).isInstanceOf(UploadSessionNotFoundException.class);
+    }
+
+    @Test
+    void shouldNotReuseAnIdFromAFailedStore() throws IOException {
+        UploadSession session = service.create("notes.txt", 11);
+        service.append(session.id(), 0, bytes("hello world"));
+        when(repository.save(any(FileMetadata.class))).thenAnswer(invocation -> {
+            // the id is assigned before the insert fails and the transaction rolls back
+            invocation.<FileMetadata>getArgument(0).setId(51L);
+            throw new IllegalStateException("db down");
+        });
+        assertThatThrownBy(() -> service.complete(session.id())).hasMessage("db down");
+
+        doAnswer(invocation -> {
+            FileMetadata row = invocation.getArgument(0);
+            assertThat(row.getId()).isNull();
+            row.setId(101L);
+            return row;
+        }).when(repository).save(any(FileMetadata.class));
+        FileMetadata result = service.complete(session.id());
+
+        assertThat(result.getId()).isEqualTo(101L);
+        assertThat(result.getWordCount()).isEqualTo(2);
+        verify(repository, times(2)).save(any(FileMetadata.class));
+    }
+
+    @Test
+    void shouldKeepBytesReceivedBeforeAConnectionDrops() {
+        UploadSession session = service.create("notes.txt", 11);
+        InputStream dropped = new InputStream() {
+            private final InputStream delegate = bytes("one tw");
+
+            @Override
+            public int read() throws IOException {
+                int b = delegate.read();
+                if (b == -1) throw new IOException("Connection reset");
+                return b;
+            }
+        };
+
+        assertThatThrownBy(() -> service.append(session.id(), 0, dropped)).isInstanceOf(RuntimeException.class);
+        assertThat(service.find(session.id()).offset()).isEqualTo(6);
+
+        service.append(session.id(), 6, bytes("o six"));
+        assertThat(service.complete(session.id()).getWordCount()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldRejectChunksAtTheWrongOffset() {
+        UploadSession session = service.create("notes.txt", 10);
+        service.append(session.id(), 0, bytes("abc"));
+
+        assertThatThrownBy(() -> service.append(session.id(), 0, bytes("abc")))
+                .isInstanceOfSatisfying(UploadConflictException.class, ex -> assertThat(ex.getOffset()).isEqualTo(3));
+        assertThatThrownBy(() -> service.complete(session.id()))
+                .isInstanceOfSatisfying(UploadConflictException.class, ex -> assertThat(ex.getOffset()).isEqualTo(3));
+    }
+
+    @Test
+    void shouldRejectBytesBeyondTheDeclaredLength() {
+        UploadSession session = service.create("notes.txt", 4);
+
+        assertThatThrownBy(() -> service.append(session.id(), 0, bytes("abcdef")))
+                .isInstanceOf(PayloadTooLargeException.class);
+        assertThat(service.find(session.id()).offset()).isEqualTo(4);
+        assertThat(service.complete(session.id()).getWordCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldCollectCsvStatisticsAcrossChunks() {
+        UploadSession session = service.create("data.csv", 13);
+        service.append(session.id(), 0, bytes("a,b\n1,"));
+        service.append(session.id(), 6, bytes("\"x\"\n2,\n"));
+
+        FileMetadata result = service.complete(session.id());
+
+        assertThat(result.getCsvStats().rowCount()).isEqualTo(2);
+        assertThat(result.getCsvStats().columns()).extracting(CsvColumnStats::nullCount).containsExactly(0L, 1L);
+    }
+
+    @Test
+    void shouldValidateSessions() {
+        properties.getResumable().setMaxFileSize(DataSize.ofBytes(100));
+        properties.getResumable().setMaxSessions(1);
+
+        assertThatThrownBy(() -> service.create("data.txt.gz", 10)).isInstanceOf(UnsupportedMediaTypeException.class);
+        assertThatThrownBy(() -> service.create("big.txt", 101)).isInstanceOf(PayloadTooLargeException.class);
+        UploadSession session = service.create("a.txt", 100);
+        assertThatThrownBy(() -> service.create("b.txt", 1)).isInstanceOf(ProcessingRejectedException.class);
+
+        service.cancel(session.id());
+        assertThatThrownBy(() -> service.append(session.id(), 0, bytes("a")))
+                .isInstanceOf(UploadSessionNotFoundException.class);
+    }
+}